@@ -0,0 +1,40 @@
+package com.aroque.minhasfinancas.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// O login confere a senha com BCrypt, de propósito caro: é o teto de autenticações por núcleo
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private BCryptPasswordEncoder encoder;
+    private String senhaCriptografada;
+
+    @Setup
+    public void preparar() {
+        // Mesma configuração do bean em SecurityConfiguration
+        encoder = new BCryptPasswordEncoder();
+        senhaCriptografada = encoder.encode("senha-do-benchmark");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("senha-do-benchmark", senhaCriptografada);
+    }
+}
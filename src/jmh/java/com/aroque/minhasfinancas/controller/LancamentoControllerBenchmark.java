@@ -0,0 +1,97 @@
+package com.aroque.minhasfinancas.controller;
+
+import com.aroque.minhasfinancas.dto.LancamentoDto;
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Conversões do controller e a serialização da resposta da listagem
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LancamentoControllerBenchmark {
+
+    @Param({"100", "1000"})
+    int quantidade;
+
+    private LancamentoController controller;
+    private UsuarioModel usuario;
+    private LancamentoDto dto;
+    private LancamentoModel lancamento;
+    private List<LancamentoModel> lancamentos;
+    private List<LancamentoDto> dtos;
+
+    // Mesmo ObjectMapper que o Spring Boot monta, com o módulo de datas do Java 8
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void preparar() {
+        controller = new LancamentoController(null, null, null, null, null);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        usuario = UsuarioModel.builder().id(1L).nome("Benchmark").email("benchmark@gmail.com")
+                .dataCadastro(LocalDate.now()).build();
+
+        dto = LancamentoDto.builder().id(1L).descricao("Conta de luz").ano(2022).mes(3).valor(BigDecimal.valueOf(120))
+                .usuario(1L).tipo("DESPESA").status("PENDENTE").dataCadatro(LocalDate.now()).versao(0L).build();
+
+        lancamentos = new ArrayList<>();
+        dtos = new ArrayList<>();
+        for(int i = 0; i < quantidade; i++){
+            LancamentoModel item = LancamentoModel.builder().id((long) i).descricao("Lançamento " + i).ano(2022).mes(1 + i % 12)
+                    .valor(BigDecimal.valueOf(i)).tipo(TipoLancamentoEnum.DESPESA).status(StatusLancamentoEnum.PENDENTE)
+                    .dataCadastro(LocalDate.now()).usuario(usuario).versao(0L)
+                    .build();
+            lancamentos.add(item);
+            dtos.add(controller.converter(item));
+        }
+        lancamento = lancamentos.get(0);
+    }
+
+    @Benchmark
+    public LancamentoModel converterDtoParaModel() {
+        LancamentoModel convertido = controller.converter(dto, usuario);
+        convertido.setTipo(TipoLancamentoEnum.valueOf(dto.getTipo()));
+        convertido.setStatus(StatusLancamentoEnum.valueOf(dto.getStatus()));
+        return convertido;
+    }
+
+    @Benchmark
+    public LancamentoDto converterModelParaDto() {
+        return controller.converter(lancamento);
+    }
+
+    // Lista de entidades, como a listagem respondia antes da projeção: o usuário vai junto em cada item
+    @Benchmark
+    public byte[] serializarListaDeLancamentoModel() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(lancamentos);
+    }
+
+    @Benchmark
+    public byte[] serializarListaDeLancamentoDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+}
@@ -0,0 +1,69 @@
+package com.aroque.minhasfinancas.service.Impl;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+// Antes e depois do registro de chaves: a chave em base64 decodificada a cada token
+// contra a SecretKeySpec montada uma vez e escolhida pelo kid
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChavesAssinaturaBenchmark {
+
+    private static final String CHAVE = "c2UgbGV1IHRhIG1lIGRldmVuZG8gMjAgcmVhaXM=";
+
+    private ChavesAssinatura chaves;
+    private String tokenSemKid;
+    private String tokenComKid;
+
+    @Setup
+    public void preparar() {
+        chaves = new ChavesAssinatura(Collections.singletonMap("k1", CHAVE), "k1");
+        tokenSemKid = assinarComString();
+        tokenComKid = assinarComChave();
+    }
+
+    @Benchmark
+    public String assinarComString() {
+        return Jwts.builder()
+                .setSubject("benchmark@gmail.com")
+                .signWith(ChavesAssinatura.ALGORITMO, CHAVE)
+                .compact();
+    }
+
+    @Benchmark
+    public String assinarComChave() {
+        return Jwts.builder()
+                .setSubject("benchmark@gmail.com")
+                .setHeaderParam(JwsHeader.KEY_ID, chaves.getIdAtual())
+                .signWith(ChavesAssinatura.ALGORITMO, chaves.getAtual())
+                .compact();
+    }
+
+    @Benchmark
+    public Claims conferirComString() {
+        return Jwts.parser().setSigningKey(CHAVE).parseClaimsJws(tokenSemKid).getBody();
+    }
+
+    @Benchmark
+    public Claims conferirComChave() {
+        return Jwts.parser().setSigningKeyResolver(chaves).parseClaimsJws(tokenComKid).getBody();
+    }
+}
@@ -0,0 +1,69 @@
+package com.aroque.minhasfinancas.service.Impl;
+
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+// Custo de emitir e conferir tokens em cada requisição autenticada
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceImplBenchmark {
+
+    private JwtServiceImpl jwtService;
+    private UsuarioModel usuario;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        jwtService = new JwtServiceImpl();
+        definir("expiracao", "30");
+        definir("chaveAssinatura", "c2UgbGV1IHRhIG1lIGRldmVuZG8gMjAgcmVhaXM=");
+        definir("tamanhoMaximoCache", 10_000L);
+        jwtService.iniciar();
+
+        usuario = UsuarioModel.builder().id(1L).nome("Benchmark").email("benchmark@gmail.com").build();
+        token = jwtService.gerarToken(usuario);
+        // Deixa o token no cache, como fica depois da primeira requisição
+        jwtService.isTokenValido(token);
+    }
+
+    private void definir(String campo, Object valor) {
+        Field field = ReflectionUtils.findField(JwtServiceImpl.class, campo);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, jwtService, valor);
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return jwtService.gerarToken(usuario);
+    }
+
+    // Parse e conferência da assinatura HS512, sem cache
+    @Benchmark
+    public Claims obterClaims() {
+        return jwtService.obterClaims(token);
+    }
+
+    // Caminho do filtro depois da primeira vez: hash do token e consulta ao cache
+    @Benchmark
+    public boolean isTokenValido() {
+        return jwtService.isTokenValido(token);
+    }
+}
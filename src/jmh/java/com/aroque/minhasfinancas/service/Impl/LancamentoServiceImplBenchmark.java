@@ -0,0 +1,49 @@
+package com.aroque.minhasfinancas.service.Impl;
+
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LancamentoServiceImplBenchmark {
+
+    private LancamentoServiceImpl service;
+    private LancamentoModel lancamento;
+
+    @Setup
+    public void preparar() {
+        // validar não usa os repositories
+        service = new LancamentoServiceImpl(null, null, null, null, null, null, null, null, null);
+        lancamento = LancamentoModel.builder().id(1L).descricao("Conta de luz").ano(2022).mes(3)
+                .valor(BigDecimal.valueOf(120)).tipo(TipoLancamentoEnum.DESPESA).status(StatusLancamentoEnum.PENDENTE)
+                .dataCadastro(LocalDate.now()).usuario(UsuarioModel.builder().id(1L).build())
+                .build();
+    }
+
+    @Benchmark
+    public void validar(Blackhole blackhole) {
+        service.validar(lancamento);
+        blackhole.consume(lancamento);
+    }
+}
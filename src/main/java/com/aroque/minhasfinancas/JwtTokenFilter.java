@@ -1,9 +1,15 @@
 package com.aroque.minhasfinancas;
 
+import com.aroque.minhasfinancas.dto.TokenVerificadoDto;
+import com.aroque.minhasfinancas.dto.UsuarioAutenticadoDto;
 import com.aroque.minhasfinancas.service.Impl.SecurityUserDetailsService;
 import com.aroque.minhasfinancas.service.JwtService;
+import com.aroque.minhasfinancas.service.RevogacaoTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetails;
@@ -15,6 +21,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Optional;
 
 public class JwtTokenFilter extends OncePerRequestFilter {
 
@@ -22,10 +29,29 @@ public class JwtTokenFilter extends OncePerRequestFilter {
     JwtService jwtService;
     @Autowired
     SecurityUserDetailsService userDetailsService;
+    @Autowired
+    RevogacaoTokenService revogacaoTokenService;
+
+    // Quando verdadeiro o usuário é montado a partir do token, sem ir no banco a cada requisição
+    private final boolean autenticacaoSemBanco;
 
-    public JwtTokenFilter(JwtService jwtService, SecurityUserDetailsService userDetailsService) {
+    // Quanto do tempo do filtro vai para conferir o token e quanto para montar o usuário
+    private final Timer tempoVerificar;
+    private final Timer tempoUsuarioDoToken;
+    private final Timer tempoUsuarioDoBanco;
+    private final MeterRegistry registry;
+
+    public JwtTokenFilter(JwtService jwtService, SecurityUserDetailsService userDetailsService,
+                          RevogacaoTokenService revogacaoTokenService, boolean autenticacaoSemBanco,
+                          MeterRegistry registry) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.revogacaoTokenService = revogacaoTokenService;
+        this.autenticacaoSemBanco = autenticacaoSemBanco;
+        this.registry = registry;
+        this.tempoVerificar = Timer.builder("financas.jwt.filtro").tag("etapa", "verificar_token").register(registry);
+        this.tempoUsuarioDoToken = Timer.builder("financas.jwt.filtro").tag("etapa", "usuario_do_token").register(registry);
+        this.tempoUsuarioDoBanco = Timer.builder("financas.jwt.filtro").tag("etapa", "usuario_do_banco").register(registry);
     }
 
     // Interceptando a requisição, para decodificar o token e jogar o usuario que está dentro do token dentro
@@ -43,23 +69,39 @@ public class JwtTokenFilter extends OncePerRequestFilter {
         if(authorization != null && authorization.startsWith("Bearer")){
             //Separando o token
             String token = authorization.split(" ")[1];
-            boolean isTokenValid = jwtService.isTokenValido(token);
+            // Uma única verificação já devolve o login, sem ler o token duas vezes
+            Optional<TokenVerificadoDto> tokenVerificado = tempoVerificar.record(() -> jwtService.verificar(token));
+            registry.counter("financas.jwt.tokens", "resultado", tokenVerificado.isPresent() ? "valido" : "invalido").increment();
 
-            if(isTokenValid){
-                String login = jwtService.obterLoginUsuario(token);
-                // Carregar o usuario do banco de acordo com o token
-                UserDetails usuarioAutenticado = userDetailsService.loadUserByUsername(login);
-                UsernamePasswordAuthenticationToken user =
-                        new UsernamePasswordAuthenticationToken(
-                                usuarioAutenticado,null, usuarioAutenticado.getAuthorities());
-                user.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            if(tokenVerificado.isPresent()){
+                UserDetails usuarioAutenticado = carregarUsuario(tokenVerificado.get());
+                if(usuarioAutenticado != null){
+                    UsernamePasswordAuthenticationToken user =
+                            new UsernamePasswordAuthenticationToken(
+                                    usuarioAutenticado,null, usuarioAutenticado.getAuthorities());
+                    user.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                // Estou pegando o contexto do spring security e jogando a autenticação
-                SecurityContextHolder.getContext().setAuthentication(user);
+                    // Estou pegando o contexto do spring security e jogando a autenticação
+                    SecurityContextHolder.getContext().setAuthentication(user);
+                }
             }
         }
             // Dando continuidade a requisição
                     filterChain.doFilter(request, response);
 
     }
+
+    // Nulo quando o token foi revogado
+    private UserDetails carregarUsuario(TokenVerificadoDto token) {
+        if(token.getIdUsuario() != null && revogacaoTokenService.isRevogado(token)){
+            return null;
+        }
+        // Tokens antigos, sem o userid, continuam carregando o usuario do banco
+        if(!autenticacaoSemBanco || token.getIdUsuario() == null){
+            return tempoUsuarioDoBanco.record(() -> userDetailsService.loadUserByUsername(token.getEmail()));
+        }
+        // O único perfil da aplicação é USER, então tudo que o usuário precisa já está no token
+        return tempoUsuarioDoToken.record(() -> new UsuarioAutenticadoDto(token.getIdUsuario(), token.getEmail(), "",
+                AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
 }
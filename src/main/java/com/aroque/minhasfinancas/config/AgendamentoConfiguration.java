@@ -0,0 +1,12 @@
+package com.aroque.minhasfinancas.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tarefas em segundo plano, como a compactação do rollup; agendamento.habilitado=false desliga em um nó
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(value = "agendamento.habilitado", matchIfMissing = true)
+public class AgendamentoConfiguration {
+}
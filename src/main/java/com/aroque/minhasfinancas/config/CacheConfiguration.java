@@ -0,0 +1,40 @@
+package com.aroque.minhasfinancas.config;
+
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+// Cache de usuários em memória (Caffeine), configurado em spring.cache.* no application.properties
+// Tamanho, tempo de vida e recordStats vêm da spec; o actuator publica acertos e falhas em cache.gets
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfiguration {
+
+    public static final String USUARIOS = "usuarios";
+    public static final String USUARIOS_POR_EMAIL = "usuariosPorEmail";
+
+    // O mesmo CaffeineCacheManager que o Spring Boot montaria, mas com caches que guardam cópias
+    @Bean
+    public CacheManager cacheManager(CacheProperties properties){
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache createCaffeineCache(String nome) {
+                return new CaffeineCacheDeCopias(nome, createNativeCaffeineCache(nome), isAllowNullValues());
+            }
+        };
+        if(StringUtils.hasText(properties.getCaffeine().getSpec())){
+            cacheManager.setCacheSpecification(properties.getCaffeine().getSpec());
+        }
+        if(!properties.getCacheNames().isEmpty()){
+            cacheManager.setCacheNames(properties.getCacheNames());
+        }
+        return cacheManager;
+    }
+}
@@ -0,0 +1,31 @@
+package com.aroque.minhasfinancas.config;
+
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+// Guarda e devolve cópias do UsuarioModel: a entidade é mutável, e a mesma instância em cache
+// passaria a ser compartilhada entre requisições (quem alterasse uma alteraria a de todo mundo)
+// Continua sendo um CaffeineCache, então as métricas cache.gets seguem publicadas
+class CaffeineCacheDeCopias extends CaffeineCache {
+
+    CaffeineCacheDeCopias(String nome, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache, boolean permiteNulos) {
+        super(nome, cache, permiteNulos);
+    }
+
+    @Override
+    protected Object toStoreValue(Object valor) {
+        return super.toStoreValue(copiar(valor));
+    }
+
+    @Override
+    protected Object fromStoreValue(Object valor) {
+        return copiar(super.fromStoreValue(valor));
+    }
+
+    private Object copiar(Object valor) {
+        if(valor instanceof UsuarioModel){
+            return ((UsuarioModel) valor).toBuilder().build();
+        }
+        return valor;
+    }
+}
@@ -0,0 +1,47 @@
+package com.aroque.minhasfinancas.config;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+// Conta, na thread da requisição, quantos comandos SQL foram preparados e quantas entidades foram carregadas
+// As Statistics do Hibernate só têm os totais da aplicação, isso aqui separa por requisição
+public class ContadorHibernate extends EmptyInterceptor implements StatementInspector {
+
+    private static final ThreadLocal<long[]> CONTADORES = new ThreadLocal<>();
+
+    private static final int COMANDOS = 0;
+    private static final int ENTIDADES = 1;
+
+    public static void iniciar() {
+        CONTADORES.set(new long[2]);
+    }
+
+    // {comandos, entidades} desde o iniciar, e para de contar
+    public static long[] encerrar() {
+        long[] contadores = CONTADORES.get();
+        CONTADORES.remove();
+        return contadores == null ? new long[2] : contadores;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        incrementar(COMANDOS);
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        incrementar(ENTIDADES);
+        return false;
+    }
+
+    private void incrementar(int contador) {
+        long[] contadores = CONTADORES.get();
+        if(contadores != null){
+            contadores[contador]++;
+        }
+    }
+}
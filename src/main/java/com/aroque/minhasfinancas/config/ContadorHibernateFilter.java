@@ -0,0 +1,38 @@
+package com.aroque.minhasfinancas.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// Registra quantos comandos SQL e entidades carregadas cada requisição custou
+public class ContadorHibernateFilter extends OncePerRequestFilter {
+
+    private final DistributionSummary comandos;
+    private final DistributionSummary entidades;
+
+    public ContadorHibernateFilter(MeterRegistry registry) {
+        this.comandos = DistributionSummary.builder("financas.requisicao.comandos.sql")
+                .publishPercentiles(0.5, 0.95, 0.99).register(registry);
+        this.entidades = DistributionSummary.builder("financas.requisicao.entidades.carregadas")
+                .publishPercentiles(0.5, 0.95, 0.99).register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ContadorHibernate.iniciar();
+        try{
+            filterChain.doFilter(request, response);
+        } finally {
+            long[] contadores = ContadorHibernate.encerrar();
+            comandos.record(contadores[0]);
+            entidades.record(contadores[1]);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.aroque.minhasfinancas.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Só entra quando há réplicas configuradas; sem elas fica o DataSource padrão do Spring Boot
+@Configuration
+@ConditionalOnProperty("financas.datasource.replicas")
+public class DataSourceConfiguration {
+
+    // URLs das réplicas separadas por vírgula, com o mesmo usuário e senha do primário
+    @Value("${financas.datasource.replicas}")
+    String[] replicas;
+
+    // Contados a partir do commit da gravação do usuário
+    @Value("${financas.datasource.leitura-propria-segundos:5}")
+    long leituraPropriaSegundos;
+
+    @Value("${financas.datasource.verificacao-segundos:10}")
+    long verificacaoSegundos;
+
+    @Bean
+    public RoteadorDataSource roteadorDataSource(DataSourceProperties properties){
+        DataSource primario = properties.initializeDataSourceBuilder().build();
+        List<DataSource> pools = Arrays.stream(replicas)
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> DataSourceBuilder.create()
+                        .driverClassName(properties.determineDriverClassName())
+                        .url(url)
+                        .username(properties.determineUsername())
+                        .password(properties.determinePassword())
+                        .build())
+                .collect(Collectors.toList());
+        return new RoteadorDataSource(primario, pools, leituraPropriaSegundos * 1000, verificacaoSegundos * 1000);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoteadorDataSource roteador){
+        return new LazyConnectionDataSourceProxy(roteador);
+    }
+}
@@ -0,0 +1,90 @@
+package com.aroque.minhasfinancas.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// GET /actuator/hibernate: totais das Statistics do Hibernate, as consultas mais lentas
+// e a média de comandos e entidades por requisição
+@Endpoint(id = "hibernate")
+public class HibernateEndpoint {
+
+    private static final int CONSULTAS_MAIS_LENTAS = 10;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry registry;
+
+    public HibernateEndpoint(EntityManagerFactory entityManagerFactory, MeterRegistry registry) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> estatisticas() {
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("habilitado", estatisticas.isStatisticsEnabled());
+        resposta.put("desde", estatisticas.getStartTime());
+        resposta.put("consultas", estatisticas.getQueryExecutionCount());
+        resposta.put("comandosPreparados", estatisticas.getPrepareStatementCount());
+        resposta.put("entidadesCarregadas", estatisticas.getEntityLoadCount());
+        resposta.put("entidadesBuscadas", estatisticas.getEntityFetchCount());
+        resposta.put("entidadesInseridas", estatisticas.getEntityInsertCount());
+        resposta.put("entidadesAtualizadas", estatisticas.getEntityUpdateCount());
+        resposta.put("entidadesRemovidas", estatisticas.getEntityDeleteCount());
+        resposta.put("colecoesCarregadas", estatisticas.getCollectionLoadCount());
+        resposta.put("transacoes", estatisticas.getTransactionCount());
+        resposta.put("sessoesAbertas", estatisticas.getSessionOpenCount());
+        resposta.put("consultaMaisLenta", estatisticas.getQueryExecutionMaxTimeQueryString());
+        resposta.put("consultaMaisLentaMs", estatisticas.getQueryExecutionMaxTime());
+        resposta.put("consultasMaisLentas", maisLentas(estatisticas));
+        resposta.put("porRequisicao", porRequisicao());
+        return resposta;
+    }
+
+    private List<Map<String, Object>> maisLentas(Statistics estatisticas) {
+        List<Map<String, Object>> consultas = new ArrayList<>();
+        for(String consulta : estatisticas.getQueries()){
+            QueryStatistics estatisticasDaConsulta = estatisticas.getQueryStatistics(consulta);
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("consulta", consulta);
+            item.put("execucoes", estatisticasDaConsulta.getExecutionCount());
+            item.put("mediaMs", estatisticasDaConsulta.getExecutionAvgTime());
+            item.put("maximoMs", estatisticasDaConsulta.getExecutionMaxTime());
+            item.put("linhas", estatisticasDaConsulta.getExecutionRowCount());
+            consultas.add(item);
+        }
+        consultas.sort(Comparator.comparingLong((Map<String, Object> item) -> (Long) item.get("maximoMs")).reversed());
+        return consultas.subList(0, Math.min(CONSULTAS_MAIS_LENTAS, consultas.size()));
+    }
+
+    private Map<String, Object> porRequisicao() {
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resumir(resposta, "comandos", registry.find("financas.requisicao.comandos.sql").summary());
+        resumir(resposta, "entidades", registry.find("financas.requisicao.entidades.carregadas").summary());
+        return resposta;
+    }
+
+    private void resumir(Map<String, Object> resposta, String nome, DistributionSummary resumo) {
+        if(resumo == null){
+            return;
+        }
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("requisicoes", resumo.count());
+        item.put("media", resumo.mean());
+        item.put("maximo", resumo.max());
+        resposta.put(nome, item);
+    }
+}
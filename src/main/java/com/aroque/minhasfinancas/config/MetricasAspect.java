@@ -0,0 +1,58 @@
+package com.aroque.minhasfinancas.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+// Um timer por método dos services e dos repositories, com o nome da exceção quando o método falha
+// O timer já conta as chamadas, então não precisa de um contador separado
+@Aspect
+public class MetricasAspect {
+
+    private final MeterRegistry registry;
+
+    public MetricasAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.aroque.minhasfinancas.service.LancamentoService+.*(..)) "
+          + "|| execution(public * com.aroque.minhasfinancas.service.UsuarioService+.*(..))")
+    public Object medirService(ProceedingJoinPoint ponto) throws Throwable {
+        return medir("financas.service", ponto);
+    }
+
+    @Around("execution(public * com.aroque.minhasfinancas.repositories.*Repository+.*(..))")
+    public Object medirRepository(ProceedingJoinPoint ponto) throws Throwable {
+        return medir("financas.repository", ponto);
+    }
+
+    private Object medir(String nome, ProceedingJoinPoint ponto) throws Throwable {
+        Timer.Sample inicio = Timer.start(registry);
+        String excecao = "nenhuma";
+        try{
+            return ponto.proceed();
+        } catch (Throwable e){
+            excecao = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            inicio.stop(Timer.builder(nome)
+                    .tag("classe", classe(ponto))
+                    .tag("metodo", ponto.getSignature().getName())
+                    .tag("excecao", excecao)
+                    .register(registry));
+        }
+    }
+
+    // O método pode ter sido declarado em uma interface do Spring Data (CrudRepository, JpaRepository...),
+    // então o nome vem da interface da aplicação que o proxy implementa
+    private String classe(ProceedingJoinPoint ponto) {
+        for(Class<?> interfaceDoProxy : ponto.getThis().getClass().getInterfaces()){
+            if(interfaceDoProxy.getName().startsWith("com.aroque.minhasfinancas.")){
+                return interfaceDoProxy.getSimpleName();
+            }
+        }
+        return ponto.getSignature().getDeclaringType().getSimpleName();
+    }
+}
@@ -0,0 +1,44 @@
+package com.aroque.minhasfinancas.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.persistence.EntityManagerFactory;
+
+// Timers dos services e repositories, contagem de SQL por requisição e o endpoint /actuator/hibernate
+@Configuration
+public class MetricasConfiguration {
+
+    private final ContadorHibernate contadorHibernate = new ContadorHibernate();
+
+    @Bean
+    public MetricasAspect metricasAspect(MeterRegistry registry){
+        return new MetricasAspect(registry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer contadorHibernateCustomizer(){
+        return propriedades -> {
+            propriedades.put(AvailableSettings.INTERCEPTOR, contadorHibernate);
+            propriedades.put(AvailableSettings.STATEMENT_INSPECTOR, contadorHibernate);
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ContadorHibernateFilter> contadorHibernateFilter(MeterRegistry registry){
+        FilterRegistrationBean<ContadorHibernateFilter> filter = new FilterRegistrationBean<>(new ContadorHibernateFilter(registry));
+        // Antes do filtro do token, que também pode carregar o usuário do banco
+        filter.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return filter;
+    }
+
+    @Bean
+    public HibernateEndpoint hibernateEndpoint(EntityManagerFactory entityManagerFactory, MeterRegistry registry){
+        return new HibernateEndpoint(entityManagerFactory, registry);
+    }
+}
@@ -0,0 +1,97 @@
+package com.aroque.minhasfinancas.config;
+
+import com.aroque.minhasfinancas.exception.ErroSobrecarga;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Roda o BCrypt em um pool próprio, do tamanho dos núcleos e com fila limitada
+// Numa avalanche de logins as threads do Tomcat ficam livres para o resto da API, e quando a fila
+// enche o login falha na hora com ErroSobrecarga em vez de esperar
+public class PasswordEncoderIsolado implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer espera;
+    private final Counter rejeitadas;
+
+    public PasswordEncoderIsolado(PasswordEncoder encoder, int threads, int capacidadeFila, MeterRegistry registry) {
+        this.encoder = encoder;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila), criarThreads(), new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("financas.senha.fila", executor, pool -> pool.getQueue().size()).register(registry);
+        Gauge.builder("financas.senha.ativas", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        this.espera = Timer.builder("financas.senha.espera").register(registry);
+        this.rejeitadas = Counter.builder("financas.senha.rejeitadas").register(registry);
+    }
+
+    private static ThreadFactory criarThreads() {
+        AtomicInteger numero = new AtomicInteger();
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, "senha-" + numero.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public String encode(CharSequence senha) {
+        return executar(() -> encoder.encode(senha));
+    }
+
+    @Override
+    public boolean matches(CharSequence senha, String senhaCriptografada) {
+        return executar(() -> encoder.matches(senha, senhaCriptografada));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String senhaCriptografada) {
+        return encoder.upgradeEncoding(senhaCriptografada);
+    }
+
+    private <T> T executar(Callable<T> tarefa) {
+        long enfileirado = System.nanoTime();
+        Future<T> resultado;
+        try{
+            resultado = executor.submit(() -> {
+                espera.record(System.nanoTime() - enfileirado, TimeUnit.NANOSECONDS);
+                return tarefa.call();
+            });
+        } catch (RejectedExecutionException e){
+            rejeitadas.increment();
+            throw new ErroSobrecarga("Muitas autenticações ao mesmo tempo, tente novamente em instantes.");
+        }
+
+        try{
+            return resultado.get();
+        } catch (InterruptedException e){
+            resultado.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ErroSobrecarga("Autenticação interrompida, tente novamente.");
+        } catch (ExecutionException e){
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
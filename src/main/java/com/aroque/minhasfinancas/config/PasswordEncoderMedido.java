@@ -0,0 +1,34 @@
+package com.aroque.minhasfinancas.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Mede o BCrypt do login (matches) e do cadastro (encode), que é de propósito a parte mais cara da autenticação
+public class PasswordEncoderMedido implements PasswordEncoder {
+
+    private final PasswordEncoder encoder;
+    private final Timer encode;
+    private final Timer matches;
+
+    public PasswordEncoderMedido(PasswordEncoder encoder, MeterRegistry registry) {
+        this.encoder = encoder;
+        this.encode = Timer.builder("financas.senha").tag("operacao", "encode").register(registry);
+        this.matches = Timer.builder("financas.senha").tag("operacao", "matches").register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence senha) {
+        return encode.record(() -> encoder.encode(senha));
+    }
+
+    @Override
+    public boolean matches(CharSequence senha, String senhaCriptografada) {
+        return matches.record(() -> encoder.matches(senha, senhaCriptografada));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String senhaCriptografada) {
+        return encoder.upgradeEncoding(senhaCriptografada);
+    }
+}
@@ -0,0 +1,215 @@
+package com.aroque.minhasfinancas.config;
+
+import com.aroque.minhasfinancas.dto.UsuarioAutenticadoDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Manda as transações readOnly para as réplicas, em rodízio, e todo o resto para o primário
+// Tem que ficar atrás de um LazyConnectionDataSourceProxy: o readOnly da transação só é marcado
+// depois que o gerenciador de transação pede a conexão, e o proxy adia a escolha até o primeiro comando
+@Slf4j
+public class RoteadorDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARIO = "primario";
+
+    private final DataSource primario;
+    private final Map<String, DataSource> replicas = new HashMap<>();
+    private final List<String> chavesReplicas = new ArrayList<>();
+    private final Set<String> indisponiveis = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger proxima = new AtomicInteger();
+
+    // Leitura da própria escrita: por alguns segundos depois do commit de uma escrita, as leituras do usuário
+    // vão para o primário, que é quem com certeza já tem o dado
+    private final long janelaLeituraPropriaMs;
+    private final Map<Long, Long> fixadosNoPrimarioAte = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService verificador;
+
+    public RoteadorDataSource(DataSource primario, List<DataSource> replicas, long janelaLeituraPropriaMs, long intervaloVerificacaoMs) {
+        this.primario = primario;
+        this.janelaLeituraPropriaMs = janelaLeituraPropriaMs;
+
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIO, primario);
+        for (int i = 0; i < replicas.size(); i++) {
+            String chave = "replica-" + i;
+            this.replicas.put(chave, replicas.get(i));
+            this.chavesReplicas.add(chave);
+            destinos.put(chave, replicas.get(i));
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+        afterPropertiesSet();
+
+        if(intervaloVerificacaoMs > 0 && !replicas.isEmpty()){
+            verificador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, "verificador-replicas");
+                thread.setDaemon(true);
+                return thread;
+            });
+            verificador.scheduleWithFixedDelay(this::verificarReplicas, intervaloVerificacaoMs, intervaloVerificacaoMs, TimeUnit.MILLISECONDS);
+        } else {
+            verificador = null;
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly()){
+            fixarUsuarioNoPrimarioAposCommit();
+            return PRIMARIO;
+        }
+        if(isUsuarioFixadoNoPrimario()){
+            return PRIMARIO;
+        }
+        return proximaReplica();
+    }
+
+    // Rodízio só entre as réplicas saudáveis; sem nenhuma, a leitura vai para o primário
+    private String proximaReplica() {
+        int total = chavesReplicas.size();
+        for (int tentativa = 0; tentativa < total; tentativa++) {
+            String chave = chavesReplicas.get(Math.floorMod(proxima.getAndIncrement(), total));
+            if(!indisponiveis.contains(chave)){
+                return chave;
+            }
+        }
+        return PRIMARIO;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        String chave = (String) determineCurrentLookupKey();
+        if(PRIMARIO.equals(chave)){
+            return primario.getConnection();
+        }
+        try{
+            return replicas.get(chave).getConnection();
+        } catch (SQLException e){
+            // A leitura não falha por causa da réplica: ela sai do rodízio até a próxima verificação
+            log.warn("Réplica {} indisponível, lendo do primário: {}", chave, e.getMessage());
+            indisponiveis.add(chave);
+            return primario.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String usuario, String senha) throws SQLException {
+        return getConnection();
+    }
+
+    void verificarReplicas() {
+        replicas.forEach((chave, replica) -> {
+            boolean saudavel;
+            try(Connection conexao = replica.getConnection()){
+                saudavel = conexao.isValid(2);
+            } catch (SQLException e){
+                saudavel = false;
+            }
+            if(saudavel && indisponiveis.remove(chave)){
+                log.info("Réplica {} de volta ao rodízio", chave);
+            } else if(!saudavel && indisponiveis.add(chave)){
+                log.warn("Réplica {} fora do rodízio", chave);
+            }
+        });
+    }
+
+    // A janela começa quando a escrita fica visível: transação desfeita não fixa ninguém, e uma transação
+    // demorada não gasta a janela antes do commit. Uma vez por transação (REQUIRES_NEW registra a sua)
+    private void fixarUsuarioNoPrimarioAposCommit() {
+        Long idUsuario = usuarioAtual();
+        if(janelaLeituraPropriaMs <= 0 || idUsuario == null){
+            return;
+        }
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            // Sem transação cada comando já é o próprio commit
+            fixarUsuarioNoPrimario(idUsuario);
+            return;
+        }
+        boolean registrada = TransactionSynchronizationManager.getSynchronizations().stream()
+                .anyMatch(sincronizacao -> sincronizacao instanceof FixacaoAposCommit);
+        if(!registrada){
+            TransactionSynchronizationManager.registerSynchronization(new FixacaoAposCommit(idUsuario));
+        }
+    }
+
+    private class FixacaoAposCommit extends TransactionSynchronizationAdapter {
+
+        private final Long idUsuario;
+
+        FixacaoAposCommit(Long idUsuario) {
+            this.idUsuario = idUsuario;
+        }
+
+        @Override
+        public void afterCommit() {
+            fixarUsuarioNoPrimario(idUsuario);
+        }
+    }
+
+    private void fixarUsuarioNoPrimario(Long idUsuario) {
+        fixadosNoPrimarioAte.put(idUsuario, System.currentTimeMillis() + janelaLeituraPropriaMs);
+    }
+
+    private boolean isUsuarioFixadoNoPrimario() {
+        Long idUsuario = usuarioAtual();
+        if(idUsuario == null){
+            return false;
+        }
+        Long ate = fixadosNoPrimarioAte.get(idUsuario);
+        if(ate == null){
+            return false;
+        }
+        if(ate < System.currentTimeMillis()){
+            fixadosNoPrimarioAte.remove(idUsuario, ate);
+            return false;
+        }
+        return true;
+    }
+
+    private Long usuarioAtual() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        if(autenticacao != null && autenticacao.getPrincipal() instanceof UsuarioAutenticadoDto){
+            return ((UsuarioAutenticadoDto) autenticacao.getPrincipal()).getId();
+        }
+        return null;
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if(verificador != null){
+            verificador.shutdownNow();
+        }
+        for (DataSource replica : replicas.values()) {
+            fechar(replica);
+        }
+        fechar(primario);
+    }
+
+    private void fechar(DataSource dataSource) throws IOException {
+        if(dataSource instanceof Closeable){
+            ((Closeable) dataSource).close();
+        }
+    }
+}
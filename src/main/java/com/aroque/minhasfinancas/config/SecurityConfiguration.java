@@ -3,7 +3,12 @@ package com.aroque.minhasfinancas.config;
 import com.aroque.minhasfinancas.JwtTokenFilter;
 import com.aroque.minhasfinancas.service.Impl.SecurityUserDetailsService;
 import com.aroque.minhasfinancas.service.JwtService;
+import com.aroque.minhasfinancas.service.RevogacaoTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.Ordered;
@@ -35,12 +40,32 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     @Autowired
     JwtService jwtService;
 
+    @Autowired
+    RevogacaoTokenService revogacaoTokenService;
+
+    @Value("${jwt.autenticacao-sem-banco:true}")
+    boolean autenticacaoSemBanco;
+
+    // Threads só para o BCrypt, 0 usa a quantidade de núcleos
+    @Value("${senha.bulkhead.threads:0}")
+    int threadsSenha;
+
+    // Quantos hashes podem esperar por uma thread antes de o login responder 503
+    @Value("${senha.bulkhead.fila:64}")
+    int filaSenha;
+
+    // Opcional para os testes de controller, que sobem sem o actuator
+    @Autowired
+    ObjectProvider<MeterRegistry> meterRegistry;
+
 
     // Criptografar a senha
     @Bean
     public PasswordEncoder passwordEncoder(){
         PasswordEncoder enconder = new BCryptPasswordEncoder();
-        return enconder;
+        int threads = threadsSenha > 0 ? threadsSenha : Runtime.getRuntime().availableProcessors();
+        // O timer fica dentro do pool, medindo só o hash; a espera na fila é medida à parte
+        return new PasswordEncoderIsolado(new PasswordEncoderMedido(enconder, registry()), threads, filaSenha, registry());
     }
 
 
@@ -55,7 +80,11 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     @Bean
     public JwtTokenFilter jwtTokenFilter(){
-        return new JwtTokenFilter(jwtService, userDetailsService);
+        return new JwtTokenFilter(jwtService, userDetailsService, revogacaoTokenService, autenticacaoSemBanco, registry());
+    }
+
+    private MeterRegistry registry(){
+        return meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
     }
 
     @Override
@@ -64,6 +93,7 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         http.csrf().disable()
                 .authorizeRequests()
                 .antMatchers(HttpMethod.POST, "/api/usuarios/autenticar").permitAll()
+                .antMatchers(HttpMethod.POST, "/api/usuarios/token/refresh").permitAll()
                 .antMatchers(HttpMethod.POST, "/api/usuarios").permitAll()
                 .anyRequest().authenticated()
         .and()
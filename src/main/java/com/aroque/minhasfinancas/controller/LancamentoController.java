@@ -1,50 +1,89 @@
 package com.aroque.minhasfinancas.controller;
 
 import com.aroque.minhasfinancas.dto.AtualizaStatusDto;
+import com.aroque.minhasfinancas.dto.AtualizaStatusLoteDto;
+import com.aroque.minhasfinancas.dto.ImportacaoResultadoDto;
 import com.aroque.minhasfinancas.dto.LancamentoDto;
+import com.aroque.minhasfinancas.dto.LancamentoFiltroDto;
+import com.aroque.minhasfinancas.dto.LoteResultadoDto;
+import com.aroque.minhasfinancas.dto.PaginaDto;
+import com.aroque.minhasfinancas.dto.SelecaoLancamentosDto;
+import com.aroque.minhasfinancas.dto.UsuarioAutenticadoDto;
 import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
 import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.exception.ErroConcorrencia;
+import com.aroque.minhasfinancas.exception.ErroNaoEncontrado;
 import com.aroque.minhasfinancas.exception.RegraNegocioExecption;
 import com.aroque.minhasfinancas.model.LancamentoModel;
 import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.service.ExportacaoLancamentoService;
+import com.aroque.minhasfinancas.service.ImportacaoExtratoService;
 import com.aroque.minhasfinancas.service.LancamentoService;
+import com.aroque.minhasfinancas.service.SincroniaLancamentoService;
 import com.aroque.minhasfinancas.service.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.LocalDate;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/lancamentos")
 public class LancamentoController {
 
+    // Maior quantidade de lançamentos aceita em um POST /lote
+    static final int LIMITE_LOTE = 10000;
+
     @Autowired
     LancamentoService service;
 
     @Autowired
     UsuarioService usuarioService;
 
-    public LancamentoController(LancamentoService service, UsuarioService usuarioService) {
+    @Autowired
+    ImportacaoExtratoService importacaoService;
+
+    @Autowired
+    ExportacaoLancamentoService exportacaoService;
+
+    @Autowired
+    SincroniaLancamentoService sincroniaService;
+
+    public LancamentoController(LancamentoService service, UsuarioService usuarioService,
+                                ImportacaoExtratoService importacaoService, ExportacaoLancamentoService exportacaoService,
+                                SincroniaLancamentoService sincroniaService) {
         this.service = service;
         this.usuarioService = usuarioService;
+        this.importacaoService = importacaoService;
+        this.exportacaoService = exportacaoService;
+        this.sincroniaService = sincroniaService;
     }
 
     private LancamentoModel converter(LancamentoDto dto){
-        LancamentoModel lancamento = new LancamentoModel();
-        lancamento.setId(dto.getId());
-        lancamento.setDescricao(dto.getDescricao());
-        lancamento.setAno(dto.getAno());
-        lancamento.setMes(dto.getMes());
-        lancamento.setValor(dto.getValor());
-        lancamento.setDataCadastro(dto.getDataCadatro());
-
         UsuarioModel usuario = usuarioService.obterPorId(dto.getUsuario())
                 .orElseThrow(() -> new RegraNegocioExecption("Uusuário não encontrado para o Id informado"));
 
-        lancamento.setUsuario(usuario);
+        LancamentoModel lancamento = converter(dto, usuario);
         if(dto.getTipo() != null){
             lancamento.setTipo(TipoLancamentoEnum.valueOf(dto.getTipo()));
         }
@@ -56,6 +95,18 @@ public class LancamentoController {
         return lancamento;
     }
 
+    LancamentoModel converter(LancamentoDto dto, UsuarioModel usuario){
+        LancamentoModel lancamento = new LancamentoModel();
+        lancamento.setId(dto.getId());
+        lancamento.setDescricao(dto.getDescricao());
+        lancamento.setAno(dto.getAno());
+        lancamento.setMes(dto.getMes());
+        lancamento.setValor(dto.getValor());
+        lancamento.setDataCadastro(dto.getDataCadatro());
+        lancamento.setUsuario(usuario);
+        return lancamento;
+    }
+
 
     @PostMapping
     public ResponseEntity salvar (@RequestBody LancamentoDto dto){
@@ -68,18 +119,94 @@ public class LancamentoController {
         }
     }
 
-    @PutMapping("/{id}")
-    public ResponseEntity atualizar (@PathVariable(value = "id") Long id, @RequestBody LancamentoDto dto){
-        return service.obterPorId(id).map( entity -> {
-            try{
-                LancamentoModel lancamento = converter(dto);
-                lancamento.setId(entity.getId());
-                service.atualizar(lancamento);
-                return new ResponseEntity(lancamento, HttpStatus.OK);
-            } catch (RegraNegocioExecption e){
-                return ResponseEntity.badRequest().body(e.getMessage());
+    // Todos os lançamentos do lote são do usuário logado: "usuario", se vier, tem que ser ele
+    @PostMapping("/lote")
+    public ResponseEntity salvarLote(@RequestBody List<LancamentoDto> dtos,
+                                     @AuthenticationPrincipal UsuarioAutenticadoDto usuarioLogado){
+        if(dtos.size() > LIMITE_LOTE){
+            return ResponseEntity.badRequest().body("Envie no máximo " + LIMITE_LOTE + " lançamentos por lote.");
+        }
+        for(LancamentoDto dto : dtos){
+            if(dto.getUsuario() != null && !dto.getUsuario().equals(usuarioLogado.getId())){
+                return new ResponseEntity("Não é possível salvar lançamentos de outro usuário.", HttpStatus.FORBIDDEN);
             }
-        }).orElseGet( () -> new ResponseEntity("Lançamento não encontrado na base de Dados", HttpStatus.BAD_REQUEST) );
+        }
+
+        // O usuário é buscado uma vez só, e não uma vez por lançamento
+        UsuarioModel usuario = usuarioService.obterPorId(usuarioLogado.getId()).orElse(null);
+        List<LancamentoModel> lancamentos = new ArrayList<>();
+        for(LancamentoDto dto : dtos){
+            // Tipo inválido fica nulo e é apontado pela validação, sem derrubar o lote inteiro
+            LancamentoModel lancamento = converter(dto, usuario);
+            lancamento.setId(null);
+            lancamento.setTipo(tipoOuNulo(dto.getTipo()));
+            lancamentos.add(lancamento);
+        }
+
+        LoteResultadoDto resultado = service.salvarLote(lancamentos);
+        HttpStatus status = resultado.getInseridos() > 0 ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST;
+        return new ResponseEntity(resultado, status);
+    }
+
+    // O corpo da requisição é o próprio arquivo (CSV ou OFX), lido aos poucos sem passar por multipart
+    // Os lançamentos entram para o usuário logado: "usuario", se vier, tem que ser ele
+    @PostMapping("/importar")
+    public ResponseEntity importar(@RequestParam(value = "usuario", required = false) Long idUsuario,
+                                   @RequestParam(value = "formato", defaultValue = "csv") String formato,
+                                   @RequestParam(value = "charset", defaultValue = "UTF-8") String charset,
+                                   @AuthenticationPrincipal UsuarioAutenticadoDto usuarioLogado,
+                                   HttpServletRequest request) throws IOException {
+        if(idUsuario != null && !idUsuario.equals(usuarioLogado.getId())){
+            return new ResponseEntity("Não é possível importar lançamentos para outro usuário.", HttpStatus.FORBIDDEN);
+        }
+        try{
+            ImportacaoResultadoDto resultado = importacaoService.importar(request.getInputStream(), formato, Charset.forName(charset), usuarioLogado.getId());
+            HttpStatus status = resultado.getInseridos() > 0 ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST;
+            return new ResponseEntity(resultado, status);
+        } catch (RegraNegocioExecption e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return ResponseEntity.badRequest().body("Charset inválido: " + charset);
+        }
+    }
+
+    private TipoLancamentoEnum tipoOuNulo(String tipo){
+        try{
+            return tipo == null ? null : TipoLancamentoEnum.valueOf(tipo);
+        } catch (IllegalArgumentException e){
+            return null;
+        }
+    }
+
+    // Sem ler o lançamento antes: o usuário vem do token e o service tenta primeiro um UPDATE condicional
+    // Envie a versao recebida no GET para não sobrescrever alterações feitas por outra pessoa
+    @PutMapping("/{id}")
+    public ResponseEntity atualizar (@PathVariable(value = "id") Long id, @RequestBody LancamentoDto dto,
+                                     @AuthenticationPrincipal UsuarioAutenticadoDto usuarioLogado){
+        if(dto.getUsuario() != null && !dto.getUsuario().equals(usuarioLogado.getId())){
+            return new ResponseEntity("Não é possível alterar lançamentos de outro usuário.", HttpStatus.FORBIDDEN);
+        }
+        try{
+            LancamentoModel lancamento = converter(dto, UsuarioModel.builder().id(usuarioLogado.getId()).build());
+            lancamento.setId(id);
+            lancamento.setVersao(dto.getVersao());
+            lancamento.setTipo(dto.getTipo() == null ? null : tipoOuErro(dto.getTipo()));
+            lancamento.setStatus(dto.getStatus() == null ? null : statusOuErro(dto.getStatus()));
+            lancamento = service.atualizar(usuarioLogado.getId(), lancamento);
+            return new ResponseEntity(converter(lancamento), HttpStatus.OK);
+        } catch (RegraNegocioExecption e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ErroNaoEncontrado e){
+            return new ResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (ErroConcorrencia | OptimisticLockingFailureException e){
+            return new ResponseEntity("O lançamento foi alterado por outra pessoa, carregue-o novamente.", HttpStatus.CONFLICT);
+        }
+    }
+
+    LancamentoDto converter(LancamentoModel lancamento){
+        return new LancamentoDto(lancamento.getId(), lancamento.getDescricao(), lancamento.getMes(), lancamento.getAno(),
+                lancamento.getValor(), lancamento.getUsuario().getId(), lancamento.getTipo(), lancamento.getStatus(),
+                lancamento.getDataCadastro(), lancamento.getVersao());
     }
 
     @PutMapping("/{id}/atualiza-status")
@@ -100,12 +227,61 @@ public class LancamentoController {
     }
 
 
+    // Fechamento do mês: efetiva ou cancela vários lançamentos de uma vez, por ids ou por filtro
+    // Só alcança lançamentos do usuário logado
+    @PutMapping("/atualiza-status")
+    public ResponseEntity atualizarStatusEmLote(@RequestBody AtualizaStatusLoteDto dto,
+                                                @AuthenticationPrincipal UsuarioAutenticadoDto usuarioLogado){
+        if(dto.getUsuario() != null && !dto.getUsuario().equals(usuarioLogado.getId())){
+            return new ResponseEntity("Não é possível alterar lançamentos de outro usuário.", HttpStatus.FORBIDDEN);
+        }
+        try{
+            StatusLancamentoEnum status = statusOuErro(dto.getStatus());
+            SelecaoLancamentosDto selecao = SelecaoLancamentosDto.builder()
+                    .usuario(usuarioLogado.getId())
+                    .ids(dto.getIds())
+                    .ano(dto.getAno())
+                    .mes(dto.getMes())
+                    .tipo(dto.getTipo() == null ? null : tipoOuErro(dto.getTipo()))
+                    .status(dto.getStatusAtual() == null ? null : statusOuErro(dto.getStatusAtual()))
+                    .build();
+            int atualizados = service.atualizarStatus(selecao, status);
+            return ResponseEntity.ok(Collections.singletonMap("atualizados", atualizados));
+        } catch (RegraNegocioExecption e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private StatusLancamentoEnum statusOuErro(String status){
+        try{
+            return StatusLancamentoEnum.valueOf(status);
+        } catch (IllegalArgumentException | NullPointerException e){
+            throw new RegraNegocioExecption("Não foi possível atualizar o status de lançamento, envie um status válido.");
+        }
+    }
+
+    private TipoLancamentoEnum tipoOuErro(String tipo){
+        TipoLancamentoEnum valor = tipoOuNulo(tipo);
+        if(valor == null){
+            throw new RegraNegocioExecption("Informe um tipo de lançamento válido.");
+        }
+        return valor;
+    }
+
+
+    // Um DELETE direto, só do lançamento do usuário logado; versao é opcional
     @DeleteMapping("/{id}")
-    public ResponseEntity deletar(@PathVariable(value = "id") Long id){
-        return service.obterPorId(id).map( entidade -> {
-            service.deletar(entidade);
+    public ResponseEntity deletar(@PathVariable(value = "id") Long id,
+                                  @RequestParam(value = "versao", required = false) Long versao,
+                                  @AuthenticationPrincipal UsuarioAutenticadoDto usuarioLogado){
+        try{
+            service.deletar(usuarioLogado.getId(), id, versao);
             return new ResponseEntity("Deletado com sucesso",HttpStatus.NO_CONTENT);
-        } ).orElseGet( () -> new ResponseEntity("Lançamento não encontrado na base de Dados", HttpStatus.BAD_REQUEST));
+        } catch (ErroNaoEncontrado e){
+            return new ResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND);
+        } catch (ErroConcorrencia | OptimisticLockingFailureException e){
+            return new ResponseEntity("O lançamento foi alterado por outra pessoa, carregue-o novamente.", HttpStatus.CONFLICT);
+        }
     }
 
     @GetMapping
@@ -113,45 +289,110 @@ public class LancamentoController {
             @RequestParam(value = "descricao", required = false) String descricao,
             @RequestParam(value = "mes", required = false) Integer mes,
             @RequestParam(value = "ano", required = false) Integer ano,
-            @RequestParam(value = "tipo", required = false) TipoLancamentoEnum tipo,
-            @RequestParam("usuario") Long idUsuario
+            @RequestParam(value = "tipo", required = false) Set<TipoLancamentoEnum> tipos,
+            @RequestParam(value = "status", required = false) Set<StatusLancamentoEnum> status,
+            @RequestParam(value = "de", required = false) Integer de,
+            @RequestParam(value = "ate", required = false) Integer ate,
+            @RequestParam(value = "valorMinimo", required = false) BigDecimal valorMinimo,
+            @RequestParam(value = "valorMaximo", required = false) BigDecimal valorMaximo,
+            @RequestParam(value = "cadastroDe", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate cadastroDe,
+            @RequestParam(value = "cadastroAte", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate cadastroAte,
+            @RequestParam("usuario") Long idUsuario,
+            @RequestParam(value = "limite", required = false) Integer limite,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "ordem", defaultValue = "asc") String ordem,
+            @RequestParam(value = "total", defaultValue = "false") boolean contarTotal,
+            @RequestParam(value = "ignorarAcentos", defaultValue = "false") boolean ignorarAcentos
         ){
-        LancamentoModel lancamentoFiltro = new LancamentoModel();
-        lancamentoFiltro.setDescricao(descricao);
-        lancamentoFiltro.setMes(mes);
-        lancamentoFiltro.setAno(ano);
-        lancamentoFiltro.setTipo(tipo);
+        LancamentoFiltroDto filtro = LancamentoFiltroDto.builder()
+                .usuario(idUsuario).descricao(descricao).mes(mes).ano(ano).tipos(tipos).status(status)
+                .de(de).ate(ate).valorMinimo(valorMinimo).valorMaximo(valorMaximo)
+                .cadastroDe(cadastroDe).cadastroAte(cadastroAte)
+                .ignorarAcentos(ignorarAcentos)
+                .build();
+
+        // Com limite ou cursor a busca é paginada por keyset, sem eles continua devolvendo a lista completa
+        if(limite != null || cursor != null){
+            try{
+                PaginaDto<LancamentoDto> pagina = service.buscarPagina(filtro, cursor,
+                        limite != null ? limite : 100, "desc".equalsIgnoreCase(ordem), contarTotal);
+                return ResponseEntity.ok(pagina);
+            } catch (RegraNegocioExecption e){
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
 
         Optional<UsuarioModel> usuario = usuarioService.obterPorId(idUsuario);
         if(!usuario.isPresent()) {
             return ResponseEntity.badRequest().body("Não foi possível realizar a consulta. Usuário não encontrado para o Id informado");
-        } else {
-            lancamentoFiltro.setUsuario(usuario.get());
         }
 
-        List<LancamentoModel> lancamentos = service.buscar(lancamentoFiltro);
-        return new ResponseEntity(lancamentos, HttpStatus.OK);
+        try{
+            List<LancamentoDto> lancamentos = service.listar(filtro);
+            return new ResponseEntity(lancamentos, HttpStatus.OK);
+        } catch (RegraNegocioExecption e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
-    @GetMapping("/{id}")
-    public ResponseEntity obterLancamento(@PathVariable(value = "id") Long id){
-        return service.obterPorId(id).map(lancamento -> new ResponseEntity(converter(lancamento), HttpStatus.OK))
-                .orElseGet( () -> new ResponseEntity(HttpStatus.NOT_FOUND));
+    // As linhas vão para a resposta conforme são lidas do banco, a memória não depende da quantidade exportada
+    // Usuário e formato são conferidos antes, porque depois que a resposta começou não dá mais para devolver 400
+    // Só o histórico do usuário logado: "usuario", se vier, tem que ser ele
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(value = "usuario", required = false) Long usuario,
+            @RequestParam(value = "format", defaultValue = "csv") String formato,
+            @AuthenticationPrincipal UsuarioAutenticadoDto usuarioLogado){
+        if(usuario != null && !usuario.equals(usuarioLogado.getId())){
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(mensagem("Não é possível exportar lançamentos de outro usuário."));
+        }
+        Long idUsuario = usuarioLogado.getId();
+        if(!exportacaoService.isFormatoSuportado(formato)){
+            return ResponseEntity.badRequest().body(mensagem("Formato de exportação não suportado, use csv ou ndjson."));
+        }
+        if(!usuarioService.obterPorId(idUsuario).isPresent()){
+            return ResponseEntity.badRequest().body(mensagem("Usuário não encontrado para o Id informado"));
+        }
+
+        boolean csv = "csv".equalsIgnoreCase(formato);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"lancamentos." + formato.toLowerCase() + "\"")
+                .body(saida -> exportacaoService.exportar(idUsuario, formato, saida));
     }
 
-    private LancamentoDto converter(LancamentoModel lancamento){
-        return LancamentoDto.builder()
-                .id(lancamento.getId())
-                .descricao(lancamento.getDescricao())
-                .valor(lancamento.getValor())
-                .mes(lancamento.getMes())
-                .ano(lancamento.getAno())
-                .status(lancamento.getStatus().name())
-                .tipo(lancamento.getTipo().name())
-                .usuario(lancamento.getUsuario().getId())
-                .build();
+    private StreamingResponseBody mensagem(String texto){
+        return saida -> saida.write(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Só o índice do usuário logado: "usuario", se vier, tem que ser ele
+    @PostMapping("/reindexar-descricoes")
+    public ResponseEntity reindexarDescricoes(@RequestParam(value = "usuario", required = false) Long idUsuario,
+                                              @AuthenticationPrincipal UsuarioAutenticadoDto usuarioLogado){
+        if(idUsuario != null && !idUsuario.equals(usuarioLogado.getId())){
+            return new ResponseEntity("Não é possível reindexar lançamentos de outro usuário.", HttpStatus.FORBIDDEN);
+        }
+        service.reindexarDescricoes(usuarioLogado.getId());
+        return new ResponseEntity(HttpStatus.NO_CONTENT);
     }
 
+    // Sincronização incremental do usuário logado: o cliente guarda a "sequencia" da resposta e manda no próximo "desde"
+    // Com "ressincronizar" ele baixa a lista completa e continua a partir da sequência devolvida
+    @GetMapping("/alteracoes")
+    public ResponseEntity obterAlteracoes(@RequestParam(value = "desde", defaultValue = "0") Long desde,
+                                          @RequestParam(value = "limite", defaultValue = "500") int limite,
+                                          @AuthenticationPrincipal UsuarioAutenticadoDto usuarioLogado){
+        try{
+            return ResponseEntity.ok(sincroniaService.obterAlteracoes(usuarioLogado.getId(), desde, limite));
+        } catch (RegraNegocioExecption e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 
+    @GetMapping("/{id}")
+    public ResponseEntity obterLancamento(@PathVariable(value = "id") Long id){
+        return service.obterDtoPorId(id).map(lancamento -> new ResponseEntity(lancamento, HttpStatus.OK))
+                .orElseGet( () -> new ResponseEntity(HttpStatus.NOT_FOUND));
+    }
 
 }
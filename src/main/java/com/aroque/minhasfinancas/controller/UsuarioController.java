@@ -1,25 +1,39 @@
 package com.aroque.minhasfinancas.controller;
 
+import com.aroque.minhasfinancas.dto.ResumoMensalDto;
 import com.aroque.minhasfinancas.dto.TokenDto;
+import com.aroque.minhasfinancas.dto.TokenVerificadoDto;
+import com.aroque.minhasfinancas.dto.UsuarioAutenticadoDto;
 import com.aroque.minhasfinancas.dto.UsuarioDto;
 import com.aroque.minhasfinancas.exception.ErroAutentificacao;
+import com.aroque.minhasfinancas.exception.ErroSobrecarga;
 import com.aroque.minhasfinancas.exception.RegraNegocioExecption;
 import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.service.EventosUsuarioService;
 import com.aroque.minhasfinancas.service.JwtService;
 import com.aroque.minhasfinancas.service.LancamentoService;
+import com.aroque.minhasfinancas.service.RevogacaoTokenService;
 import com.aroque.minhasfinancas.service.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/usuarios")
 public class UsuarioController {
 
+    // Segundos que o cliente deve esperar quando o BCrypt está sobrecarregado
+    static final String TENTAR_NOVAMENTE_EM = "1";
+
     @Autowired
     UsuarioService service;
 
@@ -29,10 +43,19 @@ public class UsuarioController {
     @Autowired
     JwtService jwtService;
 
-    public UsuarioController(UsuarioService service, LancamentoService lancamentoService, JwtService jwtService) {
+    @Autowired
+    RevogacaoTokenService revogacaoTokenService;
+
+    @Autowired
+    EventosUsuarioService eventosService;
+
+    public UsuarioController(UsuarioService service, LancamentoService lancamentoService, JwtService jwtService,
+                             RevogacaoTokenService revogacaoTokenService, EventosUsuarioService eventosService) {
         this.service = service;
         this.lancamentoService = lancamentoService;
         this.jwtService = jwtService;
+        this.revogacaoTokenService = revogacaoTokenService;
+        this.eventosService = eventosService;
     }
 
     @PostMapping
@@ -47,6 +70,8 @@ public class UsuarioController {
             return new ResponseEntity(usuarioSalvo, HttpStatus.CREATED);
         } catch(RegraNegocioExecption e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ErroSobrecarga e) {
+            return sobrecarga(e);
         }
     }
 
@@ -57,12 +82,59 @@ public class UsuarioController {
 
             //Agora irá retornar o token do usuario autenticado e não mais o email e o id
             String token = jwtService.gerarToken(usuarioAutenticado);
-            TokenDto tokenDto = new TokenDto( usuarioAutenticado.getNome(),token);
+            String refreshToken = jwtService.gerarRefreshToken(usuarioAutenticado);
+            TokenDto tokenDto = new TokenDto( usuarioAutenticado.getNome(),token, refreshToken);
 
             return new ResponseEntity(tokenDto, HttpStatus.OK);
         } catch (ErroAutentificacao e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ErroSobrecarga e) {
+            return sobrecarga(e);
+        }
+    }
+
+    private ResponseEntity sobrecarga(ErroSobrecarga e){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, TENTAR_NOVAMENTE_EM)
+                .body(e.getMessage());
+    }
+
+
+    // Sai de todas as sessões: nenhum token emitido até agora para o usuário logado continua valendo
+    @PostMapping("/token/revogar")
+    public ResponseEntity revogarTokens(@AuthenticationPrincipal UsuarioAutenticadoDto usuario){
+        revogacaoTokenService.revogarTokensDoUsuario(usuario.getId());
+        return new ResponseEntity(HttpStatus.NO_CONTENT);
+    }
+
+
+    // Troca o refresh token por um novo par sem passar pelo BCrypt
+    // O refresh token usado é revogado; se ele aparecer de novo alguém o copiou e todas as sessões do usuário caem
+    @PostMapping("/token/refresh")
+    public ResponseEntity renovarToken(@RequestBody TokenDto dto){
+        Optional<TokenVerificadoDto> refresh = jwtService.verificarRefresh(dto.getRefreshToken());
+        if(!refresh.isPresent()){
+            return new ResponseEntity("Refresh token inválido ou expirado.", HttpStatus.UNAUTHORIZED);
+        }
+
+        TokenVerificadoDto refreshToken = refresh.get();
+        // Antes do consumir, e só o corte por usuário: depois de consumido o id do token já conta como revogado
+        if(revogacaoTokenService.isRevogadoPeloUsuario(refreshToken)){
+            return new ResponseEntity("Refresh token revogado.", HttpStatus.UNAUTHORIZED);
+        }
+        if(!revogacaoTokenService.consumir(refreshToken)){
+            revogacaoTokenService.revogarTokensDoUsuario(refreshToken.getIdUsuario());
+            return new ResponseEntity("Refresh token já utilizado.", HttpStatus.UNAUTHORIZED);
         }
+
+        // Tudo que o token de acesso precisa já vem no refresh token, sem consultar o banco
+        UsuarioModel usuario = UsuarioModel.builder()
+                .id(refreshToken.getIdUsuario())
+                .email(refreshToken.getEmail())
+                .nome(refreshToken.getNome())
+                .build();
+        TokenDto tokenDto = new TokenDto(usuario.getNome(), jwtService.gerarToken(usuario), jwtService.gerarRefreshToken(usuario));
+        return ResponseEntity.ok(tokenDto);
     }
 
 
@@ -77,4 +149,41 @@ public class UsuarioController {
         return ResponseEntity.ok(saldo);
     }
 
+    @PostMapping("/{id}/saldo/recalcular")
+    public ResponseEntity recalcularSaldo(@PathVariable(value = "id") Long id){
+        Optional<UsuarioModel> usuario = service.obterPorId(id);
+        if(!usuario.isPresent()){
+            return new ResponseEntity(HttpStatus.NOT_FOUND);
+        }
+
+        BigDecimal saldo = lancamentoService.recalcularSaldo(id);
+        return ResponseEntity.ok(saldo);
+    }
+
+    // Substitui o polling do saldo e da lista: eventos "saldo" e "lancamento" a cada alteração confirmada
+    // Só o usuário logado acompanha os próprios eventos
+    @GetMapping(value = "/{id}/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> eventos(@PathVariable(value = "id") Long id,
+                                              @AuthenticationPrincipal UsuarioAutenticadoDto usuarioLogado){
+        if(usuarioLogado == null || !id.equals(usuarioLogado.getId())){
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        Optional<UsuarioModel> usuario = service.obterPorId(id);
+        if(!usuario.isPresent()){
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok(eventosService.inscrever(id));
+    }
+
+    @GetMapping("/{id}/resumo")
+    public ResponseEntity obterResumo(@PathVariable(value = "id") Long id, @RequestParam("ano") Integer ano){
+        Optional<UsuarioModel> usuario = service.obterPorId(id);
+        if(!usuario.isPresent()){
+            return new ResponseEntity(HttpStatus.NOT_FOUND);
+        }
+
+        List<ResumoMensalDto> resumo = lancamentoService.obterResumoAnual(id, ano);
+        return ResponseEntity.ok(resumo);
+    }
+
 }
@@ -0,0 +1,29 @@
+package com.aroque.minhasfinancas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Resposta do GET /api/lancamentos/alteracoes
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AlteracoesLancamentoDto {
+
+    // Valor para o próximo "desde"
+    private Long sequencia;
+
+    // Ainda há alterações depois desta página, o cliente chama de novo com a sequência acima
+    private boolean mais;
+
+    // As remoções desde a sequência informada já foram compactadas: o cliente precisa baixar a lista
+    // completa e continuar a partir da sequência acima
+    private boolean ressincronizar;
+
+    private List<LancamentoSincroniaDto> alterados;
+    private List<Long> removidos;
+}
@@ -0,0 +1,23 @@
+package com.aroque.minhasfinancas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Novo status para uma lista de ids ou para todos os lançamentos que atendem ao filtro
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AtualizaStatusLoteDto {
+
+    private String status;
+
+    private List<Long> ids;
+    private Long usuario;
+    private Integer ano;
+    private Integer mes;
+    private String tipo;
+    private String statusAtual;
+}
@@ -0,0 +1,22 @@
+package com.aroque.minhasfinancas.dto;
+
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+// Grupo em que o rollup não bate com a soma dos lançamentos
+@Data
+@AllArgsConstructor
+public class DivergenciaRollupDto {
+
+    private Long idUsuario;
+    private Integer ano;
+    private Integer mes;
+    private TipoLancamentoEnum tipo;
+    private StatusLancamentoEnum status;
+    private BigDecimal totalRollup;
+    private BigDecimal totalLancamentos;
+}
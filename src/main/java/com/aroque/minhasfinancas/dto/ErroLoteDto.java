@@ -0,0 +1,15 @@
+package com.aroque.minhasfinancas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ErroLoteDto {
+
+    // Posição do lançamento na lista enviada
+    private int indice;
+    private String mensagem;
+}
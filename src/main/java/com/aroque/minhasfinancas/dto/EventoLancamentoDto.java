@@ -0,0 +1,26 @@
+package com.aroque.minhasfinancas.dto;
+
+import com.aroque.minhasfinancas.enums.TipoEventoLancamentoEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Publicado pelo LancamentoService e enviado por SSE aos clientes do usuário depois do commit
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventoLancamentoDto {
+
+    private TipoEventoLancamentoEnum tipo;
+    private Long usuario;
+
+    // Ids alterados; vazio quando a alteração foi por filtro (mês/ano) e o cliente precisa recarregar a lista
+    private List<Long> ids;
+
+    // Só quando foi um lançamento, para o cliente atualizar a tela sem nova consulta
+    private LancamentoDto lancamento;
+}
@@ -0,0 +1,23 @@
+package com.aroque.minhasfinancas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportacaoResultadoDto {
+
+    private long lidos;
+    private long inseridos;
+    private long rejeitados;
+
+    // Só os primeiros erros, o índice é a linha do CSV ou a posição da transação no OFX
+    private List<ErroLoteDto> erros;
+
+    private long duracaoMs;
+    private double lancamentosPorSegundo;
+}
@@ -1,5 +1,7 @@
 package com.aroque.minhasfinancas.dto;
 
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -24,4 +26,14 @@ public class LancamentoDto {
     private String status;
 
     private LocalDate dataCadatro = LocalDate.now();
+
+    // Versão lida, devolvida no PUT/DELETE para não sobrescrever alterações de outra pessoa
+    private Long versao;
+
+    // Usado nas projeções das consultas (SELECT new LancamentoDto(...)), que trazem os enums e só o id do usuário
+    public LancamentoDto(Long id, String descricao, Integer mes, Integer ano, BigDecimal valor, Long usuario,
+                         TipoLancamentoEnum tipo, StatusLancamentoEnum status, LocalDate dataCadatro, Long versao) {
+        this(id, descricao, mes, ano, valor, usuario,
+                tipo == null ? null : tipo.name(), status == null ? null : status.name(), dataCadatro, versao);
+    }
 }
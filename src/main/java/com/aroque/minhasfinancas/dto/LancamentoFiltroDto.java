@@ -0,0 +1,42 @@
+package com.aroque.minhasfinancas.dto;
+
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LancamentoFiltroDto {
+
+    private Long usuario;
+    private String descricao;
+    private Integer mes;
+    private Integer ano;
+    private TipoLancamentoEnum tipo;
+
+    // Intervalo de meses no formato yyyymm, inclusive nas duas pontas
+    private Integer de;
+    private Integer ate;
+
+    // Faixas de valor e de data de cadastro, também inclusivas; qualquer ponta pode ficar em branco
+    private BigDecimal valorMinimo;
+    private BigDecimal valorMaximo;
+    private LocalDate cadastroDe;
+    private LocalDate cadastroAte;
+
+    // Qualquer um dos tipos ou status informados (IN), somados ao tipo único acima quando os dois vierem
+    private Set<TipoLancamentoEnum> tipos;
+    private Set<StatusLancamentoEnum> status;
+
+    // Quando verdadeiro "salario" também encontra "Salário"
+    private boolean ignorarAcentos;
+}
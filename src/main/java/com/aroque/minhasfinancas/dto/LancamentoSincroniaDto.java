@@ -0,0 +1,27 @@
+package com.aroque.minhasfinancas.dto;
+
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// LancamentoDto com a sequência da última alteração, usado na sincronização incremental
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class LancamentoSincroniaDto extends LancamentoDto {
+
+    private Long sequencia;
+
+    // Projeção da consulta (SELECT new LancamentoSincroniaDto(...))
+    public LancamentoSincroniaDto(Long id, String descricao, Integer mes, Integer ano, BigDecimal valor, Long usuario,
+                                  TipoLancamentoEnum tipo, StatusLancamentoEnum status, LocalDate dataCadatro, Long versao,
+                                  Long sequencia) {
+        super(id, descricao, mes, ano, valor, usuario, tipo, status, dataCadatro, versao);
+        this.sequencia = sequencia;
+    }
+}
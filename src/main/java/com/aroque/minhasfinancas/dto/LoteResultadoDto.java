@@ -0,0 +1,17 @@
+package com.aroque.minhasfinancas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoteResultadoDto {
+
+    private int recebidos;
+    private int inseridos;
+    private List<ErroLoteDto> erros;
+}
@@ -0,0 +1,21 @@
+package com.aroque.minhasfinancas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaginaDto<T> {
+
+    private List<T> itens;
+
+    // Nulo quando não existe próxima página
+    private String proximoCursor;
+
+    // Só é preenchido quando o cliente pede a contagem total
+    private Long total;
+}
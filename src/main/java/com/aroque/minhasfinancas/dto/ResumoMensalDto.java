@@ -0,0 +1,22 @@
+package com.aroque.minhasfinancas.dto;
+
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResumoMensalDto {
+
+    private Integer mes;
+    private TipoLancamentoEnum tipo;
+    private StatusLancamentoEnum status;
+    private BigDecimal total;
+}
@@ -0,0 +1,26 @@
+package com.aroque.minhasfinancas.dto;
+
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Quais lançamentos uma operação em massa alcança, sempre dentro de um único usuário
+// Campos nulos não filtram
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SelecaoLancamentosDto {
+
+    private Long usuario;
+    private List<Long> ids;
+    private Integer ano;
+    private Integer mes;
+    private TipoLancamentoEnum tipo;
+    private StatusLancamentoEnum status;
+}
@@ -2,11 +2,15 @@ package com.aroque.minhasfinancas.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class TokenDto {
 
     private String nome;
     private String token;
+    // Troca por um novo par em /token/refresh sem precisar da senha
+    private String refreshToken;
 }
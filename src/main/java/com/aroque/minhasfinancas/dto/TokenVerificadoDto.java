@@ -0,0 +1,21 @@
+package com.aroque.minhasfinancas.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+// Resultado de uma verificação de assinatura e expiração do token
+@Data
+@AllArgsConstructor
+public class TokenVerificadoDto {
+
+    private String email;
+    private Long idUsuario;
+    private String nome;
+    private Instant expiracao;
+    private Instant emitidoEm;
+    // jti, nulo nos tokens emitidos antes do refresh token existir
+    private String id;
+    private boolean refresh;
+}
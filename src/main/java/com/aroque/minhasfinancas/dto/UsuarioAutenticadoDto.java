@@ -0,0 +1,21 @@
+package com.aroque.minhasfinancas.dto;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+// Usuário colocado no contexto do spring security, com o id junto do email
+public class UsuarioAutenticadoDto extends User {
+
+    private final Long id;
+
+    public UsuarioAutenticadoDto(Long id, String email, String senha, Collection<? extends GrantedAuthority> authorities) {
+        super(email, senha, authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
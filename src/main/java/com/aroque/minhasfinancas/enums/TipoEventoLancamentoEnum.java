@@ -0,0 +1,8 @@
+package com.aroque.minhasfinancas.enums;
+
+public enum TipoEventoLancamentoEnum {
+
+    CRIADO,
+    ATUALIZADO,
+    DELETADO
+}
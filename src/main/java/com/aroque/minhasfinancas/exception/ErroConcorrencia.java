@@ -0,0 +1,8 @@
+package com.aroque.minhasfinancas.exception;
+
+public class ErroConcorrencia extends RuntimeException{
+
+    public ErroConcorrencia(String mensagem){
+        super(mensagem);
+    }
+}
@@ -0,0 +1,8 @@
+package com.aroque.minhasfinancas.exception;
+
+public class ErroNaoEncontrado extends RuntimeException{
+
+    public ErroNaoEncontrado(String mensagem){
+        super(mensagem);
+    }
+}
@@ -0,0 +1,8 @@
+package com.aroque.minhasfinancas.exception;
+
+public class ErroSobrecarga extends RuntimeException{
+
+    public ErroSobrecarga(String mensagem){
+        super(mensagem);
+    }
+}
@@ -0,0 +1,37 @@
+package com.aroque.minhasfinancas.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+// Marca um período do usuário cujo rollup ficou desatualizado, gravada na mesma transação da alteração
+// O compactador recalcula o período e apaga a marca; sem ano e mês vale para o usuário inteiro
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "lancamento_alteracao", schema = "financas", indexes = {
+        @Index(name = "idx_lancamento_alteracao_usuario", columnList = "id_usuario")
+})
+public class LancamentoAlteracaoModel {
+
+    // IDENTITY para as marcas também poderem ser gravadas com INSERT ... SELECT direto no banco
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "id_usuario", nullable = false)
+    private Long idUsuario;
+
+    @Column(name = "ano")
+    private Integer ano;
+
+    @Column(name = "mes")
+    private Integer mes;
+
+}
@@ -2,10 +2,13 @@ package com.aroque.minhasfinancas.model;
 
 import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
 import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.util.Trigramas;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
 
 import javax.persistence.*;
@@ -15,27 +18,54 @@ import java.time.LocalDate;
 @Entity
 @Data
 @Builder
-@Table(name = "lancamento", schema = "financas")
+// O esquema vem das migrations do Flyway (db/migration), os índices aqui só documentam o que existe lá
+@Table(name = "lancamento", schema = "financas", indexes = {
+        // Cobre o filtro por usuário e a ordenação da paginação por keyset
+        @Index(name = "idx_lancamento_usuario_ano_mes_id", columnList = "id_usuario, ano, mes, id"),
+        // Filtros por intervalo de meses e os totais por tipo e status, sem ler a tabela
+        @Index(name = "idx_lancamento_usuario_periodo", columnList = "id_usuario, periodo, tipo, status, valor"),
+        @Index(name = "idx_lancamento_usuario_status_tipo", columnList = "id_usuario, status, tipo, valor"),
+        // Faixas de data de cadastro e de valor dentro de um tipo
+        @Index(name = "idx_lancamento_usuario_cadastro", columnList = "id_usuario, data_cadastro, tipo, status, valor"),
+        @Index(name = "idx_lancamento_usuario_tipo_valor", columnList = "id_usuario, tipo, valor"),
+        // Sincronização incremental por usuário
+        @Index(name = "idx_lancamento_usuario_sequencia", columnList = "id_usuario, sequencia, id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class LancamentoModel {
 
+    // Sequence com otimizador pooled: o Hibernate reserva 50 ids por ida ao banco
+    // e consegue agrupar os INSERTs em lote, o que não é possível com IDENTITY
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lancamento_seq")
+    @SequenceGenerator(name = "lancamento_seq", sequenceName = "lancamento_seq", schema = "financas", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
     @Column(name = "descricao")
     private String descricao;
 
+    // Descrição minúscula e sem acento, usada para conferir os candidatos do índice de trigramas
+    @Column(name = "descricao_normalizada")
+    @JsonIgnore
+    private String descricaoNormalizada;
+
     @Column(name = "mes")
     private Integer mes;
 
     @Column(name = "ano")
     private Integer ano;
 
+    // ano * 100 + mes (yyyymm), preenchido junto com a descrição normalizada
+    // Um intervalo de meses vira uma faixa contínua no índice, mesmo passando de um ano para outro
+    @Column(name = "periodo")
+    @JsonIgnore
+    private Integer periodo;
+
 
-    @ManyToOne
+    // LAZY: as consultas de leitura usam a projeção em LancamentoDto e só precisam de id_usuario
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_usuario")
     private UsuarioModel usuario;
 
@@ -54,6 +84,31 @@ public class LancamentoModel {
     @Enumerated(value = EnumType.STRING)
     private StatusLancamentoEnum status;
 
-
+    // Sequência da última alteração, do contador do usuário (SincroniaUsuarioModel)
+    @Column(name = "sequencia", nullable = false)
+    @JsonIgnore
+    private Long sequencia;
+
+    // Controle de concorrência otimista: cada alteração incrementa a versão, e quem
+    // altera informando uma versão antiga não sobrescreve o que outra pessoa gravou
+    @Version
+    @Column(name = "versao", nullable = false)
+    @ColumnDefault("0")
+    private Long versao;
+
+    @PrePersist
+    @PreUpdate
+    void preencherCamposDerivados() {
+        this.descricaoNormalizada = Trigramas.normalizar(descricao);
+        this.periodo = periodo(ano, mes);
+        // Gravado fora do LancamentoService (testes, cargas direto no repository): anterior a qualquer sincronia
+        if(sequencia == null){
+            this.sequencia = 0L;
+        }
+    }
+
+    public static Integer periodo(Integer ano, Integer mes) {
+        return ano == null || mes == null ? null : ano * 100 + mes;
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.aroque.minhasfinancas.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// Lápide de um lançamento deletado (ou transferido para outro usuário), para a sincronização incremental
+// Uma linha por lançamento; as antigas são apagadas pela compactação, que avança o horizonte do usuário
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "lancamento_remocao", schema = "financas", indexes = {
+        @Index(name = "idx_lancamento_remocao_usuario_sequencia", columnList = "id_usuario, sequencia"),
+        @Index(name = "idx_lancamento_remocao_removido_em", columnList = "removido_em")
+})
+public class LancamentoRemocaoModel {
+
+    @Id
+    @Column(name = "id_lancamento")
+    private Long idLancamento;
+
+    @Column(name = "id_usuario", nullable = false)
+    private Long idUsuario;
+
+    @Column(name = "sequencia", nullable = false)
+    private Long sequencia;
+
+    @Column(name = "removido_em", nullable = false)
+    private LocalDateTime removidoEm;
+}
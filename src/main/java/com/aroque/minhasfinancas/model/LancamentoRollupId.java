@@ -0,0 +1,21 @@
+package com.aroque.minhasfinancas.model;
+
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LancamentoRollupId implements Serializable {
+
+    private Long idUsuario;
+    private Integer ano;
+    private Integer mes;
+    private TipoLancamentoEnum tipo;
+    private StatusLancamentoEnum status;
+}
@@ -0,0 +1,52 @@
+package com.aroque.minhasfinancas.model;
+
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+
+// Soma e quantidade dos lançamentos por usuário, mês, tipo e status, mantida pelo compactador
+// Os relatórios leem daqui e só somam os lançamentos dos períodos com alteração ainda não compactada
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(LancamentoRollupId.class)
+@Table(name = "lancamento_rollup", schema = "financas")
+public class LancamentoRollupModel {
+
+    @Id
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Id
+    @Column(name = "ano")
+    private Integer ano;
+
+    @Id
+    @Column(name = "mes")
+    private Integer mes;
+
+    @Id
+    @Column(name = "tipo", length = 20)
+    @Enumerated(value = EnumType.STRING)
+    private TipoLancamentoEnum tipo;
+
+    @Id
+    @Column(name = "status", length = 20)
+    @Enumerated(value = EnumType.STRING)
+    private StatusLancamentoEnum status;
+
+    @Column(name = "total")
+    private BigDecimal total;
+
+    @Column(name = "quantidade")
+    private Long quantidade;
+
+}
@@ -0,0 +1,17 @@
+package com.aroque.minhasfinancas.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LancamentoTrigramaId implements Serializable {
+
+    private Long idUsuario;
+    private String trigrama;
+    private Long idLancamento;
+}
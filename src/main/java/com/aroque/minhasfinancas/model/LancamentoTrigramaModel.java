@@ -0,0 +1,35 @@
+package com.aroque.minhasfinancas.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+// Lista invertida da descrição normalizada: um registro por trigrama de cada lançamento
+// A chave começa por (id_usuario, trigrama), então buscar os lançamentos de um trigrama é uma leitura de índice
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(LancamentoTrigramaId.class)
+@Table(name = "lancamento_trigrama", schema = "financas", indexes = {
+        @Index(name = "idx_lancamento_trigrama_lancamento", columnList = "id_lancamento")
+})
+public class LancamentoTrigramaModel {
+
+    @Id
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Id
+    @Column(name = "trigrama", length = 3)
+    private String trigrama;
+
+    @Id
+    @Column(name = "id_lancamento")
+    private Long idLancamento;
+
+}
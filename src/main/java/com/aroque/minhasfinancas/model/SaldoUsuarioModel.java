@@ -0,0 +1,28 @@
+package com.aroque.minhasfinancas.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+
+// Saldo materializado do usuário, mantido pelo LancamentoService a cada alteração
+// de um lançamento EFETIVADO, para não precisar somar todos os lançamentos a cada consulta
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "saldo_usuario", schema = "financas")
+public class SaldoUsuarioModel {
+
+    @Id
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    @Column(name = "valor")
+    private BigDecimal valor;
+
+}
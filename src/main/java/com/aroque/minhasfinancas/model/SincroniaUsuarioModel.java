@@ -0,0 +1,32 @@
+package com.aroque.minhasfinancas.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+// Contador de alterações do usuário para a sincronização incremental
+// Cada gravação avança a sequência com UPDATE, e a trava na linha até o commit garante
+// que as sequências do usuário ficam visíveis na ordem em que foram geradas
+@Entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "sincronia_usuario", schema = "financas")
+public class SincroniaUsuarioModel {
+
+    @Id
+    @Column(name = "id_usuario")
+    private Long idUsuario;
+
+    // Última sequência entregue a um lançamento ou remoção do usuário
+    @Column(name = "sequencia", nullable = false)
+    private Long sequencia;
+
+    // Maior sequência de remoção já compactada: cliente sincronizado antes dela precisa baixar tudo de novo
+    @Column(name = "horizonte", nullable = false)
+    private Long horizonte;
+}
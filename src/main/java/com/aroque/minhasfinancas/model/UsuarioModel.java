@@ -1,6 +1,7 @@
 package com.aroque.minhasfinancas.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -12,10 +13,12 @@ import java.time.LocalDate;
 
 @Entity
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "usuario", schema = "financas")
+// Campos internos do proxy do Hibernate, quando o usuário vem de um lançamento ainda não carregado
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class UsuarioModel {
 
     @Id
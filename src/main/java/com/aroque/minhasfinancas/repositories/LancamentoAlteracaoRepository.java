@@ -0,0 +1,44 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.model.LancamentoAlteracaoModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LancamentoAlteracaoRepository extends JpaRepository<LancamentoAlteracaoModel, Long> {
+
+    // Próximas marcas a compactar, da mais antiga para a mais nova
+    List<LancamentoAlteracaoModel> findTop500ByOrderByIdAsc();
+
+    List<LancamentoAlteracaoModel> findByIdUsuario(Long idUsuario);
+
+    // Os comandos sem leitura não conhecem o período atual do lançamento, então a marca sai do próprio banco
+    @Modifying
+    @Query(value = " INSERT INTO financas.lancamento_alteracao (id_usuario, ano, mes) "
+                 + " SELECT id_usuario, ano, mes FROM financas.lancamento WHERE id = :id AND id_usuario = :idUsuario ",
+            nativeQuery = true)
+    int marcarPeriodoDoLancamento(@Param("id") Long id, @Param("idUsuario") Long idUsuario);
+
+    @Modifying
+    @Query(value = " INSERT INTO financas.lancamento_alteracao (id_usuario, ano, mes) "
+                 + " SELECT DISTINCT id_usuario, ano, mes FROM financas.lancamento WHERE id_usuario = :idUsuario AND id IN (:ids) ",
+            nativeQuery = true)
+    int marcarPeriodosDosLancamentos(@Param("idUsuario") Long idUsuario, @Param("ids") Collection<Long> ids);
+
+    // Marca todos os usuários com lançamentos, para o primeiro rollup ser montado do zero
+    @Modifying
+    @Query(value = " INSERT INTO financas.lancamento_alteracao (id_usuario) "
+                 + " SELECT DISTINCT id_usuario FROM financas.lancamento WHERE id_usuario IS NOT NULL ",
+            nativeQuery = true)
+    int marcarTodosOsUsuarios();
+
+    // Apaga só as marcas que foram lidas: uma gravada durante a compactação continua para a próxima rodada
+    @Modifying
+    @Query(value = " DELETE FROM LancamentoAlteracaoModel a WHERE a.id IN :ids ")
+    int apagar(@Param("ids") Collection<Long> ids);
+
+}
@@ -0,0 +1,39 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.dto.LancamentoDto;
+import com.aroque.minhasfinancas.exception.RegraNegocioExecption;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Posição do último lançamento devolvido na ordenação (ano, mes, id)
+// A próxima página começa logo depois dele, sem OFFSET
+@Data
+@AllArgsConstructor
+public class LancamentoCursor {
+
+    private Integer ano;
+    private Integer mes;
+    private Long id;
+
+    public static LancamentoCursor depoisDe(LancamentoDto lancamento) {
+        return new LancamentoCursor(lancamento.getAno(), lancamento.getMes(), lancamento.getId());
+    }
+
+    public String codificar() {
+        String valor = ano + ":" + mes + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static LancamentoCursor decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split(":");
+            return new LancamentoCursor(Integer.valueOf(partes[0]), Integer.valueOf(partes[1]), Long.valueOf(partes[2]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new RegraNegocioExecption("Cursor de paginação inválido.");
+        }
+    }
+}
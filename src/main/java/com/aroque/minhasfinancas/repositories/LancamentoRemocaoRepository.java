@@ -0,0 +1,23 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.model.LancamentoRemocaoModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface LancamentoRemocaoRepository extends JpaRepository<LancamentoRemocaoModel, Long> {
+
+    // Pelo índice (id_usuario, sequencia), só o intervalo pedido
+    @Query(value = " SELECT r FROM LancamentoRemocaoModel r WHERE r.idUsuario = :idUsuario "
+                 + " AND r.sequencia > :desde AND r.sequencia <= :ate ORDER BY r.sequencia ")
+    List<LancamentoRemocaoModel> removidasEntre(@Param("idUsuario") Long idUsuario, @Param("desde") Long desde,
+                                                @Param("ate") Long ate);
+
+    @Modifying
+    @Query(value = " DELETE FROM LancamentoRemocaoModel r WHERE r.removidoEm < :limite ")
+    int apagarAntesDe(@Param("limite") LocalDateTime limite);
+}
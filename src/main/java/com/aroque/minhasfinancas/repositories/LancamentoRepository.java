@@ -1,15 +1,31 @@
 package com.aroque.minhasfinancas.repositories;
 
+import com.aroque.minhasfinancas.dto.LancamentoDto;
+import com.aroque.minhasfinancas.dto.LancamentoSincroniaDto;
+import com.aroque.minhasfinancas.dto.ResumoMensalDto;
 import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
 import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
 import com.aroque.minhasfinancas.model.LancamentoModel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface LancamentoRepository extends JpaRepository<LancamentoModel, Long>,
+        JpaSpecificationExecutor<LancamentoModel>, LancamentoRepositoryCustom {
 
-public interface LancamentoRepository extends JpaRepository<LancamentoModel, Long> {
+    // Linhas trazidas por ida ao banco nas consultas em Stream
+    int FETCH_SIZE = 1000;
 
     @Query(value = " SELECT sum(l.valor) FROM LancamentoModel l JOIN l.usuario u "
                  + " WHERE u.id = :idUsuario and l.tipo = :tipo and l.status = :status GROUP BY u ")
@@ -19,4 +35,64 @@ public interface LancamentoRepository extends JpaRepository<LancamentoModel, Lon
             @Param("status")StatusLancamentoEnum status
             );
 
+    @Query(value = " SELECT DISTINCT u.id FROM LancamentoModel l JOIN l.usuario u ")
+    List<Long> obterIdsUsuariosComLancamentos();
+
+    // Totais do ano agrupados no banco, no máximo 12 meses x 2 tipos x 3 status linhas
+    @Query(value = " SELECT new com.aroque.minhasfinancas.dto.ResumoMensalDto(l.mes, l.tipo, l.status, sum(l.valor)) "
+                 + " FROM LancamentoModel l WHERE l.usuario.id = :idUsuario and l.ano = :ano "
+                 + " GROUP BY l.mes, l.tipo, l.status ")
+    List<ResumoMensalDto> obterResumoPorAnoEUsuario(
+            @Param("idUsuario") Long idUsuario,
+            @Param("ano") Integer ano
+            );
+
+    // Só as colunas do LancamentoDto, l.usuario.id sai da coluna id_usuario sem join
+    @Query(value = " SELECT new com.aroque.minhasfinancas.dto.LancamentoDto(l.id, l.descricao, l.mes, l.ano, l.valor, "
+                 + " l.usuario.id, l.tipo, l.status, l.dataCadastro, l.versao) FROM LancamentoModel l WHERE l.id = :id ")
+    Optional<LancamentoDto> obterDtoPorId(@Param("id") Long id);
+
+    // A mesma projeção sem o flush automático antes da consulta: com o open-session-in-view quem chama
+    // pode ter alterado a entidade carregada, e o flush gravaria a alteração antes de ler o estado anterior
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query(value = " SELECT new com.aroque.minhasfinancas.dto.LancamentoDto(l.id, l.descricao, l.mes, l.ano, l.valor, "
+                 + " l.usuario.id, l.tipo, l.status, l.dataCadastro, l.versao) FROM LancamentoModel l WHERE l.id = :id ")
+    Optional<LancamentoDto> obterGravadoPorId(@Param("id") Long id);
+
+    // Gravados antes do índice de trigramas existir (V2): descrição normalizada nula, percorridos pelo id
+    @Query(value = " SELECT new com.aroque.minhasfinancas.dto.LancamentoDto(l.id, l.descricao, l.mes, l.ano, l.valor, "
+                 + " l.usuario.id, l.tipo, l.status, l.dataCadastro, l.versao) FROM LancamentoModel l "
+                 + " WHERE l.descricaoNormalizada IS NULL AND l.descricao IS NOT NULL AND l.id > :depoisDe ORDER BY l.id ")
+    List<LancamentoDto> obterSemDescricaoNormalizada(@Param("depoisDe") Long depoisDe, Pageable pagina);
+
+    // Sincronização incremental: só o que mudou depois da sequência, pelo índice (id_usuario, sequencia, id)
+    @Query(value = " SELECT new com.aroque.minhasfinancas.dto.LancamentoSincroniaDto(l.id, l.descricao, l.mes, l.ano, l.valor, "
+                 + " l.usuario.id, l.tipo, l.status, l.dataCadastro, l.versao, l.sequencia) FROM LancamentoModel l "
+                 + " WHERE l.usuario.id = :idUsuario AND l.sequencia > :desde ORDER BY l.sequencia, l.id ")
+    List<LancamentoSincroniaDto> alteradosDesde(@Param("idUsuario") Long idUsuario, @Param("desde") Long desde, Pageable pagina);
+
+    // Todos os lançamentos de uma sequência, que pode se repetir quando a alteração foi em lote
+    @Query(value = " SELECT new com.aroque.minhasfinancas.dto.LancamentoSincroniaDto(l.id, l.descricao, l.mes, l.ano, l.valor, "
+                 + " l.usuario.id, l.tipo, l.status, l.dataCadastro, l.versao, l.sequencia) FROM LancamentoModel l "
+                 + " WHERE l.usuario.id = :idUsuario AND l.sequencia = :sequencia ORDER BY l.id ")
+    List<LancamentoSincroniaDto> alteradosNaSequencia(@Param("idUsuario") Long idUsuario, @Param("sequencia") Long sequencia);
+
+    // DELETE em uma ida ao banco para lançamentos que não contam no saldo
+    // Versão nula não confere a versão. Devolve 0 quando alguma condição falhou
+    @Modifying
+    @Query(value = " DELETE FROM LancamentoModel l WHERE l.id = :id AND l.usuario.id = :idUsuario "
+                 + " AND l.status <> com.aroque.minhasfinancas.enums.StatusLancamentoEnum.EFETIVADO "
+                 + " AND (:versao IS NULL OR l.versao = :versao) ")
+    int deletarSemLeitura(@Param("id") Long id, @Param("idUsuario") Long idUsuario, @Param("versao") Long versao);
+
+    // Percorre os lançamentos do usuário com um cursor no banco, trazendo FETCH_SIZE linhas por ida
+    // Precisa de uma transação aberta e o Stream tem que ser fechado por quem chamou
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + FETCH_SIZE),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query(value = " SELECT l FROM LancamentoModel l JOIN FETCH l.usuario u WHERE u.id = :idUsuario "
+                 + " ORDER BY l.ano, l.mes, l.id ")
+    Stream<LancamentoModel> percorrerPorUsuario(@Param("idUsuario") Long idUsuario);
+
 }
@@ -0,0 +1,42 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.dto.LancamentoDto;
+import com.aroque.minhasfinancas.dto.SelecaoLancamentosDto;
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface LancamentoRepositoryCustom {
+
+    // Consultas projetadas em LancamentoDto: só as colunas do DTO e o id_usuario,
+    // sem join e sem carregar o UsuarioModel de cada linha
+    List<LancamentoDto> listar(Specification<LancamentoModel> filtro);
+
+    // Busca paginada por keyset em (ano, mes, id): a página seguinte filtra a partir do cursor
+    // em vez de usar OFFSET, então qualquer página custa o mesmo que a primeira
+    List<LancamentoDto> listarPagina(Specification<LancamentoModel> filtro, LancamentoCursor cursor, int limite, boolean decrescente);
+
+    // Persiste o lote e já manda os INSERTs agrupados (hibernate.jdbc.batch_size), limpando o contexto
+    // de persistência em seguida para ele não crescer junto com a quantidade de lançamentos
+    void inserirLote(List<LancamentoModel> lancamentos);
+
+    // Grava a descrição normalizada dos lançamentos em lote por JDBC, sem passar pela versão (não é uma alteração do usuário)
+    // Manda antes o que estava pendente e limpa o contexto depois: nenhuma entidade carregada fica com o valor antigo
+    void normalizarDescricoes(List<LancamentoDto> lancamentos);
+
+    // Um único UPDATE para todos os lançamentos da seleção que ainda não estão no novo status
+    // Todos recebem a mesma sequência de sincronia. Devolve quantos foram alterados
+    int atualizarStatus(SelecaoLancamentosDto selecao, StatusLancamentoEnum novoStatus, Long sequencia);
+
+    // UPDATE condicional em uma ida ao banco: só altera se o lançamento é do usuário, está na versão
+    // informada, não está EFETIVADO e a descrição normalizada não mudou (saldo e trigramas continuam certos)
+    // Devolve 0 quando alguma condição falhou, e quem chamou decide o que fazer lendo o lançamento
+    int atualizarSemLeitura(LancamentoModel lancamento);
+
+    // Soma com sinal (RECEITA soma, DESPESA subtrai) dos lançamentos da seleção,
+    // só entre os EFETIVADOS ou só entre os que não estão EFETIVADOS
+    BigDecimal somarComSinal(SelecaoLancamentosDto selecao, boolean efetivados);
+}
@@ -0,0 +1,231 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.dto.LancamentoDto;
+import com.aroque.minhasfinancas.dto.SelecaoLancamentosDto;
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.util.Trigramas;
+import org.hibernate.Session;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CompoundSelection;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LancamentoRepositoryImpl implements LancamentoRepositoryCustom {
+
+    private static final String ATUALIZAR_SEM_LEITURA = " UPDATE LancamentoModel l SET l.descricao = :descricao, "
+            + " l.mes = :mes, l.ano = :ano, l.periodo = :periodo, l.valor = :valor, l.tipo = :tipo, l.status = :status, "
+            + " l.dataCadastro = :dataCadastro, l.sequencia = :sequencia, l.versao = l.versao + 1 "
+            + " WHERE l.id = :id AND l.usuario.id = :idUsuario AND l.versao = :versao "
+            + " AND l.status <> :efetivado AND l.descricaoNormalizada = :descricaoNormalizada ";
+
+    private static final String NORMALIZAR_DESCRICAO = "UPDATE financas.lancamento SET descricao_normalizada = ? WHERE id = ?";
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public List<LancamentoDto> listar(Specification<LancamentoModel> filtro) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LancamentoDto> query = cb.createQuery(LancamentoDto.class);
+        Root<LancamentoModel> root = query.from(LancamentoModel.class);
+
+        query.select(projecao(cb, root));
+        Predicate predicadoFiltro = filtro.toPredicate(root, query, cb);
+        if(predicadoFiltro != null){
+            query.where(predicadoFiltro);
+        }
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<LancamentoDto> listarPagina(Specification<LancamentoModel> filtro, LancamentoCursor cursor, int limite, boolean decrescente) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LancamentoDto> query = cb.createQuery(LancamentoDto.class);
+        Root<LancamentoModel> root = query.from(LancamentoModel.class);
+
+        query.select(projecao(cb, root));
+        filtrarEOrdenar(cb, query, root, filtro, cursor, decrescente);
+
+        return entityManager.createQuery(query)
+                            .setMaxResults(limite)
+                            .getResultList();
+    }
+
+    @Override
+    public void inserirLote(List<LancamentoModel> lancamentos) {
+        for(LancamentoModel lancamento : lancamentos){
+            entityManager.persist(lancamento);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    public void normalizarDescricoes(List<LancamentoDto> lancamentos) {
+        if(lancamentos.isEmpty()){
+            return;
+        }
+        entityManager.flush();
+        entityManager.unwrap(Session.class).doWork(conexao -> {
+            try(PreparedStatement update = conexao.prepareStatement(NORMALIZAR_DESCRICAO)){
+                for(LancamentoDto lancamento : lancamentos){
+                    update.setString(1, Trigramas.normalizar(lancamento.getDescricao()));
+                    update.setLong(2, lancamento.getId());
+                    update.addBatch();
+                }
+                update.executeBatch();
+            }
+        });
+        entityManager.clear();
+    }
+
+    @Override
+    public int atualizarStatus(SelecaoLancamentosDto selecao, StatusLancamentoEnum novoStatus, Long sequencia) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<LancamentoModel> update = cb.createCriteriaUpdate(LancamentoModel.class);
+        Root<LancamentoModel> root = update.from(LancamentoModel.class);
+
+        List<Predicate> predicados = doSelecao(cb, root, selecao);
+        predicados.add(cb.notEqual(root.get("status"), novoStatus));
+        Path<Long> versao = root.get("versao");
+        update.set(root.<StatusLancamentoEnum>get("status"), novoStatus)
+              .set(root.<Long>get("sequencia"), sequencia)
+              .set(versao, cb.sum(versao, 1L))
+              .where(predicados.toArray(new Predicate[0]));
+
+        // Como um @Modifying: o que está pendente vai antes para o banco e o contexto
+        // é limpo depois, para nenhuma entidade carregada ficar com o status antigo
+        entityManager.flush();
+        int atualizados = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return atualizados;
+    }
+
+    @Override
+    public int atualizarSemLeitura(LancamentoModel lancamento) {
+        return entityManager.createQuery(ATUALIZAR_SEM_LEITURA)
+                .setParameter("descricao", lancamento.getDescricao())
+                .setParameter("mes", lancamento.getMes())
+                .setParameter("ano", lancamento.getAno())
+                .setParameter("periodo", LancamentoModel.periodo(lancamento.getAno(), lancamento.getMes()))
+                .setParameter("valor", lancamento.getValor())
+                .setParameter("tipo", lancamento.getTipo())
+                .setParameter("status", lancamento.getStatus())
+                .setParameter("dataCadastro", lancamento.getDataCadastro())
+                .setParameter("sequencia", lancamento.getSequencia())
+                .setParameter("id", lancamento.getId())
+                .setParameter("idUsuario", lancamento.getUsuario().getId())
+                .setParameter("versao", lancamento.getVersao())
+                .setParameter("efetivado", StatusLancamentoEnum.EFETIVADO)
+                .setParameter("descricaoNormalizada", Trigramas.normalizar(lancamento.getDescricao()))
+                .executeUpdate();
+    }
+
+    @Override
+    public BigDecimal somarComSinal(SelecaoLancamentosDto selecao, boolean efetivados) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BigDecimal> query = cb.createQuery(BigDecimal.class);
+        Root<LancamentoModel> root = query.from(LancamentoModel.class);
+
+        Expression<BigDecimal> valor = root.get("valor");
+        Expression<BigDecimal> comSinal = cb.<BigDecimal>selectCase()
+                .when(cb.equal(root.get("tipo"), TipoLancamentoEnum.DESPESA), cb.neg(valor))
+                .otherwise(valor);
+
+        List<Predicate> predicados = doSelecao(cb, root, selecao);
+        predicados.add(efetivados
+                ? cb.equal(root.get("status"), StatusLancamentoEnum.EFETIVADO)
+                : cb.notEqual(root.get("status"), StatusLancamentoEnum.EFETIVADO));
+        query.select(cb.sum(comSinal)).where(predicados.toArray(new Predicate[0]));
+
+        BigDecimal soma = entityManager.createQuery(query).getSingleResult();
+        return soma == null ? BigDecimal.ZERO : soma;
+    }
+
+    // O usuário é obrigatório: é ele que garante que ninguém altera lançamentos de outra pessoa
+    private List<Predicate> doSelecao(CriteriaBuilder cb, Root<LancamentoModel> root, SelecaoLancamentosDto selecao) {
+        List<Predicate> predicados = new ArrayList<>();
+        predicados.add(cb.equal(root.get("usuario").get("id"), selecao.getUsuario()));
+        if(selecao.getIds() != null){
+            predicados.add(root.get("id").in(selecao.getIds()));
+        }
+        if(selecao.getAno() != null){
+            predicados.add(cb.equal(root.get("ano"), selecao.getAno()));
+        }
+        if(selecao.getMes() != null){
+            predicados.add(cb.equal(root.get("mes"), selecao.getMes()));
+        }
+        if(selecao.getTipo() != null){
+            predicados.add(cb.equal(root.get("tipo"), selecao.getTipo()));
+        }
+        if(selecao.getStatus() != null){
+            predicados.add(cb.equal(root.get("status"), selecao.getStatus()));
+        }
+        return predicados;
+    }
+
+    // usuario.id é lido da própria coluna id_usuario, o Hibernate não faz join com a tabela de usuário
+    private CompoundSelection<LancamentoDto> projecao(CriteriaBuilder cb, Root<LancamentoModel> root) {
+        return cb.construct(LancamentoDto.class,
+                root.get("id"), root.get("descricao"), root.get("mes"), root.get("ano"), root.get("valor"),
+                root.get("usuario").get("id"), root.get("tipo"), root.get("status"), root.get("dataCadastro"),
+                root.get("versao"));
+    }
+
+    private void filtrarEOrdenar(CriteriaBuilder cb, CriteriaQuery<?> query, Root<LancamentoModel> root,
+                                 Specification<LancamentoModel> filtro, LancamentoCursor cursor, boolean decrescente) {
+        List<Predicate> predicados = new ArrayList<>();
+        Predicate predicadoFiltro = filtro.toPredicate(root, query, cb);
+        if(predicadoFiltro != null){
+            predicados.add(predicadoFiltro);
+        }
+        if(cursor != null){
+            predicados.add(depoisDoCursor(cb, root, cursor, decrescente));
+        }
+
+        Path<Integer> ano = root.get("ano");
+        Path<Integer> mes = root.get("mes");
+        Path<Long> id = root.get("id");
+
+        Order[] ordem = decrescente
+                ? new Order[]{cb.desc(ano), cb.desc(mes), cb.desc(id)}
+                : new Order[]{cb.asc(ano), cb.asc(mes), cb.asc(id)};
+
+        query.where(predicados.toArray(new Predicate[0]))
+             .orderBy(ordem);
+    }
+
+    // (ano, mes, id) > (:ano, :mes, :id) escrito por extenso, pois nem todo banco aceita comparação de tuplas
+    private Predicate depoisDoCursor(CriteriaBuilder cb, Root<LancamentoModel> root, LancamentoCursor cursor, boolean decrescente) {
+        Path<Integer> ano = root.get("ano");
+        Path<Integer> mes = root.get("mes");
+        Path<Long> id = root.get("id");
+
+        if(decrescente){
+            return cb.or(
+                    cb.lessThan(ano, cursor.getAno()),
+                    cb.and(cb.equal(ano, cursor.getAno()), cb.lessThan(mes, cursor.getMes())),
+                    cb.and(cb.equal(ano, cursor.getAno()), cb.equal(mes, cursor.getMes()), cb.lessThan(id, cursor.getId())));
+        }
+        return cb.or(
+                cb.greaterThan(ano, cursor.getAno()),
+                cb.and(cb.equal(ano, cursor.getAno()), cb.greaterThan(mes, cursor.getMes())),
+                cb.and(cb.equal(ano, cursor.getAno()), cb.equal(mes, cursor.getMes()), cb.greaterThan(id, cursor.getId())));
+    }
+}
@@ -0,0 +1,10 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.model.LancamentoRollupId;
+import com.aroque.minhasfinancas.model.LancamentoRollupModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface LancamentoRollupRepository extends JpaRepository<LancamentoRollupModel, LancamentoRollupId>,
+        LancamentoRollupRepositoryCustom {
+
+}
@@ -0,0 +1,22 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.dto.DivergenciaRollupDto;
+import com.aroque.minhasfinancas.dto.ResumoMensalDto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface LancamentoRollupRepositoryCustom {
+
+    // Refaz o rollup do período a partir dos lançamentos; sem ano e mês refaz o usuário inteiro
+    void recalcular(Long idUsuario, Integer ano, Integer mes);
+
+    // Totais do ano por mês, tipo e status: rollup nos períodos compactados, lançamentos nos pendentes
+    List<ResumoMensalDto> obterResumoAnual(Long idUsuario, Integer ano);
+
+    // Receitas menos despesas EFETIVADAS, da mesma forma
+    BigDecimal somarEfetivados(Long idUsuario);
+
+    // Grupos dos períodos já compactados em que o rollup não bate com os lançamentos
+    List<DivergenciaRollupDto> conferir(Long idUsuario);
+}
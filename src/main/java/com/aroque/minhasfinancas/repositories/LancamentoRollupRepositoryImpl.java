@@ -0,0 +1,229 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.dto.DivergenciaRollupDto;
+import com.aroque.minhasfinancas.dto.ResumoMensalDto;
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class LancamentoRollupRepositoryImpl implements LancamentoRollupRepositoryCustom {
+
+    private static final String APAGAR = "DELETE FROM financas.lancamento_rollup WHERE id_usuario = :idUsuario";
+
+    // Um único INSERT ... SELECT, o período inteiro é agrupado no banco sem passar pela aplicação
+    private static final String INSERIR = "INSERT INTO financas.lancamento_rollup (id_usuario, ano, mes, tipo, status, total, quantidade) "
+            + "SELECT id_usuario, ano, mes, tipo, status, SUM(valor), COUNT(*) FROM financas.lancamento "
+            + "WHERE id_usuario = :idUsuario AND ano IS NOT NULL AND mes IS NOT NULL AND tipo IS NOT NULL AND status IS NOT NULL";
+
+    private static final String DO_PERIODO = " AND ano = :ano AND mes = :mes";
+
+    private static final String AGRUPAR = " GROUP BY id_usuario, ano, mes, tipo, status";
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public void recalcular(Long idUsuario, Integer ano, Integer mes) {
+        boolean periodo = ano != null && mes != null;
+        Query apagar = entityManager.createNativeQuery(periodo ? APAGAR + DO_PERIODO : APAGAR);
+        Query inserir = entityManager.createNativeQuery(periodo ? INSERIR + DO_PERIODO + AGRUPAR : INSERIR + AGRUPAR);
+        for(Query query : Arrays.asList(apagar, inserir)){
+            query.setParameter("idUsuario", idUsuario);
+            if(periodo){
+                query.setParameter("ano", ano);
+                query.setParameter("mes", mes);
+            }
+            query.executeUpdate();
+        }
+    }
+
+    @Override
+    public List<ResumoMensalDto> obterResumoAnual(Long idUsuario, Integer ano) {
+        Pendentes pendentes = obterPendentes(idUsuario);
+        if(pendentes.usuarioInteiro){
+            return resumoDosLancamentos(idUsuario, ano, null);
+        }
+
+        List<ResumoMensalDto> resumo = entityManager.createQuery(
+                " SELECT new com.aroque.minhasfinancas.dto.ResumoMensalDto(r.mes, r.tipo, r.status, r.total) "
+              + " FROM LancamentoRollupModel r WHERE r.idUsuario = :idUsuario AND r.ano = :ano ", ResumoMensalDto.class)
+                .setParameter("idUsuario", idUsuario)
+                .setParameter("ano", ano)
+                .getResultList()
+                .stream()
+                .filter(linha -> !pendentes.contem(ano, linha.getMes()))
+                .collect(Collectors.toList());
+
+        List<Integer> mesesPendentes = pendentes.mesesDe(ano);
+        if(!mesesPendentes.isEmpty()){
+            resumo.addAll(resumoDosLancamentos(idUsuario, ano, mesesPendentes));
+        }
+        return resumo;
+    }
+
+    // Sem meses soma o ano inteiro
+    private List<ResumoMensalDto> resumoDosLancamentos(Long idUsuario, Integer ano, List<Integer> meses) {
+        TypedQuery<ResumoMensalDto> query = entityManager.createQuery(
+                " SELECT new com.aroque.minhasfinancas.dto.ResumoMensalDto(l.mes, l.tipo, l.status, sum(l.valor)) "
+              + " FROM LancamentoModel l WHERE l.usuario.id = :idUsuario AND l.ano = :ano "
+              + (meses == null ? "" : " AND l.mes IN :meses ")
+              + " GROUP BY l.mes, l.tipo, l.status ", ResumoMensalDto.class)
+                .setParameter("idUsuario", idUsuario)
+                .setParameter("ano", ano);
+        if(meses != null){
+            query.setParameter("meses", meses);
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public BigDecimal somarEfetivados(Long idUsuario) {
+        Pendentes pendentes = obterPendentes(idUsuario);
+        if(pendentes.usuarioInteiro){
+            return somaDosLancamentos(idUsuario, null, null);
+        }
+
+        BigDecimal saldo = BigDecimal.ZERO;
+        List<Object[]> linhas = entityManager.createQuery(
+                " SELECT r.ano, r.mes, r.tipo, r.total FROM LancamentoRollupModel r "
+              + " WHERE r.idUsuario = :idUsuario AND r.status = :status ", Object[].class)
+                .setParameter("idUsuario", idUsuario)
+                .setParameter("status", StatusLancamentoEnum.EFETIVADO)
+                .getResultList();
+        for(Object[] linha : linhas){
+            if(!pendentes.contem((Integer) linha[0], (Integer) linha[1])){
+                saldo = saldo.add(comSinal((TipoLancamentoEnum) linha[2], (BigDecimal) linha[3]));
+            }
+        }
+
+        // Só os poucos períodos alterados desde a última compactação são somados nos lançamentos
+        for(Integer periodo : pendentes.periodos){
+            saldo = saldo.add(somaDosLancamentos(idUsuario, periodo / 100, periodo % 100));
+        }
+        return saldo;
+    }
+
+    private BigDecimal somaDosLancamentos(Long idUsuario, Integer ano, Integer mes) {
+        boolean periodo = ano != null;
+        Query query = entityManager.createQuery(
+                " SELECT l.tipo, sum(l.valor) FROM LancamentoModel l WHERE l.usuario.id = :idUsuario AND l.status = :status "
+              + (periodo ? " AND l.ano = :ano AND l.mes = :mes " : "")
+              + " GROUP BY l.tipo ")
+                .setParameter("idUsuario", idUsuario)
+                .setParameter("status", StatusLancamentoEnum.EFETIVADO);
+        if(periodo){
+            query.setParameter("ano", ano).setParameter("mes", mes);
+        }
+
+        BigDecimal soma = BigDecimal.ZERO;
+        for(Object linha : query.getResultList()){
+            Object[] colunas = (Object[]) linha;
+            soma = soma.add(comSinal((TipoLancamentoEnum) colunas[0], (BigDecimal) colunas[1]));
+        }
+        return soma;
+    }
+
+    private BigDecimal comSinal(TipoLancamentoEnum tipo, BigDecimal valor) {
+        if(valor == null){
+            return BigDecimal.ZERO;
+        }
+        return tipo == TipoLancamentoEnum.DESPESA ? valor.negate() : valor;
+    }
+
+    @Override
+    public List<DivergenciaRollupDto> conferir(Long idUsuario) {
+        // As marcas são lidas por último: o que for alterado durante a conferência fica marcado e é ignorado
+        Map<List<Object>, Object[]> lancamentos = agrupar(entityManager.createQuery(
+                " SELECT l.ano, l.mes, l.tipo, l.status, sum(l.valor), count(l) FROM LancamentoModel l "
+              + " WHERE l.usuario.id = :idUsuario AND l.ano IS NOT NULL AND l.mes IS NOT NULL "
+              + " AND l.tipo IS NOT NULL AND l.status IS NOT NULL GROUP BY l.ano, l.mes, l.tipo, l.status ", Object[].class)
+                .setParameter("idUsuario", idUsuario)
+                .getResultList());
+        Map<List<Object>, Object[]> rollup = agrupar(entityManager.createQuery(
+                " SELECT r.ano, r.mes, r.tipo, r.status, r.total, r.quantidade FROM LancamentoRollupModel r "
+              + " WHERE r.idUsuario = :idUsuario ", Object[].class)
+                .setParameter("idUsuario", idUsuario)
+                .getResultList());
+        Pendentes pendentes = obterPendentes(idUsuario);
+
+        List<DivergenciaRollupDto> divergencias = new ArrayList<>();
+        if(pendentes.usuarioInteiro){
+            return divergencias;
+        }
+        Set<List<Object>> grupos = new LinkedHashSet<>(lancamentos.keySet());
+        grupos.addAll(rollup.keySet());
+        for(List<Object> grupo : grupos){
+            if(pendentes.contem((Integer) grupo.get(0), (Integer) grupo.get(1))){
+                continue;
+            }
+            Object[] doRollup = rollup.getOrDefault(grupo, new Object[]{BigDecimal.ZERO, 0L});
+            Object[] dosLancamentos = lancamentos.getOrDefault(grupo, new Object[]{BigDecimal.ZERO, 0L});
+            BigDecimal totalRollup = doRollup[0] == null ? BigDecimal.ZERO : (BigDecimal) doRollup[0];
+            BigDecimal totalLancamentos = dosLancamentos[0] == null ? BigDecimal.ZERO : (BigDecimal) dosLancamentos[0];
+            boolean mesmaQuantidade = Objects.equals(((Number) doRollup[1]).longValue(), ((Number) dosLancamentos[1]).longValue());
+            if(totalRollup.compareTo(totalLancamentos) != 0 || !mesmaQuantidade){
+                divergencias.add(new DivergenciaRollupDto(idUsuario, (Integer) grupo.get(0), (Integer) grupo.get(1),
+                        (TipoLancamentoEnum) grupo.get(2), (StatusLancamentoEnum) grupo.get(3), totalRollup, totalLancamentos));
+            }
+        }
+        return divergencias;
+    }
+
+    // (ano, mês, tipo, status) -> (total, quantidade)
+    private Map<List<Object>, Object[]> agrupar(List<Object[]> linhas) {
+        Map<List<Object>, Object[]> grupos = new HashMap<>();
+        for(Object[] linha : linhas){
+            grupos.put(Arrays.asList(linha[0], linha[1], linha[2], linha[3]), new Object[]{linha[4], linha[5]});
+        }
+        return grupos;
+    }
+
+    private Pendentes obterPendentes(Long idUsuario) {
+        List<Object[]> marcas = entityManager.createQuery(
+                " SELECT DISTINCT a.ano, a.mes FROM LancamentoAlteracaoModel a WHERE a.idUsuario = :idUsuario ", Object[].class)
+                .setParameter("idUsuario", idUsuario)
+                .getResultList();
+        Pendentes pendentes = new Pendentes();
+        for(Object[] marca : marcas){
+            if(marca[0] == null || marca[1] == null){
+                pendentes.usuarioInteiro = true;
+            } else {
+                pendentes.periodos.add((Integer) marca[0] * 100 + (Integer) marca[1]);
+            }
+        }
+        return pendentes;
+    }
+
+    // Períodos com alteração ainda não compactada, como ano * 100 + mês
+    private static class Pendentes {
+
+        boolean usuarioInteiro;
+        final Set<Integer> periodos = new HashSet<>();
+
+        boolean contem(Integer ano, Integer mes) {
+            return ano != null && mes != null && periodos.contains(ano * 100 + mes);
+        }
+
+        List<Integer> mesesDe(Integer ano) {
+            return periodos.stream()
+                    .filter(periodo -> periodo / 100 == ano)
+                    .map(periodo -> periodo % 100)
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.dto.LancamentoFiltroDto;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.LancamentoTrigramaModel;
+import com.aroque.minhasfinancas.util.Trigramas;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public class LancamentoSpecifications {
+
+    private static final char ESCAPE = '\\';
+
+    private LancamentoSpecifications() {
+    }
+
+    // Monta o WHERE só com os campos preenchidos no filtro, como o Example fazia
+    public static Specification<LancamentoModel> doFiltro(LancamentoFiltroDto filtro) {
+        return (root, query, cb) -> {
+            List<Predicate> predicados = new ArrayList<>();
+
+            if(filtro.getUsuario() != null){
+                predicados.add(cb.equal(root.get("usuario").get("id"), filtro.getUsuario()));
+            }
+            if(filtro.getAno() != null){
+                predicados.add(cb.equal(root.get("ano"), filtro.getAno()));
+            }
+            if(filtro.getMes() != null){
+                predicados.add(cb.equal(root.get("mes"), filtro.getMes()));
+            }
+            // Pelo período, para o intervalo usar o índice (id_usuario, periodo, tipo, status)
+            if(filtro.getDe() != null){
+                predicados.add(cb.greaterThanOrEqualTo(root.get("periodo"), filtro.getDe()));
+            }
+            if(filtro.getAte() != null){
+                predicados.add(cb.lessThanOrEqualTo(root.get("periodo"), filtro.getAte()));
+            }
+            if(filtro.getTipo() != null){
+                predicados.add(cb.equal(root.get("tipo"), filtro.getTipo()));
+            }
+            if(filtro.getTipos() != null && !filtro.getTipos().isEmpty()){
+                predicados.add(root.get("tipo").in(filtro.getTipos()));
+            }
+            if(filtro.getStatus() != null && !filtro.getStatus().isEmpty()){
+                predicados.add(root.get("status").in(filtro.getStatus()));
+            }
+            // Comparações direto na coluna, sem função em volta, para as faixas poderem usar os índices
+            if(filtro.getValorMinimo() != null){
+                predicados.add(cb.greaterThanOrEqualTo(root.get("valor"), filtro.getValorMinimo()));
+            }
+            if(filtro.getValorMaximo() != null){
+                predicados.add(cb.lessThanOrEqualTo(root.get("valor"), filtro.getValorMaximo()));
+            }
+            if(filtro.getCadastroDe() != null){
+                predicados.add(cb.greaterThanOrEqualTo(root.get("dataCadastro"), filtro.getCadastroDe()));
+            }
+            if(filtro.getCadastroAte() != null){
+                predicados.add(cb.lessThanOrEqualTo(root.get("dataCadastro"), filtro.getCadastroAte()));
+            }
+            if(filtro.getDescricao() != null && !filtro.getDescricao().trim().isEmpty()){
+                predicados.addAll(descricaoContendo(filtro, root, query, cb));
+            }
+
+            return cb.and(predicados.toArray(new Predicate[0]));
+        };
+    }
+
+    // Os trigramas do termo reduzem a busca aos lançamentos que têm todos eles no índice (interseção das listas),
+    // e o LIKE só confere esses candidatos, em vez de percorrer todos os lançamentos do usuário
+    private static List<Predicate> descricaoContendo(LancamentoFiltroDto filtro, Root<LancamentoModel> root,
+                                                     CriteriaQuery<?> query, CriteriaBuilder cb) {
+        List<Predicate> predicados = new ArrayList<>();
+        String termo = Trigramas.normalizar(filtro.getDescricao());
+        Set<String> trigramas = Trigramas.gerar(termo);
+
+        // Termos com menos de 3 letras não têm trigrama, aí sobra só o LIKE
+        if(!trigramas.isEmpty() && filtro.getUsuario() != null){
+            Subquery<Long> candidatos = query.subquery(Long.class);
+            Root<LancamentoTrigramaModel> trigrama = candidatos.from(LancamentoTrigramaModel.class);
+            candidatos.select(trigrama.get("idLancamento"))
+                      .where(cb.equal(trigrama.get("idUsuario"), filtro.getUsuario()),
+                             trigrama.get("trigrama").in(trigramas))
+                      .groupBy(trigrama.get("idLancamento"))
+                      .having(cb.equal(cb.countDistinct(trigrama.get("trigrama")), (long) trigramas.size()));
+            predicados.add(root.get("id").in(candidatos));
+        }
+
+        if(filtro.isIgnorarAcentos()){
+            predicados.add(cb.like(root.get("descricaoNormalizada"), contendo(termo), ESCAPE));
+        } else {
+            String minusculo = filtro.getDescricao().trim().toLowerCase(Locale.ROOT);
+            predicados.add(cb.like(cb.lower(root.get("descricao")), contendo(minusculo), ESCAPE));
+        }
+        return predicados;
+    }
+
+    // % e _ digitados pelo usuário são procurados como texto, e não como curingas do LIKE
+    private static String contendo(String termo) {
+        String escapado = termo.replace(String.valueOf(ESCAPE), ESCAPE + String.valueOf(ESCAPE))
+                               .replace("%", ESCAPE + "%")
+                               .replace("_", ESCAPE + "_");
+        return "%" + escapado + "%";
+    }
+}
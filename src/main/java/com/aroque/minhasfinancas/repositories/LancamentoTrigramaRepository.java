@@ -0,0 +1,21 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.model.LancamentoTrigramaId;
+import com.aroque.minhasfinancas.model.LancamentoTrigramaModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface LancamentoTrigramaRepository extends JpaRepository<LancamentoTrigramaModel, LancamentoTrigramaId>,
+        LancamentoTrigramaRepositoryCustom {
+
+    @Modifying
+    @Query(value = " DELETE FROM LancamentoTrigramaModel t WHERE t.idLancamento = :idLancamento ")
+    int removerDoLancamento(@Param("idLancamento") Long idLancamento);
+
+    @Modifying
+    @Query(value = " DELETE FROM LancamentoTrigramaModel t WHERE t.idUsuario = :idUsuario ")
+    int removerDoUsuario(@Param("idUsuario") Long idUsuario);
+
+}
@@ -0,0 +1,12 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.model.LancamentoTrigramaModel;
+
+import java.util.Collection;
+
+public interface LancamentoTrigramaRepositoryCustom {
+
+    // INSERT em lote direto no JDBC: a chave é atribuída, então o save faria um SELECT por trigrama,
+    // e os registros não precisam ficar no contexto de persistência
+    void inserirTodos(Collection<LancamentoTrigramaModel> trigramas);
+}
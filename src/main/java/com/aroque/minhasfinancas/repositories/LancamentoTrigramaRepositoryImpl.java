@@ -0,0 +1,35 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.model.LancamentoTrigramaModel;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+
+public class LancamentoTrigramaRepositoryImpl implements LancamentoTrigramaRepositoryCustom {
+
+    private static final String INSERT = "INSERT INTO financas.lancamento_trigrama (id_usuario, trigrama, id_lancamento) VALUES (?, ?, ?)";
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public void inserirTodos(Collection<LancamentoTrigramaModel> trigramas) {
+        if(trigramas.isEmpty()){
+            return;
+        }
+        entityManager.unwrap(Session.class).doWork(conexao -> {
+            try(PreparedStatement insert = conexao.prepareStatement(INSERT)){
+                for(LancamentoTrigramaModel trigrama : trigramas){
+                    insert.setLong(1, trigrama.getIdUsuario());
+                    insert.setString(2, trigrama.getTrigrama());
+                    insert.setLong(3, trigrama.getIdLancamento());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.model.SaldoUsuarioModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+
+public interface SaldoUsuarioRepository extends JpaRepository<SaldoUsuarioModel, Long>, SaldoUsuarioRepositoryCustom {
+
+    // Soma direto no banco para não perder atualizações concorrentes do mesmo usuário
+    // Retorna 0 quando o usuário ainda não tem linha de saldo
+    @Modifying
+    @Query(value = " UPDATE SaldoUsuarioModel s SET s.valor = s.valor + :valor WHERE s.idUsuario = :idUsuario ")
+    int somarAoSaldo(@Param("idUsuario") Long idUsuario, @Param("valor") BigDecimal valor);
+
+    // Retorna 0 quando o usuário ainda não tem linha de saldo
+    @Modifying
+    @Query(value = " UPDATE SaldoUsuarioModel s SET s.valor = :valor WHERE s.idUsuario = :idUsuario ")
+    int definirSaldo(@Param("idUsuario") Long idUsuario, @Param("valor") BigDecimal valor);
+
+}
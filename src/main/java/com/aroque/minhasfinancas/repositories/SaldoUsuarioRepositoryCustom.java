@@ -0,0 +1,10 @@
+package com.aroque.minhasfinancas.repositories;
+
+import java.math.BigDecimal;
+
+public interface SaldoUsuarioRepositoryCustom {
+
+    // Cria a linha de saldo do usuário só se ela ainda não existir, sem derrubar a transação
+    // Retorna false quando outra transação criou a linha antes
+    boolean inserirSeAusente(Long idUsuario, BigDecimal valor);
+}
@@ -0,0 +1,43 @@
+package com.aroque.minhasfinancas.repositories;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+public class SaldoUsuarioRepositoryImpl implements SaldoUsuarioRepositoryCustom {
+
+    private static final String INSERT = "INSERT INTO financas.saldo_usuario (id_usuario, valor) VALUES (?, ?)";
+
+    // Classe de SQLState das violações de integridade (chave duplicada no MySQL e no H2)
+    private static final String VIOLACAO_DE_INTEGRIDADE = "23";
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public boolean inserirSeAusente(Long idUsuario, BigDecimal valor) {
+        // Direto no JDBC e dentro de um savepoint: a chave duplicada desfaz só o INSERT, e a sessão
+        // do Hibernate continua usável, o que não aconteceria com a exceção no flush de um save
+        return entityManager.unwrap(Session.class).doReturningWork(conexao -> {
+            Savepoint antes = conexao.setSavepoint();
+            try(PreparedStatement insert = conexao.prepareStatement(INSERT)){
+                insert.setLong(1, idUsuario);
+                insert.setBigDecimal(2, valor);
+                insert.executeUpdate();
+                conexao.releaseSavepoint(antes);
+                return true;
+            } catch (SQLException e){
+                if(e.getSQLState() == null || !e.getSQLState().startsWith(VIOLACAO_DE_INTEGRIDADE)){
+                    throw e;
+                }
+                conexao.rollback(antes);
+                return false;
+            }
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.model.SincroniaUsuarioModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface SincroniaUsuarioRepository extends JpaRepository<SincroniaUsuarioModel, Long> {
+
+    // Reserva as próximas sequências do usuário e trava a linha até o fim da transação
+    // Retorna 0 quando o usuário ainda não tem linha de sincronia
+    @Modifying
+    @Query(value = " UPDATE SincroniaUsuarioModel s SET s.sequencia = s.sequencia + :quantidade WHERE s.idUsuario = :idUsuario ")
+    int avancar(@Param("idUsuario") Long idUsuario, @Param("quantidade") long quantidade);
+
+    // Escalar e não a entidade, para não vir um valor antigo do contexto de persistência depois do UPDATE
+    @Query(value = " SELECT s.sequencia FROM SincroniaUsuarioModel s WHERE s.idUsuario = :idUsuario ")
+    Long obterSequencia(@Param("idUsuario") Long idUsuario);
+
+    // Antes de apagar as lápides antigas, cada usuário guarda a maior sequência que vai sumir
+    @Modifying
+    @Query(value = " UPDATE financas.sincronia_usuario s SET horizonte = ( "
+                 + "   SELECT MAX(r.sequencia) FROM financas.lancamento_remocao r "
+                 + "   WHERE r.id_usuario = s.id_usuario AND r.removido_em < :limite) "
+                 + " WHERE EXISTS (SELECT 1 FROM financas.lancamento_remocao r "
+                 + "   WHERE r.id_usuario = s.id_usuario AND r.removido_em < :limite) ",
+            nativeQuery = true)
+    int avancarHorizontes(@Param("limite") LocalDateTime limite);
+}
@@ -1,8 +1,13 @@
 package com.aroque.minhasfinancas.repositories;
 
+import com.aroque.minhasfinancas.config.CacheConfiguration;
 import com.aroque.minhasfinancas.model.UsuarioModel;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<UsuarioModel, Long> {
@@ -14,5 +19,63 @@ public interface UsuarioRepository extends JpaRepository<UsuarioModel, Long> {
     // Igual ao de cima:
      boolean existsByEmail(String email);
 
+     // Usuário inexistente não vai para o cache, senão um cadastro novo ficaria invisível até expirar
+     @Cacheable(cacheNames = CacheConfiguration.USUARIOS_POR_EMAIL, key = "#p0", unless = "#result == null")
      Optional<UsuarioModel> findByEmail(String email);
+
+     @Override
+     @Cacheable(cacheNames = CacheConfiguration.USUARIOS, key = "#p0", unless = "#result == null")
+     Optional<UsuarioModel> findById(Long id);
+
+     // Toda gravação tira o usuário do cache por id e esvazia o cache por email: o email pode ter mudado,
+     // e o antigo não é conhecido aqui. Gravar usuário é raro perto de ler (cada login passa pelo findByEmail)
+     @Override
+     @Caching(evict = {
+             @CacheEvict(cacheNames = CacheConfiguration.USUARIOS, key = "#p0.id"),
+             @CacheEvict(cacheNames = CacheConfiguration.USUARIOS_POR_EMAIL, allEntries = true)
+     })
+     <S extends UsuarioModel> S save(S usuario);
+
+     // O saveAndFlush do SimpleJpaRepository chama o save por dentro, sem passar pelo cache
+     @Override
+     @Caching(evict = {
+             @CacheEvict(cacheNames = CacheConfiguration.USUARIOS, key = "#p0.id"),
+             @CacheEvict(cacheNames = CacheConfiguration.USUARIOS_POR_EMAIL, allEntries = true)
+     })
+     <S extends UsuarioModel> S saveAndFlush(S usuario);
+
+     @Override
+     @Caching(evict = {
+             @CacheEvict(cacheNames = CacheConfiguration.USUARIOS, key = "#p0.id"),
+             @CacheEvict(cacheNames = CacheConfiguration.USUARIOS_POR_EMAIL, allEntries = true)
+     })
+     void delete(UsuarioModel usuario);
+
+     @Override
+     @Caching(evict = {
+             @CacheEvict(cacheNames = CacheConfiguration.USUARIOS, key = "#p0"),
+             @CacheEvict(cacheNames = CacheConfiguration.USUARIOS_POR_EMAIL, allEntries = true)
+     })
+     void deleteById(Long id);
+
+     // Gravações de vários usuários de uma vez esvaziam os dois caches
+     @Override
+     @CacheEvict(cacheNames = {CacheConfiguration.USUARIOS, CacheConfiguration.USUARIOS_POR_EMAIL}, allEntries = true)
+     <S extends UsuarioModel> List<S> saveAll(Iterable<S> usuarios);
+
+     @Override
+     @CacheEvict(cacheNames = {CacheConfiguration.USUARIOS, CacheConfiguration.USUARIOS_POR_EMAIL}, allEntries = true)
+     void deleteAll(Iterable<? extends UsuarioModel> usuarios);
+
+     @Override
+     @CacheEvict(cacheNames = {CacheConfiguration.USUARIOS, CacheConfiguration.USUARIOS_POR_EMAIL}, allEntries = true)
+     void deleteAll();
+
+     @Override
+     @CacheEvict(cacheNames = {CacheConfiguration.USUARIOS, CacheConfiguration.USUARIOS_POR_EMAIL}, allEntries = true)
+     void deleteInBatch(Iterable<UsuarioModel> usuarios);
+
+     @Override
+     @CacheEvict(cacheNames = {CacheConfiguration.USUARIOS, CacheConfiguration.USUARIOS_POR_EMAIL}, allEntries = true)
+     void deleteAllInBatch();
 }
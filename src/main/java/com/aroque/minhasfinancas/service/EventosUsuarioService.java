@@ -0,0 +1,9 @@
+package com.aroque.minhasfinancas.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface EventosUsuarioService {
+
+    // Conexão SSE que recebe o saldo atual e, a cada commit, os lançamentos alterados e o novo saldo
+    SseEmitter inscrever(Long idUsuario);
+}
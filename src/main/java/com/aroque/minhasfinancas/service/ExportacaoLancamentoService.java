@@ -0,0 +1,12 @@
+package com.aroque.minhasfinancas.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportacaoLancamentoService {
+
+    // formato: csv ou ndjson
+    boolean isFormatoSuportado(String formato);
+
+    void exportar(Long idUsuario, String formato, OutputStream saida) throws IOException;
+}
@@ -0,0 +1,79 @@
+package com.aroque.minhasfinancas.service.Impl;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Chaves HMAC decodificadas uma única vez, cada uma identificada pelo kid que vai no cabeçalho do token
+// Só a chave atual assina; as outras continuam conferindo os tokens já emitidos até eles expirarem
+public final class ChavesAssinatura extends SigningKeyResolverAdapter {
+
+    static final SignatureAlgorithm ALGORITMO = SignatureAlgorithm.HS512;
+
+    // kid usado quando só a jwt.chave-assinatura está configurada
+    static final String ID_PADRAO = "padrao";
+
+    private final Map<String, Key> chaves;
+    private final String idAtual;
+    private final Key atual;
+
+    ChavesAssinatura(Map<String, String> chavesEmBase64, String idAtual) {
+        Map<String, Key> decodificadas = new LinkedHashMap<>();
+        chavesEmBase64.forEach((id, base64) ->
+                decodificadas.put(id, new SecretKeySpec(Base64.getDecoder().decode(base64), ALGORITMO.getJcaName())));
+        if(!decodificadas.containsKey(idAtual)){
+            throw new IllegalStateException("A chave atual '" + idAtual + "' não está entre as chaves de assinatura.");
+        }
+        this.chaves = Collections.unmodifiableMap(decodificadas);
+        this.idAtual = idAtual;
+        this.atual = decodificadas.get(idAtual);
+    }
+
+    // jwt.chaves no formato "kid:base64,kid:base64"; vazio usa só a jwt.chave-assinatura
+    static ChavesAssinatura ler(String chaves, String idAtual, String chavePadrao) {
+        Map<String, String> chavesEmBase64 = new LinkedHashMap<>();
+        if(chaves == null || chaves.trim().isEmpty()){
+            chavesEmBase64.put(ID_PADRAO, chavePadrao);
+            return new ChavesAssinatura(chavesEmBase64, ID_PADRAO);
+        }
+        for (String chave : chaves.split(",")) {
+            String[] partes = chave.trim().split(":", 2);
+            if(partes.length != 2){
+                throw new IllegalStateException("Chave de assinatura mal formada, use kid:base64.");
+            }
+            chavesEmBase64.put(partes[0].trim(), partes[1].trim());
+        }
+        return new ChavesAssinatura(chavesEmBase64, idAtual);
+    }
+
+    public String getIdAtual() {
+        return idAtual;
+    }
+
+    public Key getAtual() {
+        return atual;
+    }
+
+    // Tokens sem kid foram emitidos antes da rotação existir e são conferidos com a chave atual
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        String id = header.getKeyId();
+        if(id == null){
+            return atual;
+        }
+        Key chave = chaves.get(id);
+        if(chave == null){
+            throw new SignatureException("Chave de assinatura desconhecida: " + id);
+        }
+        return chave;
+    }
+}
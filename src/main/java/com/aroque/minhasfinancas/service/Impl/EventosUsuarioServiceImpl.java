@@ -0,0 +1,249 @@
+package com.aroque.minhasfinancas.service.Impl;
+
+import com.aroque.minhasfinancas.dto.EventoLancamentoDto;
+import com.aroque.minhasfinancas.service.EventosUsuarioService;
+import com.aroque.minhasfinancas.service.LancamentoService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// As conexões ficam no suporte assíncrono do servlet, sem segurar thread do Tomcat
+// Cada inscrição tem uma fila limitada: um cliente lento que a enche é desconectado e, ao reconectar, recebe o saldo atual
+@Slf4j
+@Service
+public class EventosUsuarioServiceImpl implements EventosUsuarioService, DisposableBean {
+
+    static final String EVENTO_LANCAMENTO = "lancamento";
+    static final String EVENTO_SALDO = "saldo";
+
+    @Autowired
+    LancamentoService lancamentoService;
+
+    @Value("${eventos.buffer:64}")
+    int tamanhoBuffer;
+
+    @Value("${eventos.timeout-ms:1800000}")
+    long timeout;
+
+    @Value("${eventos.threads:4}")
+    int threads;
+
+    @Value("${eventos.heartbeat-segundos:15}")
+    long heartbeatSegundos;
+
+    private final Map<Long, Set<Inscricao>> inscricoes = new ConcurrentHashMap<>();
+
+    // Envio nas conexões fora da thread que fez o commit
+    private ExecutorService envio;
+    private ScheduledExecutorService heartbeat;
+
+    // Leitura do saldo e publicação, com cada usuário sempre na mesma thread: os eventos dele chegam
+    // às filas das conexões na ordem em que foram confirmados, e um saldo antigo nunca passa na frente de um novo
+    private ExecutorService[] publicacao;
+
+    public EventosUsuarioServiceImpl(LancamentoService lancamentoService) {
+        this.lancamentoService = lancamentoService;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        envio = Executors.newFixedThreadPool(threads, daemon("eventos-envio"));
+        publicacao = new ExecutorService[threads];
+        for(int i = 0; i < threads; i++){
+            publicacao[i] = Executors.newSingleThreadExecutor(daemon("eventos-publicacao"));
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("eventos-heartbeat"));
+        // Comentário vazio: mantém proxies com a conexão aberta e descobre clientes que já foram embora
+        heartbeat.scheduleWithFixedDelay(() -> enviarATodos(Mensagem.HEARTBEAT),
+                heartbeatSegundos, heartbeatSegundos, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public SseEmitter inscrever(Long idUsuario) {
+        SseEmitter emitter = criarEmitter();
+        Inscricao inscricao = new Inscricao(idUsuario, emitter);
+        inscricoes.computeIfAbsent(idUsuario, id -> ConcurrentHashMap.newKeySet()).add(inscricao);
+        emitter.onCompletion(() -> remover(inscricao));
+        emitter.onTimeout(() -> remover(inscricao));
+
+        // O cliente começa com o saldo atual, sem precisar de um GET antes
+        publicacaoDo(idUsuario).execute(() -> inscricao.enfileirar(new Mensagem(EVENTO_SALDO, lancamentoService.obterSaldoNoPrimario(idUsuario))));
+        return emitter;
+    }
+
+    // Só depois do commit: um rollback não pode chegar ao cliente
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoAlterarLancamento(EventoLancamentoDto evento) {
+        if(inscritos(evento.getUsuario()) == 0){
+            return;
+        }
+        try{
+            publicacaoDo(evento.getUsuario()).execute(() -> publicar(evento));
+        } catch (RejectedExecutionException e){
+            log.debug("Evento do usuário {} descartado no desligamento", evento.getUsuario());
+        }
+    }
+
+    private void publicar(EventoLancamentoDto evento) {
+        Set<Inscricao> doUsuario = inscricoes.getOrDefault(evento.getUsuario(), Collections.emptySet());
+        if(doUsuario.isEmpty()){
+            return;
+        }
+        // Uma leitura do saldo para todas as conexões do usuário, em transação própria e já com o commit visível
+        // No primário: esta thread não tem o usuário no SecurityContext, e uma réplica atrasada devolveria o saldo anterior
+        BigDecimal saldo = lancamentoService.obterSaldoNoPrimario(evento.getUsuario());
+        for(Inscricao inscricao : doUsuario){
+            inscricao.enfileirar(new Mensagem(EVENTO_LANCAMENTO, evento));
+            inscricao.enfileirar(new Mensagem(EVENTO_SALDO, saldo));
+        }
+    }
+
+    private ExecutorService publicacaoDo(Long idUsuario) {
+        return publicacao[(int) Math.floorMod(idUsuario, (long) publicacao.length)];
+    }
+
+    private static ThreadFactory daemon(String nome) {
+        return tarefa -> {
+            Thread thread = new Thread(tarefa, nome);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private int inscritos(Long idUsuario) {
+        return inscricoes.getOrDefault(idUsuario, Collections.emptySet()).size();
+    }
+
+    // Ponto de extensão para os testes simularem um cliente lento
+    protected SseEmitter criarEmitter() {
+        return new SseEmitter(timeout);
+    }
+
+    private void enviarATodos(Mensagem mensagem) {
+        inscricoes.values().forEach(doUsuario -> doUsuario.forEach(inscricao -> inscricao.enfileirar(mensagem)));
+    }
+
+    private void remover(Inscricao inscricao) {
+        inscricoes.computeIfPresent(inscricao.idUsuario, (id, doUsuario) -> {
+            doUsuario.remove(inscricao);
+            return doUsuario.isEmpty() ? null : doUsuario;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        for(ExecutorService doUsuario : publicacao){
+            doUsuario.shutdownNow();
+        }
+        envio.shutdownNow();
+        inscricoes.values().forEach(doUsuario -> doUsuario.forEach(Inscricao::encerrar));
+    }
+
+    // Nome do evento SSE e o que vai como JSON; sem nome é um comentário (heartbeat)
+    private static final class Mensagem {
+
+        static final Mensagem HEARTBEAT = new Mensagem(null, null);
+
+        final String nome;
+        final Object dados;
+
+        Mensagem(String nome, Object dados) {
+            this.nome = nome;
+            this.dados = dados;
+        }
+
+        // O builder do SseEmitter não pode ser reaproveitado, então cada envio monta o seu
+        SseEmitter.SseEventBuilder evento() {
+            if(nome == null){
+                return SseEmitter.event().comment("");
+            }
+            return SseEmitter.event().name(nome).data(dados, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    private final class Inscricao {
+
+        final Long idUsuario;
+        final SseEmitter emitter;
+        final BlockingQueue<Mensagem> fila = new ArrayBlockingQueue<>(tamanhoBuffer);
+        // Só uma tarefa por vez escreve nesta conexão, na ordem da fila
+        final AtomicBoolean enviando = new AtomicBoolean();
+        volatile boolean encerrada;
+
+        Inscricao(Long idUsuario, SseEmitter emitter) {
+            this.idUsuario = idUsuario;
+            this.emitter = emitter;
+        }
+
+        void enfileirar(Mensagem mensagem) {
+            if(encerrada){
+                return;
+            }
+            if(!fila.offer(mensagem)){
+                log.info("Cliente de eventos do usuário {} não acompanhou {} mensagens e foi desconectado", idUsuario, tamanhoBuffer);
+                encerrar();
+                return;
+            }
+            agendarEnvio();
+        }
+
+        private void agendarEnvio() {
+            if(enviando.compareAndSet(false, true)){
+                try{
+                    envio.execute(this::esvaziar);
+                } catch (RejectedExecutionException e){
+                    enviando.set(false);
+                }
+            }
+        }
+
+        private void esvaziar() {
+            try{
+                Mensagem mensagem;
+                while(!encerrada && (mensagem = fila.poll()) != null){
+                    emitter.send(mensagem.evento());
+                }
+            } catch (IOException | IllegalStateException e){
+                // Cliente desconectado ou conexão já encerrada pelo container
+                encerrar();
+            } finally {
+                enviando.set(false);
+            }
+            // Algo pode ter entrado entre o último poll e a liberação acima
+            if(!encerrada && !fila.isEmpty()){
+                agendarEnvio();
+            }
+        }
+
+        void encerrar() {
+            encerrada = true;
+            fila.clear();
+            remover(this);
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.aroque.minhasfinancas.service.Impl;
+
+import com.aroque.minhasfinancas.exception.RegraNegocioExecption;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.repositories.LancamentoRepository;
+import com.aroque.minhasfinancas.service.ExportacaoLancamentoService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class ExportacaoLancamentoServiceImpl implements ExportacaoLancamentoService {
+
+    // A cada quantos lançamentos o contexto de persistência é limpo, para a memória não crescer com a exportação
+    static final int LIMPAR_A_CADA = LancamentoRepository.FETCH_SIZE;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    @Autowired
+    LancamentoRepository repository;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    public ExportacaoLancamentoServiceImpl(LancamentoRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public boolean isFormatoSuportado(String formato) {
+        return "csv".equalsIgnoreCase(formato) || "ndjson".equalsIgnoreCase(formato);
+    }
+
+    // Cada linha vai para a saída assim que é lida do banco, nada é acumulado em lista
+    @Override
+    @Transactional(readOnly = true)
+    public void exportar(Long idUsuario, String formato, OutputStream saida) throws IOException {
+        if(!isFormatoSuportado(formato)){
+            throw new RegraNegocioExecption("Formato de exportação não suportado, use csv ou ndjson.");
+        }
+        boolean csv = "csv".equalsIgnoreCase(formato);
+
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        JsonGenerator json = null;
+        if(!csv){
+            json = JSON.createGenerator(escritor);
+            // Sem o espaço que o Jackson coloca entre objetos na raiz, cada um fica sozinho na sua linha
+            json.setRootValueSeparator(null);
+        } else {
+            escritor.write("id;ano;mes;descricao;tipo;status;valor;data_cadastro\n");
+        }
+
+        try(Stream<LancamentoModel> lancamentos = repository.percorrerPorUsuario(idUsuario)){
+            Iterator<LancamentoModel> iterator = lancamentos.iterator();
+            long escritos = 0;
+            while(iterator.hasNext()){
+                LancamentoModel lancamento = iterator.next();
+                if(csv){
+                    escreverCsv(escritor, lancamento);
+                } else {
+                    escreverJson(json, lancamento);
+                }
+                if(++escritos % LIMPAR_A_CADA == 0){
+                    entityManager.clear();
+                }
+            }
+        }
+
+        if(json != null){
+            json.flush();
+        }
+        escritor.flush();
+    }
+
+    private void escreverCsv(Writer escritor, LancamentoModel lancamento) throws IOException {
+        escritor.write(String.valueOf(lancamento.getId()));
+        escritor.write(';');
+        escritor.write(texto(lancamento.getAno()));
+        escritor.write(';');
+        escritor.write(texto(lancamento.getMes()));
+        escritor.write(';');
+        escritor.write(campoCsv(lancamento.getDescricao()));
+        escritor.write(';');
+        escritor.write(texto(lancamento.getTipo()));
+        escritor.write(';');
+        escritor.write(texto(lancamento.getStatus()));
+        escritor.write(';');
+        escritor.write(lancamento.getValor() == null ? "" : lancamento.getValor().toPlainString());
+        escritor.write(';');
+        escritor.write(texto(lancamento.getDataCadastro()));
+        escritor.write('\n');
+    }
+
+    // Um objeto JSON por linha
+    private void escreverJson(JsonGenerator json, LancamentoModel lancamento) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", lancamento.getId());
+        json.writeStringField("descricao", lancamento.getDescricao());
+        json.writeObjectField("ano", lancamento.getAno());
+        json.writeObjectField("mes", lancamento.getMes());
+        json.writeNumberField("valor", lancamento.getValor());
+        json.writeStringField("tipo", lancamento.getTipo() == null ? null : lancamento.getTipo().name());
+        json.writeStringField("status", lancamento.getStatus() == null ? null : lancamento.getStatus().name());
+        json.writeStringField("dataCadastro", lancamento.getDataCadastro() == null ? null : lancamento.getDataCadastro().toString());
+        json.writeNumberField("usuario", lancamento.getUsuario().getId());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private String texto(Object valor) {
+        return valor == null ? "" : valor.toString();
+    }
+
+    // Aspas só quando a descrição tem separador, aspas ou quebra de linha
+    private String campoCsv(String valor) {
+        if(valor == null){
+            return "";
+        }
+        if(valor.indexOf(';') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0){
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,68 @@
+package com.aroque.minhasfinancas.service.Impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtro de Bloom de tamanho fixo para ids de token
+// Responde "com certeza não está" sem tocar no conjunto exato, que só é consultado quando o filtro diz "talvez"
+// Leitura e escrita sem lock; como não dá para remover, quem usa recria o filtro ao descartar ids expirados
+final class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final int quantidadeBits;
+    private final int quantidadeHashes;
+
+    // Calculado para a capacidade esperada e a taxa de falso positivo desejada
+    FiltroBloom(int capacidade, double falsoPositivo) {
+        int n = Math.max(1, capacidade);
+        long m = (long) Math.ceil(-n * Math.log(falsoPositivo) / (Math.log(2) * Math.log(2)));
+        this.quantidadeBits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+        this.quantidadeHashes = Math.max(1, (int) Math.round((double) quantidadeBits / n * Math.log(2)));
+        this.bits = new AtomicLongArray((quantidadeBits + 63) / 64);
+    }
+
+    void adicionar(String valor) {
+        long hash = espalhar(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= quantidadeHashes; i++) {
+            int bit = indice(h1 + i * h2);
+            int palavra = bit >>> 6;
+            long mascara = 1L << bit;
+            long atual;
+            do {
+                atual = bits.get(palavra);
+                if ((atual & mascara) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(palavra, atual, atual | mascara));
+        }
+    }
+
+    boolean podeConter(String valor) {
+        long hash = espalhar(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= quantidadeHashes; i++) {
+            int bit = indice(h1 + i * h2);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indice(int hash) {
+        return (hash & Integer.MAX_VALUE) % quantidadeBits;
+    }
+
+    // Dois hashes de 32 bits a partir de um só (Kirsch-Mitzenmacher), com a mistura final do MurmurHash3
+    private static long espalhar(String valor) {
+        long h = valor.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,149 @@
+package com.aroque.minhasfinancas.service.Impl;
+
+import com.aroque.minhasfinancas.dto.ErroLoteDto;
+import com.aroque.minhasfinancas.dto.ImportacaoResultadoDto;
+import com.aroque.minhasfinancas.dto.LoteResultadoDto;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.exception.RegraNegocioExecption;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.service.ImportacaoExtratoService;
+import com.aroque.minhasfinancas.service.LancamentoService;
+import com.aroque.minhasfinancas.service.UsuarioService;
+import com.aroque.minhasfinancas.service.importacao.LeitorExtrato;
+import com.aroque.minhasfinancas.service.importacao.LeitorExtratoCsv;
+import com.aroque.minhasfinancas.service.importacao.LeitorExtratoOfx;
+import com.aroque.minhasfinancas.service.importacao.TransacaoExtrato;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Service
+public class ImportacaoExtratoServiceImpl implements ImportacaoExtratoService {
+
+    // Cada bloco é gravado na sua própria transação (LancamentoService.salvarLote)
+    // Só um bloco fica na memória por vez, independente do tamanho do arquivo
+    static final int TAMANHO_BLOCO = 500;
+
+    static final int MAXIMO_ERROS = 100;
+
+    @Autowired
+    LancamentoService lancamentoService;
+
+    @Autowired
+    UsuarioService usuarioService;
+
+    public ImportacaoExtratoServiceImpl(LancamentoService lancamentoService, UsuarioService usuarioService) {
+        this.lancamentoService = lancamentoService;
+        this.usuarioService = usuarioService;
+    }
+
+    @Override
+    public ImportacaoResultadoDto importar(InputStream extrato, String formato, Charset charset, Long idUsuario) throws IOException {
+        UsuarioModel usuario = usuarioService.obterPorId(idUsuario)
+                .orElseThrow(() -> new RegraNegocioExecption("Usuário não encontrado para o Id informado"));
+
+        long inicio = System.nanoTime();
+        long lidos = 0;
+        long inseridos = 0;
+        long rejeitados = 0;
+        List<ErroLoteDto> erros = new ArrayList<>();
+
+        List<LancamentoModel> bloco = new ArrayList<>(TAMANHO_BLOCO);
+        List<Long> linhasDoBloco = new ArrayList<>(TAMANHO_BLOCO);
+
+        try(LeitorExtrato leitor = abrir(extrato, formato, charset)){
+            while(true){
+                TransacaoExtrato transacao;
+                try{
+                    transacao = leitor.proxima();
+                } catch (RegraNegocioExecption e){
+                    lidos++;
+                    rejeitados++;
+                    adicionarErro(erros, new ErroLoteDto((int) leitor.posicao(), e.getMessage()));
+                    continue;
+                }
+                if(transacao == null){
+                    break;
+                }
+                lidos++;
+                bloco.add(converter(transacao, usuario));
+                linhasDoBloco.add(transacao.getLinha());
+
+                if(bloco.size() == TAMANHO_BLOCO){
+                    LoteResultadoDto resultado = gravar(bloco, linhasDoBloco, erros);
+                    inseridos += resultado.getInseridos();
+                    rejeitados += resultado.getErros().size();
+                    log.info("Importação do usuário {}: {} lidos, {} inseridos, {} lançamentos/s",
+                            idUsuario, lidos, inseridos, String.format("%.0f", porSegundo(lidos, inicio)));
+                }
+            }
+        }
+        if(!bloco.isEmpty()){
+            LoteResultadoDto resultado = gravar(bloco, linhasDoBloco, erros);
+            inseridos += resultado.getInseridos();
+            rejeitados += resultado.getErros().size();
+        }
+
+        long duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Importação do usuário {} concluída: {} lidos, {} inseridos, {} rejeitados em {} ms",
+                idUsuario, lidos, inseridos, rejeitados, duracaoMs);
+        return new ImportacaoResultadoDto(lidos, inseridos, rejeitados, erros, duracaoMs, porSegundo(lidos, inicio));
+    }
+
+    private LeitorExtrato abrir(InputStream extrato, String formato, Charset charset) throws IOException {
+        BufferedReader leitor = new BufferedReader(new InputStreamReader(extrato, charset));
+        if("csv".equalsIgnoreCase(formato)){
+            return new LeitorExtratoCsv(leitor);
+        }
+        if("ofx".equalsIgnoreCase(formato)){
+            return new LeitorExtratoOfx(leitor);
+        }
+        throw new RegraNegocioExecption("Formato de extrato não suportado, use csv ou ofx.");
+    }
+
+    // Mesmas regras do cadastro: a validação fica no LancamentoService.salvarLote
+    private LancamentoModel converter(TransacaoExtrato transacao, UsuarioModel usuario) {
+        LancamentoModel lancamento = new LancamentoModel();
+        lancamento.setDescricao(transacao.getDescricao());
+        lancamento.setAno(transacao.getData().getYear());
+        lancamento.setMes(transacao.getData().getMonthValue());
+        lancamento.setValor(transacao.getValor().abs());
+        lancamento.setTipo(transacao.getValor().signum() < 0 ? TipoLancamentoEnum.DESPESA : TipoLancamentoEnum.RECEITA);
+        lancamento.setDataCadastro(LocalDate.now());
+        lancamento.setUsuario(usuario);
+        return lancamento;
+    }
+
+    private LoteResultadoDto gravar(List<LancamentoModel> bloco, List<Long> linhasDoBloco, List<ErroLoteDto> erros) {
+        LoteResultadoDto resultado = lancamentoService.salvarLote(bloco);
+        for(ErroLoteDto erro : resultado.getErros()){
+            // Troca a posição dentro do bloco pela linha do arquivo
+            adicionarErro(erros, new ErroLoteDto(linhasDoBloco.get(erro.getIndice()).intValue(), erro.getMensagem()));
+        }
+        bloco.clear();
+        linhasDoBloco.clear();
+        return resultado;
+    }
+
+    private void adicionarErro(List<ErroLoteDto> erros, ErroLoteDto erro) {
+        if(erros.size() < MAXIMO_ERROS){
+            erros.add(erro);
+        }
+    }
+
+    private double porSegundo(long quantidade, long inicioNanos) {
+        double segundos = (System.nanoTime() - inicioNanos) / 1_000_000_000.0;
+        return segundos > 0 ? quantidade / segundos : 0;
+    }
+}
@@ -1,30 +1,99 @@
 package com.aroque.minhasfinancas.service.Impl;
 
+import com.aroque.minhasfinancas.dto.TokenVerificadoDto;
+import com.aroque.minhasfinancas.exception.ErroAutentificacao;
 import com.aroque.minhasfinancas.model.UsuarioModel;
 import com.aroque.minhasfinancas.service.JwtService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class JwtServiceImpl implements JwtService {
 
+    // Claim que separa o refresh token do token de acesso, para um não ser aceito no lugar do outro
+    static final String TIPO = "tipo";
+    static final String TIPO_REFRESH = "refresh";
+
+    // Instante de emissão em milissegundos: o iat só tem segundos, e a revogação precisa separar
+    // um token emitido logo depois dela, no mesmo segundo, dos emitidos antes
+    static final String EMITIDO_EM = "emitidoEm";
+
     // Esses values estão no application.properties
     @Value("${jwt.expiracao}")
     private String expiracao;
 
-    @Value("jwt.chave-assinatura")
+    // Em minutos, o refresh token vive bem mais que o token de acesso
+    @Value("${jwt.refresh.expiracao:20160}")
+    private long expiracaoRefresh;
+
+    @Value("${jwt.chave-assinatura}")
     private String chaveAssinatura;
 
+    // Rotação: todas as chaves que ainda conferem tokens e o kid da que assina os novos
+    @Value("${jwt.chaves:}")
+    private String chaves;
+
+    @Value("${jwt.chave-atual:}")
+    private String chaveAtual;
+
+    @Value("${jwt.cache.tamanho-maximo:10000}")
+    private long tamanhoMaximoCache;
+
+    // Tokens que já passaram pela verificação de assinatura, pelo hash do token, até a hora em que expiram
+    private Cache<String, TokenVerificadoDto> tokensVerificados;
+
+    private ChavesAssinatura chavesAssinatura;
+
+    @PostConstruct
+    void iniciar() {
+        chavesAssinatura = ChavesAssinatura.ler(chaves, chaveAtual, chaveAssinatura);
+        criarCache();
+    }
+
+    private void criarCache() {
+        tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximoCache)
+                .expireAfter(new Expiry<String, TokenVerificadoDto>() {
+                    @Override
+                    public long expireAfterCreate(String chave, TokenVerificadoDto token, long agora) {
+                        return Math.max(0, Duration.between(Instant.now(), token.getExpiracao()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String chave, TokenVerificadoDto token, long agora, long duracaoAtual) {
+                        return duracaoAtual;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String chave, TokenVerificadoDto token, long agora, long duracaoAtual) {
+                        return duracaoAtual;
+                    }
+                })
+                .build();
+    }
+
 
     @Override
     public String gerarToken(UsuarioModel usuario) {
@@ -39,45 +108,117 @@ public class JwtServiceImpl implements JwtService {
                                                     .format(DateTimeFormatter.ofPattern("HH:mm"));
 
 
+        Date emitidoEm = new Date();
         String token = Jwts.builder()
+                            .setIssuedAt(emitidoEm)
                             .setExpiration(data)
                             .setSubject(usuario.getEmail())
+                            .setId(UUID.randomUUID().toString())
                             .claim("userid", usuario.getId())
                             .claim("nome", usuario.getNome())
                             .claim("horaExpiracao", horaExpiracaoToken)
-                            .signWith(SignatureAlgorithm.HS512, chaveAssinatura)
+                            .claim(EMITIDO_EM, emitidoEm.getTime())
+                            .setHeaderParam(JwsHeader.KEY_ID, chavesAssinatura.getIdAtual())
+                            .signWith(ChavesAssinatura.ALGORITMO, chavesAssinatura.getAtual())
                             .compact();
         return token;
     }
 
+    @Override
+    public String gerarRefreshToken(UsuarioModel usuario) {
+        Instant agora = Instant.now();
+        Date expiraEm = Date.from(agora.plus(Duration.ofMinutes(expiracaoRefresh)));
+
+        // Cada refresh token tem um id próprio, que é revogado quando ele é trocado
+        return Jwts.builder()
+                .setIssuedAt(Date.from(agora))
+                .setExpiration(expiraEm)
+                .setSubject(usuario.getEmail())
+                .setId(UUID.randomUUID().toString())
+                .claim("userid", usuario.getId())
+                .claim("nome", usuario.getNome())
+                .claim(TIPO, TIPO_REFRESH)
+                .claim(EMITIDO_EM, agora.toEpochMilli())
+                .setHeaderParam(JwsHeader.KEY_ID, chavesAssinatura.getIdAtual())
+                .signWith(ChavesAssinatura.ALGORITMO, chavesAssinatura.getAtual())
+                .compact();
+    }
+
     @Override
     public Claims obterClaims(String token) throws ExpiredJwtException {
         // Claims são as informações contidas no token
-        return Jwts.parser().setSigningKey(chaveAssinatura).parseClaimsJws(token).getBody();
+        // A chave já decodificada é escolhida pelo kid do cabeçalho
+        return Jwts.parser().setSigningKeyResolver(chavesAssinatura).parseClaimsJws(token).getBody();
     }
 
     @Override
-    public boolean isTokenValido(String token) {
+    public Optional<TokenVerificadoDto> verificar(String token) {
+        // A assinatura só é conferida na primeira vez que o token aparece, depois vem do cache
+        TokenVerificadoDto verificado = tokensVerificados.get(hash(token), chave -> verificarAssinatura(token));
+        if(verificado == null || verificado.isRefresh() || !Instant.now().isBefore(verificado.getExpiracao())){
+            return Optional.empty();
+        }
+        return Optional.of(verificado);
+    }
+
+    @Override
+    public Optional<TokenVerificadoDto> verificarRefresh(String token) {
+        // O refresh token aparece uma vez só, então não vale a pena guardar no cache
+        TokenVerificadoDto verificado = verificarAssinatura(token);
+        if(verificado == null || !verificado.isRefresh() || !Instant.now().isBefore(verificado.getExpiracao())){
+            return Optional.empty();
+        }
+        return Optional.of(verificado);
+    }
+
+    // Nulo quando o token é inválido, assim ele não entra no cache
+    private TokenVerificadoDto verificarAssinatura(String token) {
         try{
             Claims claims = obterClaims(token);
-            java.util.Date dataExp = claims.getExpiration();
-
-            // Transformando em local date time
-            LocalDateTime dataExpiracao = dataExp.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+            if(claims.getExpiration() == null){
+                return null;
+            }
+            Number idUsuario = claims.get("userid", Number.class);
+            return new TokenVerificadoDto(
+                    claims.getSubject(),
+                    idUsuario == null ? null : idUsuario.longValue(),
+                    claims.get("nome", String.class),
+                    claims.getExpiration().toInstant(),
+                    emitidoEm(claims),
+                    claims.getId(),
+                    TIPO_REFRESH.equals(claims.get(TIPO, String.class)));
+        } catch (JwtException | IllegalArgumentException e){
+            return null;
+        }
+    }
 
-            // A data hora atual não é depois da expiração
-            boolean dataHoraAtualIsAfterDataExpiracao = LocalDateTime.now().isAfter(dataExpiracao);
-            return !dataHoraAtualIsAfterDataExpiracao;
+    // Tokens emitidos antes do claim próprio só têm o iat, truncado no segundo
+    private Instant emitidoEm(Claims claims) {
+        Number emitidoEm = claims.get(EMITIDO_EM, Number.class);
+        if(emitidoEm != null){
+            return Instant.ofEpochMilli(emitidoEm.longValue());
+        }
+        return claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant();
+    }
 
-        } catch (ExpiredJwtException e ){
-            return false;
+    private String hash(String token) {
+        try{
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
         }
+    }
 
+    @Override
+    public boolean isTokenValido(String token) {
+        return verificar(token).isPresent();
     }
 
     @Override
     public String obterLoginUsuario(String token) {
-        Claims claims = obterClaims(token);
-        return claims.getSubject();
+        return verificar(token)
+                .map(TokenVerificadoDto::getEmail)
+                .orElseThrow(() -> new ErroAutentificacao("Token inválido ou expirado."));
     }
 }
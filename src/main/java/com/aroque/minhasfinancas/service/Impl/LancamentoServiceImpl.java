@@ -1,31 +1,118 @@
 package com.aroque.minhasfinancas.service.Impl;
 
+import com.aroque.minhasfinancas.dto.ErroLoteDto;
+import com.aroque.minhasfinancas.dto.EventoLancamentoDto;
+import com.aroque.minhasfinancas.dto.LancamentoDto;
+import com.aroque.minhasfinancas.dto.LancamentoFiltroDto;
+import com.aroque.minhasfinancas.dto.LoteResultadoDto;
+import com.aroque.minhasfinancas.dto.PaginaDto;
+import com.aroque.minhasfinancas.dto.ResumoMensalDto;
+import com.aroque.minhasfinancas.dto.SelecaoLancamentosDto;
 import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoEventoLancamentoEnum;
 import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.exception.ErroConcorrencia;
+import com.aroque.minhasfinancas.exception.ErroNaoEncontrado;
 import com.aroque.minhasfinancas.exception.RegraNegocioExecption;
+import com.aroque.minhasfinancas.model.LancamentoAlteracaoModel;
 import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.LancamentoRemocaoModel;
+import com.aroque.minhasfinancas.model.LancamentoTrigramaModel;
+import com.aroque.minhasfinancas.model.SaldoUsuarioModel;
+import com.aroque.minhasfinancas.model.SincroniaUsuarioModel;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.repositories.LancamentoAlteracaoRepository;
+import com.aroque.minhasfinancas.repositories.LancamentoCursor;
+import com.aroque.minhasfinancas.repositories.LancamentoRemocaoRepository;
 import com.aroque.minhasfinancas.repositories.LancamentoRepository;
+import com.aroque.minhasfinancas.repositories.LancamentoRollupRepository;
+import com.aroque.minhasfinancas.repositories.LancamentoSpecifications;
+import com.aroque.minhasfinancas.repositories.LancamentoTrigramaRepository;
+import com.aroque.minhasfinancas.repositories.SaldoUsuarioRepository;
+import com.aroque.minhasfinancas.repositories.SincroniaUsuarioRepository;
 import com.aroque.minhasfinancas.service.LancamentoService;
+import com.aroque.minhasfinancas.util.Trigramas;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class LancamentoServiceImpl implements LancamentoService {
 
+    // Maior página que um cliente pode pedir, para nenhuma consulta carregar o histórico inteiro na memória
+    public static final int LIMITE_MAXIMO_PAGINA = 1000;
+
+    // Igual ao hibernate.jdbc.batch_size e ao allocationSize da sequence de lançamento
+    public static final int TAMANHO_LOTE = 50;
+
     @Autowired
     LancamentoRepository repository;
 
-    public LancamentoServiceImpl(LancamentoRepository repository) {
+    @Autowired
+    SaldoUsuarioRepository saldoRepository;
+
+    @Autowired
+    LancamentoTrigramaRepository trigramaRepository;
+
+    @Autowired
+    LancamentoAlteracaoRepository alteracaoRepository;
+
+    @Autowired
+    LancamentoRollupRepository rollupRepository;
+
+    @Autowired
+    SincroniaUsuarioRepository sincroniaRepository;
+
+    @Autowired
+    LancamentoRemocaoRepository remocaoRepository;
+
+    // Eventos de lançamento criado/alterado/deletado, entregues por SSE só depois do commit
+    @Autowired
+    ApplicationEventPublisher eventos;
+
+    // Cada lote da indexação inicial na sua própria transação
+    private final TransactionTemplate escrita;
+
+    public LancamentoServiceImpl(LancamentoRepository repository, SaldoUsuarioRepository saldoRepository,
+                                 LancamentoTrigramaRepository trigramaRepository,
+                                 LancamentoAlteracaoRepository alteracaoRepository,
+                                 LancamentoRollupRepository rollupRepository,
+                                 SincroniaUsuarioRepository sincroniaRepository,
+                                 LancamentoRemocaoRepository remocaoRepository,
+                                 ApplicationEventPublisher eventos, PlatformTransactionManager transactionManager) {
         this.repository = repository;
+        this.saldoRepository = saldoRepository;
+        this.trigramaRepository = trigramaRepository;
+        this.alteracaoRepository = alteracaoRepository;
+        this.rollupRepository = rollupRepository;
+        this.sincroniaRepository = sincroniaRepository;
+        this.remocaoRepository = remocaoRepository;
+        this.eventos = eventos;
+        this.escrita = new TransactionTemplate(transactionManager);
     }
 
 
@@ -35,7 +122,46 @@ public class LancamentoServiceImpl implements LancamentoService {
     public LancamentoModel salvar(LancamentoModel lancamento) {
         validar(lancamento);
         lancamento.setStatus(StatusLancamentoEnum.PENDENTE);
-        return repository.save(lancamento);
+        lancamento.setSequencia(reservarSequencias(idUsuarioDo(lancamento), 1));
+        LancamentoModel salvo = repository.save(lancamento);
+        // Marcando antes de mexer no saldo: se ele precisar ser recalculado, o período já sai dos lançamentos
+        marcarAlteracao(salvo);
+        ajustarSaldo(idUsuarioDo(salvo), valorNoSaldo(salvo));
+        indexarDescricao(salvo);
+        publicar(TipoEventoLancamentoEnum.CRIADO, salvo);
+        return salvo;
+    }
+
+
+    @Override
+    @Transactional
+    public LoteResultadoDto salvarLote(List<LancamentoModel> lancamentos) {
+        List<ErroLoteDto> erros = new ArrayList<>();
+        List<LancamentoModel> validos = new ArrayList<>();
+        for(int i = 0; i < lancamentos.size(); i++){
+            LancamentoModel lancamento = lancamentos.get(i);
+            try{
+                validar(lancamento);
+                // Igual ao salvar, todo lançamento novo entra como PENDENTE e por isso não mexe no saldo
+                lancamento.setStatus(StatusLancamentoEnum.PENDENTE);
+                validos.add(lancamento);
+            } catch (RegraNegocioExecption e){
+                erros.add(new ErroLoteDto(i, e.getMessage()));
+            }
+        }
+
+        numerarSequencias(validos);
+        for(int inicio = 0; inicio < validos.size(); inicio += TAMANHO_LOTE){
+            List<LancamentoModel> lote = validos.subList(inicio, Math.min(inicio + TAMANHO_LOTE, validos.size()));
+            repository.inserirLote(lote);
+            indexarDescricoes(lote);
+        }
+        marcarAlteracoes(validos);
+        // Um evento por usuário com os ids criados, em vez de um por lançamento
+        validos.stream().filter(lancamento -> idUsuarioDo(lancamento) != null)
+               .collect(Collectors.groupingBy(this::idUsuarioDo, Collectors.mapping(LancamentoModel::getId, Collectors.toList())))
+               .forEach((idUsuario, ids) -> publicar(TipoEventoLancamentoEnum.CRIADO, idUsuario, ids));
+        return new LoteResultadoDto(lancamentos.size(), validos.size(), erros);
     }
 
 
@@ -45,7 +171,42 @@ public class LancamentoServiceImpl implements LancamentoService {
         // Garantindo que vai passar um lancamento com ID
         Objects.requireNonNull(lancamento.getId());
         validar(lancamento);
-        return repository.save(lancamento);
+
+        // Lendo o estado gravado antes do merge, para saber quanto esse lançamento já contava no saldo
+        // Não pelo findById: se o lançamento já estiver carregado ele volta do contexto, com as alterações de quem chamou
+        Optional<LancamentoModel> atual = obterGravado(lancamento.getId());
+        Long idUsuarioAnterior = atual.map(this::idUsuarioDo).orElse(null);
+        BigDecimal valorAnterior = atual.map(this::valorNoSaldo).orElse(BigDecimal.ZERO);
+        String descricaoAnterior = atual.map(LancamentoModel::getDescricao).orElse(null);
+
+        lancamento.setSequencia(reservarSequencias(idUsuarioDo(lancamento), 1));
+        LancamentoModel salvo = repository.save(lancamento);
+        // O período antigo e o novo, caso o ano ou o mês tenham mudado
+        atual.ifPresent(this::marcarAlteracao);
+        marcarAlteracao(salvo);
+
+        Long idUsuario = idUsuarioDo(salvo);
+        if(Objects.equals(idUsuarioAnterior, idUsuario)){
+            ajustarSaldo(idUsuario, valorNoSaldo(salvo).subtract(valorAnterior));
+        } else {
+            ajustarSaldo(idUsuarioAnterior, valorAnterior.negate());
+            ajustarSaldo(idUsuario, valorNoSaldo(salvo));
+            // Para o usuário anterior o lançamento deixou de existir
+            registrarRemocao(salvo.getId(), idUsuarioAnterior);
+        }
+
+        // Mudar só o status (o caso mais comum) não mexe no índice da descrição
+        boolean mesmaDescricao = Objects.equals(Trigramas.normalizar(descricaoAnterior), Trigramas.normalizar(salvo.getDescricao()));
+        if(!atual.isPresent() || !mesmaDescricao || !Objects.equals(idUsuarioAnterior, idUsuario)){
+            trigramaRepository.removerDoLancamento(salvo.getId());
+            indexarDescricao(salvo);
+        }
+
+        publicar(TipoEventoLancamentoEnum.ATUALIZADO, salvo);
+        if(idUsuarioAnterior != null && !Objects.equals(idUsuarioAnterior, idUsuario)){
+            publicar(TipoEventoLancamentoEnum.DELETADO, idUsuarioAnterior, Collections.singletonList(salvo.getId()));
+        }
+        return salvo;
     }
 
 
@@ -54,32 +215,214 @@ public class LancamentoServiceImpl implements LancamentoService {
     public void deletar(LancamentoModel lancamento) {
         // Garantindo que vai passar um lancamento com ID
         Objects.requireNonNull(lancamento.getId());
+
+        Optional<LancamentoModel> atual = obterGravado(lancamento.getId());
+        Long idUsuarioAnterior = atual.map(this::idUsuarioDo).orElse(null);
+        BigDecimal valorAnterior = atual.map(this::valorNoSaldo).orElse(BigDecimal.ZERO);
+
+        registrarRemocao(lancamento.getId(), idUsuarioAnterior);
         repository.delete(lancamento);
+        atual.ifPresent(this::marcarAlteracao);
+        ajustarSaldo(idUsuarioAnterior, valorAnterior.negate());
+        trigramaRepository.removerDoLancamento(lancamento.getId());
+        if(idUsuarioAnterior != null){
+            publicar(TipoEventoLancamentoEnum.DELETADO, idUsuarioAnterior, Collections.singletonList(lancamento.getId()));
+        }
+    }
+
+
+    @Override
+    @Transactional
+    public LancamentoModel atualizar(Long idUsuario, LancamentoModel lancamento) {
+        Objects.requireNonNull(lancamento.getId());
+        if(!idUsuario.equals(idUsuarioDo(lancamento))){
+            throw new RegraNegocioExecption("Não é possível transferir o lançamento para outro usuário.");
+        }
+        validar(lancamento);
+
+        // Sem versão (cliente antigo) ou indo para EFETIVADO o saldo muda, então não tem atalho
+        boolean semEfeitoNoSaldo = lancamento.getStatus() != null && lancamento.getStatus() != StatusLancamentoEnum.EFETIVADO;
+        if(lancamento.getVersao() != null && semEfeitoNoSaldo){
+            // Marca o período atual antes do UPDATE, sem trazer o lançamento para a aplicação
+            alteracaoRepository.marcarPeriodoDoLancamento(lancamento.getId(), idUsuario);
+            lancamento.setSequencia(reservarSequencias(idUsuario, 1));
+            if(repository.atualizarSemLeitura(lancamento) == 1){
+                lancamento.setVersao(lancamento.getVersao() + 1);
+                marcarAlteracao(lancamento);
+                publicar(TipoEventoLancamentoEnum.ATUALIZADO, lancamento);
+                return lancamento;
+            }
+        }
+
+        LancamentoModel atual = obterDoUsuario(idUsuario, lancamento.getId(), lancamento.getVersao());
+        lancamento.setVersao(atual.getVersao());
+        if(lancamento.getStatus() == null){
+            lancamento.setStatus(atual.getStatus());
+        }
+        return atualizar(lancamento);
+    }
+
+    @Override
+    @Transactional
+    public void deletar(Long idUsuario, Long id, Long versao) {
+        alteracaoRepository.marcarPeriodoDoLancamento(id, idUsuario);
+        // A sequência antes do DELETE: todo caminho trava o contador do usuário antes das linhas de lançamento
+        Long sequencia = reservarSequencias(idUsuario, 1);
+        if(repository.deletarSemLeitura(id, idUsuario, versao) == 1){
+            remocaoRepository.save(remocao(id, idUsuario, sequencia));
+            trigramaRepository.removerDoLancamento(id);
+            publicar(TipoEventoLancamentoEnum.DELETADO, idUsuario, Collections.singletonList(id));
+            return;
+        }
+        deletar(obterDoUsuario(idUsuario, id, versao));
+    }
+
+    // O lançamento como está no banco, fora do contexto de persistência
+    private Optional<LancamentoModel> obterGravado(Long id) {
+        return repository.obterGravadoPorId(id).map(dto -> LancamentoModel.builder()
+                .id(dto.getId())
+                .descricao(dto.getDescricao())
+                .mes(dto.getMes())
+                .ano(dto.getAno())
+                .valor(dto.getValor())
+                .usuario(dto.getUsuario() == null ? null : UsuarioModel.builder().id(dto.getUsuario()).build())
+                .tipo(dto.getTipo() == null ? null : TipoLancamentoEnum.valueOf(dto.getTipo()))
+                .status(dto.getStatus() == null ? null : StatusLancamentoEnum.valueOf(dto.getStatus()))
+                .versao(dto.getVersao())
+                .build());
+    }
+
+    // Distingue por que o comando condicional não alterou nada
+    private LancamentoModel obterDoUsuario(Long idUsuario, Long id, Long versao) {
+        LancamentoModel atual = repository.findById(id)
+                .filter(lancamento -> idUsuario.equals(idUsuarioDo(lancamento)))
+                .orElseThrow(() -> new ErroNaoEncontrado("Lançamento não encontrado na base de Dados"));
+        if(versao != null && !versao.equals(atual.getVersao())){
+            throw new ErroConcorrencia("O lançamento foi alterado por outra pessoa, carregue-o novamente.");
+        }
+        return atual;
     }
 
 
     @Override
     @Transactional(readOnly = true)
     public List<LancamentoModel> buscar(LancamentoModel lancamentoFiltro) {
-        // Vai pegar as propriedades que estão populadas dentro de lancamento filtro
-        // e vai fazer uma configuração para que quando chamarmios o metodo de buscar
-        // ele leva em consideração somente as propriedades que foram preenchidas (ano, mes, descrição, etc)
-        Example example = Example.of(lancamentoFiltro,
-                // Aq serve para fazermos algumas configurações na busca
-                // ignorar se a letra estar maiuscula ou minuscula e se contem determinada letra na palavra buscada
-                ExampleMatcher.matching()
-                              .withIgnoreCase()
-                              .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
-        return repository.findAll(example);
+        // Leva em consideração somente as propriedades que foram preenchidas (ano, mes, descrição, etc)
+        LancamentoFiltroDto filtro = LancamentoFiltroDto.builder()
+                .usuario(idUsuarioDo(lancamentoFiltro))
+                .descricao(lancamentoFiltro.getDescricao())
+                .mes(lancamentoFiltro.getMes())
+                .ano(lancamentoFiltro.getAno())
+                .tipo(lancamentoFiltro.getTipo())
+                .build();
+        return buscar(filtro);
+    }
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<LancamentoModel> buscar(LancamentoFiltroDto filtro) {
+        // A descrição é procurada pelo índice de trigramas, ignorando maiúsculas e minúsculas
+        validarFiltro(filtro);
+        return repository.findAll(LancamentoSpecifications.doFiltro(filtro));
     }
 
 
     @Override
+    @Transactional(readOnly = true)
+    public List<LancamentoDto> listar(LancamentoFiltroDto filtro) {
+        validarFiltro(filtro);
+        return repository.listar(LancamentoSpecifications.doFiltro(filtro));
+    }
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaDto<LancamentoDto> buscarPagina(LancamentoFiltroDto filtro, String cursor, int limite, boolean decrescente, boolean contarTotal) {
+        if(limite < 1 || limite > LIMITE_MAXIMO_PAGINA){
+            throw new RegraNegocioExecption("Informe um limite entre 1 e " + LIMITE_MAXIMO_PAGINA + ".");
+        }
+        validarFiltro(filtro);
+        LancamentoCursor posicao = cursor == null ? null : LancamentoCursor.decodificar(cursor);
+        Specification<LancamentoModel> especificacao = LancamentoSpecifications.doFiltro(filtro);
+
+        // Busca um a mais só para saber se existe próxima página, sem precisar de COUNT
+        List<LancamentoDto> lancamentos = repository.listarPagina(especificacao, posicao, limite + 1, decrescente);
+        String proximoCursor = null;
+        if(lancamentos.size() > limite){
+            lancamentos = lancamentos.subList(0, limite);
+            proximoCursor = LancamentoCursor.depoisDe(lancamentos.get(limite - 1)).codificar();
+        }
+
+        Long total = contarTotal ? repository.count(especificacao) : null;
+        return new PaginaDto<>(new ArrayList<>(lancamentos), proximoCursor, total);
+    }
+
+
+    @Override
+    @Transactional
     public void atualizarStatus(LancamentoModel lancamento, StatusLancamentoEnum status) {
         lancamento.setStatus(status);
         atualizar(lancamento);
     }
 
+    @Override
+    @Transactional
+    public int atualizarStatus(SelecaoLancamentosDto selecao, StatusLancamentoEnum status) {
+        if(selecao.getUsuario() == null){
+            throw new RegraNegocioExecption("Informe o usuário dos lançamentos.");
+        }
+        if(status == null){
+            throw new RegraNegocioExecption("Informe um status válido.");
+        }
+        if(selecao.getIds() != null && selecao.getIds().isEmpty()){
+            return 0;
+        }
+
+        // A sequência é reservada antes de somar: o UPDATE da sincronia trava a linha do usuário até o commit,
+        // então duas alterações em lote do mesmo usuário não somam os mesmos lançamentos (a segunda espera e
+        // só lê depois do commit da primeira, inclusive no REPEATABLE READ, que tira o snapshot na primeira leitura)
+        Long sequencia = reservarSequencias(selecao.getUsuario(), 1);
+
+        // O quanto o saldo muda é somado antes, com o mesmo filtro do UPDATE:
+        // efetivar soma os que ainda não contavam, sair de EFETIVADO tira os que contavam
+        BigDecimal diferenca = status == StatusLancamentoEnum.EFETIVADO
+                ? repository.somarComSinal(selecao, false)
+                : repository.somarComSinal(selecao, true).negate();
+
+        // Marca a mais só faz o compactador refazer um período que não mudou
+        if(selecao.getIds() != null){
+            alteracaoRepository.marcarPeriodosDosLancamentos(selecao.getUsuario(), selecao.getIds());
+        } else {
+            boolean periodo = selecao.getAno() != null && selecao.getMes() != null;
+            alteracaoRepository.save(LancamentoAlteracaoModel.builder().idUsuario(selecao.getUsuario())
+                    .ano(periodo ? selecao.getAno() : null).mes(periodo ? selecao.getMes() : null).build());
+        }
+
+        int atualizados = repository.atualizarStatus(selecao, status, sequencia);
+        if(atualizados > 0){
+            ajustarSaldo(selecao.getUsuario(), diferenca);
+            publicar(TipoEventoLancamentoEnum.ATUALIZADO, selecao.getUsuario(),
+                    selecao.getIds() != null ? selecao.getIds() : Collections.emptyList());
+        }
+        return atualizados;
+    }
+
+    // Faixa invertida não encontraria nada, melhor avisar do que devolver uma lista vazia
+    private void validarFiltro(LancamentoFiltroDto filtro) {
+        if(filtro.getDe() != null && filtro.getAte() != null && filtro.getDe() > filtro.getAte()){
+            throw new RegraNegocioExecption("O período inicial não pode ser depois do final.");
+        }
+        if(filtro.getValorMinimo() != null && filtro.getValorMaximo() != null
+                && filtro.getValorMinimo().compareTo(filtro.getValorMaximo()) > 0){
+            throw new RegraNegocioExecption("O valor mínimo não pode ser maior que o máximo.");
+        }
+        if(filtro.getCadastroDe() != null && filtro.getCadastroAte() != null
+                && filtro.getCadastroDe().isAfter(filtro.getCadastroAte())){
+            throw new RegraNegocioExecption("A data de cadastro inicial não pode ser depois da final.");
+        }
+    }
+
     @Override
     public void validar(LancamentoModel lancamento) {
 
@@ -117,20 +460,262 @@ public class LancamentoServiceImpl implements LancamentoService {
         return repository.findById(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<LancamentoDto> obterDtoPorId(Long id) {
+        return repository.obterDtoPorId(id);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public BigDecimal obterSaldoPorUsuario(Long id) {
+        return lerSaldo(id);
+    }
+
+    // Transação de escrita só para o RoteadorDataSource mandar a leitura para o primário, nada é gravado
+    @Override
+    @Transactional
+    public BigDecimal obterSaldoNoPrimario(Long id) {
+        return lerSaldo(id);
+    }
 
-        BigDecimal receitas = repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(id, TipoLancamentoEnum.RECEITA, StatusLancamentoEnum.EFETIVADO);
-        BigDecimal despesas = repository.obterSaldoPorTipoLancamentoEUsuarioEStatus(id, TipoLancamentoEnum.DESPESA, StatusLancamentoEnum.EFETIVADO);
+    private BigDecimal lerSaldo(Long id) {
+        Optional<SaldoUsuarioModel> saldo = saldoRepository.findById(id);
+        if(saldo.isPresent()){
+            return saldo.get().getValor();
+        }
+        // Saldo ainda não materializado: soma os lançamentos sem gravar, a leitura pode ir para a réplica
+        // A linha é criada na primeira alteração que mexer no saldo (ajustarSaldo) ou no recalcularSaldo
+        return somarLancamentosEfetivados(id);
+    }
+
+    @Override
+    @Transactional
+    public BigDecimal recalcularSaldo(Long idUsuario) {
+        BigDecimal saldo = somarLancamentosEfetivados(idUsuario);
+        if(saldoRepository.definirSaldo(idUsuario, saldo) == 0 && !saldoRepository.inserirSeAusente(idUsuario, saldo)){
+            // Outra transação criou a linha entre o UPDATE e o INSERT
+            saldoRepository.definirSaldo(idUsuario, saldo);
+        }
+        return saldo;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResumoMensalDto> obterResumoAnual(Long idUsuario, Integer ano) {
+        // Lê do rollup e só soma os lançamentos dos meses alterados desde a última compactação
+        Map<String, BigDecimal> totais = new HashMap<>();
+        for(ResumoMensalDto linha : rollupRepository.obterResumoAnual(idUsuario, ano)){
+            totais.put(chaveResumo(linha.getMes(), linha.getTipo(), linha.getStatus()), linha.getTotal());
+        }
+
+        // Completando a grade para o cliente sempre receber os 12 meses com todos os tipos e status
+        List<ResumoMensalDto> resumo = new ArrayList<>();
+        for(int mes = 1; mes <= 12; mes++){
+            for(TipoLancamentoEnum tipo : TipoLancamentoEnum.values()){
+                for(StatusLancamentoEnum status : StatusLancamentoEnum.values()){
+                    BigDecimal total = totais.getOrDefault(chaveResumo(mes, tipo, status), BigDecimal.ZERO);
+                    resumo.add(new ResumoMensalDto(mes, tipo, status, total));
+                }
+            }
+        }
+        return resumo;
+    }
+
+    private String chaveResumo(Integer mes, TipoLancamentoEnum tipo, StatusLancamentoEnum status) {
+        return mes + ":" + tipo + ":" + status;
+    }
+
+    @Override
+    @Transactional
+    public void reindexarDescricoes(Long idUsuario) {
+        trigramaRepository.removerDoUsuario(idUsuario);
+
+        // Percorre os lançamentos do usuário em páginas projetadas: nenhuma entidade fica no contexto de persistência
+        Specification<LancamentoModel> doUsuario = LancamentoSpecifications.doFiltro(
+                LancamentoFiltroDto.builder().usuario(idUsuario).build());
+        LancamentoCursor cursor = null;
+        List<LancamentoDto> pagina;
+        do {
+            pagina = repository.listarPagina(doUsuario, cursor, LIMITE_MAXIMO_PAGINA, false);
+            reindexar(pagina);
+            if(!pagina.isEmpty()){
+                cursor = LancamentoCursor.depoisDe(pagina.get(pagina.size() - 1));
+            }
+        } while(pagina.size() == LIMITE_MAXIMO_PAGINA);
+    }
 
-        if(receitas == null){
-            receitas = BigDecimal.ZERO;
+    // Banco migrado com lançamentos anteriores ao índice de trigramas: indexa os que ainda não têm descrição normalizada
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexarDescricoesPendentes() {
+        long depoisDe = 0L;
+        int indexados = 0;
+        List<LancamentoDto> lote;
+        try {
+            do {
+                long inicio = depoisDe;
+                lote = escrita.execute(status -> {
+                    List<LancamentoDto> pendentes = repository.obterSemDescricaoNormalizada(inicio, PageRequest.of(0, LIMITE_MAXIMO_PAGINA));
+                    reindexar(pendentes);
+                    return pendentes;
+                });
+                if(!lote.isEmpty()){
+                    depoisDe = lote.get(lote.size() - 1).getId();
+                    indexados += lote.size();
+                }
+            } while(lote.size() == LIMITE_MAXIMO_PAGINA);
+        } catch (DataAccessException e){
+            // Outra instância subindo ao mesmo tempo indexou os mesmos lançamentos: os lotes já gravados ficam
+            log.warn("Indexação das descrições pendentes interrompida depois de {} lançamentos", indexados, e);
+            return;
         }
-        if(despesas == null){
-            despesas = BigDecimal.ZERO;
+        if(indexados > 0){
+            log.info("{} lançamentos sem descrição normalizada indexados", indexados);
         }
+    }
+
+    // Descrição normalizada e trigramas a partir da projeção, sem carregar nem versionar as entidades
+    private void reindexar(List<LancamentoDto> lancamentos) {
+        repository.normalizarDescricoes(lancamentos);
+        List<LancamentoTrigramaModel> trigramas = new ArrayList<>();
+        for(LancamentoDto lancamento : lancamentos){
+            if(lancamento.getUsuario() == null){
+                continue;
+            }
+            for(String trigrama : Trigramas.gerar(Trigramas.normalizar(lancamento.getDescricao()))){
+                trigramas.add(new LancamentoTrigramaModel(lancamento.getUsuario(), trigrama, lancamento.getId()));
+            }
+        }
+        trigramaRepository.inserirTodos(trigramas);
+    }
+
+    // Grava um registro por trigrama da descrição normalizada do lançamento
+    private void indexarDescricao(LancamentoModel lancamento) {
+        indexarDescricoes(Collections.singletonList(lancamento));
+    }
+
+    private void indexarDescricoes(List<LancamentoModel> lancamentos) {
+        List<LancamentoTrigramaModel> trigramas = new ArrayList<>();
+        for(LancamentoModel lancamento : lancamentos){
+            Long idUsuario = idUsuarioDo(lancamento);
+            if(lancamento.getId() == null || idUsuario == null){
+                continue;
+            }
+            for(String trigrama : Trigramas.gerar(Trigramas.normalizar(lancamento.getDescricao()))){
+                trigramas.add(new LancamentoTrigramaModel(idUsuario, trigrama, lancamento.getId()));
+            }
+        }
+        trigramaRepository.inserirTodos(trigramas);
+    }
+
+    // Usado só para montar ou corrigir o saldo materializado: rollup mais os períodos ainda não compactados
+    private BigDecimal somarLancamentosEfetivados(Long id) {
+        return rollupRepository.somarEfetivados(id);
+    }
+
+    // Marca os períodos alterados para o compactador refazer o rollup deles
+    private void marcarAlteracao(LancamentoModel lancamento) {
+        marcarAlteracoes(Collections.singletonList(lancamento));
+    }
+
+    private void marcarAlteracoes(List<LancamentoModel> lancamentos) {
+        Set<LancamentoAlteracaoModel> marcas = new LinkedHashSet<>();
+        for(LancamentoModel lancamento : lancamentos){
+            Long idUsuario = idUsuarioDo(lancamento);
+            if(idUsuario != null){
+                marcas.add(LancamentoAlteracaoModel.builder().idUsuario(idUsuario)
+                        .ano(lancamento.getAno()).mes(lancamento.getMes()).build());
+            }
+        }
+        if(!marcas.isEmpty()){
+            alteracaoRepository.saveAll(marcas);
+        }
+    }
+
+    // Avança o contador de sincronia do usuário e devolve a última sequência reservada
+    // O UPDATE trava a linha até o commit, então as sequências de um usuário são confirmadas em ordem
+    private Long reservarSequencias(Long idUsuario, int quantidade) {
+        if(idUsuario == null){
+            return 0L;
+        }
+        if(sincroniaRepository.avancar(idUsuario, quantidade) == 0){
+            // Primeira alteração do usuário depois da migração que criou a tabela
+            sincroniaRepository.save(SincroniaUsuarioModel.builder().idUsuario(idUsuario)
+                    .sequencia((long) quantidade).horizonte(0L).build());
+            return (long) quantidade;
+        }
+        return sincroniaRepository.obterSequencia(idUsuario);
+    }
+
+    // Uma reserva por usuário do lote, numerando os lançamentos em sequência
+    private void numerarSequencias(List<LancamentoModel> lancamentos) {
+        Map<Long, List<LancamentoModel>> porUsuario = lancamentos.stream()
+                .filter(lancamento -> idUsuarioDo(lancamento) != null)
+                .collect(Collectors.groupingBy(this::idUsuarioDo));
+        porUsuario.forEach((idUsuario, doUsuario) -> {
+            long proxima = reservarSequencias(idUsuario, doUsuario.size()) - doUsuario.size() + 1;
+            for(LancamentoModel lancamento : doUsuario){
+                lancamento.setSequencia(proxima++);
+            }
+        });
+    }
+
+    // Lápide para a sincronização incremental; a chave é o lançamento, então uma transferência sobrescreve a anterior
+    private void registrarRemocao(Long idLancamento, Long idUsuario) {
+        if(idUsuario == null){
+            return;
+        }
+        remocaoRepository.save(remocao(idLancamento, idUsuario, reservarSequencias(idUsuario, 1)));
+    }
+
+    private LancamentoRemocaoModel remocao(Long idLancamento, Long idUsuario, Long sequencia) {
+        return LancamentoRemocaoModel.builder().idLancamento(idLancamento).idUsuario(idUsuario)
+                .sequencia(sequencia).removidoEm(LocalDateTime.now()).build();
+    }
+
+    // Entregue aos inscritos só depois do commit (EventosUsuarioService), junto com o saldo novo
+    private void publicar(TipoEventoLancamentoEnum tipo, LancamentoModel lancamento) {
+        Long idUsuario = idUsuarioDo(lancamento);
+        if(idUsuario == null){
+            return;
+        }
+        LancamentoDto dto = new LancamentoDto(lancamento.getId(), lancamento.getDescricao(), lancamento.getMes(),
+                lancamento.getAno(), lancamento.getValor(), idUsuario, lancamento.getTipo(), lancamento.getStatus(),
+                lancamento.getDataCadastro(), lancamento.getVersao());
+        eventos.publishEvent(new EventoLancamentoDto(tipo, idUsuario, Collections.singletonList(lancamento.getId()), dto));
+    }
+
+    private void publicar(TipoEventoLancamentoEnum tipo, Long idUsuario, List<Long> ids) {
+        eventos.publishEvent(new EventoLancamentoDto(tipo, idUsuario, new ArrayList<>(ids), null));
+    }
+
+    // Aplica a diferença no saldo materializado, na mesma transação da alteração do lançamento
+    private void ajustarSaldo(Long idUsuario, BigDecimal valor) {
+        if(idUsuario == null || valor.signum() == 0){
+            return;
+        }
+        int atualizados = saldoRepository.somarAoSaldo(idUsuario, valor);
+        if(atualizados == 0){
+            // Usuário ainda sem saldo materializado, a soma dos lançamentos já inclui esta alteração
+            // Se outra transação criou a linha antes, a soma dela não via esta alteração, que entra pela diferença
+            if(!saldoRepository.inserirSeAusente(idUsuario, somarLancamentosEfetivados(idUsuario))){
+                saldoRepository.somarAoSaldo(idUsuario, valor);
+            }
+        }
+    }
+
+    // Quanto o lançamento representa no saldo: só EFETIVADO conta, RECEITA soma e DESPESA subtrai
+    private BigDecimal valorNoSaldo(LancamentoModel lancamento) {
+        if(lancamento.getStatus() != StatusLancamentoEnum.EFETIVADO || lancamento.getValor() == null){
+            return BigDecimal.ZERO;
+        }
+        if(lancamento.getTipo() == TipoLancamentoEnum.DESPESA){
+            return lancamento.getValor().negate();
+        }
+        return lancamento.getValor();
+    }
 
-        return receitas.subtract(despesas);
+    private Long idUsuarioDo(LancamentoModel lancamento) {
+        return lancamento.getUsuario() == null ? null : lancamento.getUsuario().getId();
     }
 }
@@ -0,0 +1,113 @@
+package com.aroque.minhasfinancas.service.Impl;
+
+import com.aroque.minhasfinancas.dto.TokenVerificadoDto;
+import com.aroque.minhasfinancas.service.RevogacaoTokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Revogação em memória: guarda só o instante da última revogação de cada usuário,
+// então a checagem por requisição é uma leitura de mapa no lugar de um SELECT
+// Tokens revogados um a um ficam num conjunto exato com um filtro de Bloom na frente,
+// assim o caso comum (token nunca revogado) nem chega a consultar o conjunto
+@Service
+public class RevogacaoTokenServiceImpl implements RevogacaoTokenService {
+
+    static final double FALSO_POSITIVO = 0.01;
+
+    @Value("${jwt.expiracao}")
+    private String expiracao;
+
+    @Value("${jwt.refresh.expiracao:20160}")
+    private long expiracaoRefresh;
+
+    @Value("${jwt.revogacao.capacidade:100000}")
+    private int capacidade;
+
+    private final Map<Long, Instant> revogadosAte = new ConcurrentHashMap<>();
+
+    // id do token -> quando ele expira; depois disso não precisa mais ficar aqui
+    private final Map<String, Instant> idsRevogados = new ConcurrentHashMap<>();
+
+    private volatile FiltroBloom filtro;
+
+    // Tamanho do conjunto que dispara a próxima limpeza
+    private int proximaLimpeza;
+
+    @PostConstruct
+    void criarFiltro() {
+        filtro = new FiltroBloom(capacidade, FALSO_POSITIVO);
+        proximaLimpeza = capacidade;
+    }
+
+    @Override
+    public void revogarTokensDoUsuario(Long idUsuario) {
+        // Na mesma precisão do instante de emissão dos tokens
+        Instant agora = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        revogadosAte.put(idUsuario, agora);
+
+        // Depois do tempo de vida do token mais longo nenhum token anterior à revogação continua valendo
+        long maiorExpiracao = Math.max(Long.valueOf(expiracao), expiracaoRefresh);
+        Instant limite = agora.minus(maiorExpiracao, ChronoUnit.MINUTES);
+        revogadosAte.values().removeIf(revogadoEm -> revogadoEm.isBefore(limite));
+    }
+
+    @Override
+    public void revogarToken(TokenVerificadoDto token) {
+        adicionar(token);
+    }
+
+    @Override
+    public boolean consumir(TokenVerificadoDto refreshToken) {
+        return adicionar(refreshToken);
+    }
+
+    // Sincronizado só com a limpeza, para nenhum id se perder enquanto o filtro é recriado
+    private synchronized boolean adicionar(TokenVerificadoDto token) {
+        if(token.getId() == null){
+            return false;
+        }
+        if(idsRevogados.size() >= proximaLimpeza){
+            limparExpirados();
+        }
+        boolean novo = idsRevogados.putIfAbsent(token.getId(), token.getExpiracao()) == null;
+        filtro.adicionar(token.getId());
+        return novo;
+    }
+
+    // O filtro de Bloom não remove, então ele é montado de novo só com os ids que ainda não expiraram
+    private void limparExpirados() {
+        Instant agora = Instant.now();
+        idsRevogados.values().removeIf(expiraEm -> !agora.isBefore(expiraEm));
+
+        // Se quase nada expirou o filtro cresce, para não recriar a cada nova revogação
+        proximaLimpeza = Math.max(capacidade, idsRevogados.size() * 2);
+        FiltroBloom novoFiltro = new FiltroBloom(proximaLimpeza, FALSO_POSITIVO);
+        idsRevogados.keySet().forEach(novoFiltro::adicionar);
+        filtro = novoFiltro;
+    }
+
+    @Override
+    public boolean isRevogado(TokenVerificadoDto token) {
+        if(token.getId() != null && filtro.podeConter(token.getId()) && idsRevogados.containsKey(token.getId())){
+            return true;
+        }
+        return isRevogadoPeloUsuario(token);
+    }
+
+    @Override
+    public boolean isRevogadoPeloUsuario(TokenVerificadoDto token) {
+        Instant revogadoEm = token.getIdUsuario() == null ? null : revogadosAte.get(token.getIdUsuario());
+        if(revogadoEm == null){
+            return false;
+        }
+        // Token emitido no mesmo segundo, depois da revogação (um novo login), continua valendo
+        // Os antigos, só com o iat truncado no segundo, são sempre anteriores e caem do mesmo jeito
+        return token.getEmitidoEm() == null || !token.getEmitidoEm().isAfter(revogadoEm);
+    }
+}
@@ -0,0 +1,160 @@
+package com.aroque.minhasfinancas.service.Impl;
+
+import com.aroque.minhasfinancas.dto.DivergenciaRollupDto;
+import com.aroque.minhasfinancas.model.LancamentoAlteracaoModel;
+import com.aroque.minhasfinancas.repositories.LancamentoAlteracaoRepository;
+import com.aroque.minhasfinancas.repositories.LancamentoRepository;
+import com.aroque.minhasfinancas.repositories.LancamentoRollupRepository;
+import com.aroque.minhasfinancas.service.RollupLancamentoService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class RollupLancamentoServiceImpl implements RollupLancamentoService {
+
+    // Igual ao findTop500 do repository
+    static final int TAMANHO_LOTE = 500;
+
+    @Autowired
+    LancamentoAlteracaoRepository alteracaoRepository;
+
+    @Autowired
+    LancamentoRollupRepository rollupRepository;
+
+    @Autowired
+    LancamentoRepository lancamentoRepository;
+
+    @Value("${rollup.reconciliacao.threads:4}")
+    int threadsReconciliacao;
+
+    // Cada lote e cada usuário da reconciliação na sua própria transação
+    private final TransactionTemplate escrita;
+    private final TransactionTemplate leitura;
+
+    public RollupLancamentoServiceImpl(LancamentoAlteracaoRepository alteracaoRepository, LancamentoRollupRepository rollupRepository,
+                                       LancamentoRepository lancamentoRepository, PlatformTransactionManager transactionManager) {
+        this.alteracaoRepository = alteracaoRepository;
+        this.rollupRepository = rollupRepository;
+        this.lancamentoRepository = lancamentoRepository;
+        this.escrita = new TransactionTemplate(transactionManager);
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setReadOnly(true);
+    }
+
+    // Banco que já tinha lançamentos antes do rollup: todos os usuários ficam pendentes até a primeira compactação
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepararRollup() {
+        escrita.execute(status -> {
+            if(rollupRepository.count() == 0 && alteracaoRepository.count() == 0){
+                int usuarios = alteracaoRepository.marcarTodosOsUsuarios();
+                log.info("Rollup vazio, {} usuários marcados para a primeira compactação", usuarios);
+            }
+            return null;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${rollup.compactacao.intervalo-ms:5000}")
+    public void compactarPendentes() {
+        int consumidas;
+        do {
+            consumidas = compactar();
+        } while(consumidas == TAMANHO_LOTE);
+    }
+
+    @Override
+    public int compactar() {
+        Integer consumidas = escrita.execute(status -> {
+            List<LancamentoAlteracaoModel> marcas = alteracaoRepository.findTop500ByOrderByIdAsc();
+            if(marcas.isEmpty()){
+                return 0;
+            }
+
+            // Várias marcas do mesmo período viram um único recálculo, e o usuário inteiro engole os períodos dele
+            Set<Long> usuariosInteiros = marcas.stream()
+                    .filter(marca -> marca.getAno() == null || marca.getMes() == null)
+                    .map(LancamentoAlteracaoModel::getIdUsuario)
+                    .collect(Collectors.toSet());
+            Set<List<Object>> periodos = new LinkedHashSet<>();
+            for(LancamentoAlteracaoModel marca : marcas){
+                if(!usuariosInteiros.contains(marca.getIdUsuario())){
+                    periodos.add(Arrays.asList(marca.getIdUsuario(), marca.getAno(), marca.getMes()));
+                }
+            }
+
+            usuariosInteiros.forEach(idUsuario -> rollupRepository.recalcular(idUsuario, null, null));
+            periodos.forEach(periodo -> rollupRepository.recalcular((Long) periodo.get(0), (Integer) periodo.get(1), (Integer) periodo.get(2)));
+            alteracaoRepository.apagar(marcas.stream().map(LancamentoAlteracaoModel::getId).collect(Collectors.toList()));
+            return marcas.size();
+        });
+        return consumidas == null ? 0 : consumidas;
+    }
+
+    @Scheduled(cron = "${rollup.reconciliacao.cron:0 30 3 * * *}")
+    public void reconciliarAgendado() {
+        List<DivergenciaRollupDto> divergencias = reconciliar();
+        if(!divergencias.isEmpty()){
+            log.warn("Reconciliação do rollup encontrou {} grupos divergentes", divergencias.size());
+        }
+    }
+
+    @Override
+    public List<DivergenciaRollupDto> reconciliar() {
+        List<Long> usuarios = leitura.execute(status -> lancamentoRepository.obterIdsUsuariosComLancamentos());
+        if(usuarios == null || usuarios.isEmpty()){
+            return new ArrayList<>();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threadsReconciliacao, usuarios.size())));
+        try{
+            List<Future<List<DivergenciaRollupDto>>> conferencias = new ArrayList<>();
+            for(Long idUsuario : usuarios){
+                conferencias.add(executor.submit(() -> leitura.execute(status -> rollupRepository.conferir(idUsuario))));
+            }
+
+            List<DivergenciaRollupDto> divergencias = new ArrayList<>();
+            for(Future<List<DivergenciaRollupDto>> conferencia : conferencias){
+                divergencias.addAll(conferencia.get());
+            }
+            marcarDivergentes(divergencias);
+            return divergencias;
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconciliação do rollup interrompida", e);
+        } catch (ExecutionException e){
+            throw new IllegalStateException("Falha na reconciliação do rollup", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void marcarDivergentes(List<DivergenciaRollupDto> divergencias) {
+        Set<Long> usuarios = new HashSet<>();
+        divergencias.forEach(divergencia -> usuarios.add(divergencia.getIdUsuario()));
+        if(usuarios.isEmpty()){
+            return;
+        }
+        escrita.execute(status -> alteracaoRepository.saveAll(usuarios.stream()
+                .map(idUsuario -> LancamentoAlteracaoModel.builder().idUsuario(idUsuario).build())
+                .collect(Collectors.toList())));
+    }
+}
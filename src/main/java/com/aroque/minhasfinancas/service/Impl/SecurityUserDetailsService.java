@@ -1,9 +1,10 @@
 package com.aroque.minhasfinancas.service.Impl;
 
+import com.aroque.minhasfinancas.dto.UsuarioAutenticadoDto;
 import com.aroque.minhasfinancas.model.UsuarioModel;
 import com.aroque.minhasfinancas.repositories.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -25,10 +26,7 @@ public class SecurityUserDetailsService implements UserDetailsService {
         // Qualquer tipo de codigo de usuario pode estar carregando aq
         UsuarioModel usuarioEncontrado = usuarioRepository.findByEmail(email).orElseThrow(() -> new UsernameNotFoundException("Email não cadastrado"));
 
-        return User.builder()
-                .username(usuarioEncontrado.getEmail())
-                .password(usuarioEncontrado.getSenha())
-                .roles("USER")
-                .build();
+        return new UsuarioAutenticadoDto(usuarioEncontrado.getId(), usuarioEncontrado.getEmail(),
+                usuarioEncontrado.getSenha(), AuthorityUtils.createAuthorityList("ROLE_USER"));
     }
 }
@@ -0,0 +1,112 @@
+package com.aroque.minhasfinancas.service.Impl;
+
+import com.aroque.minhasfinancas.dto.AlteracoesLancamentoDto;
+import com.aroque.minhasfinancas.dto.LancamentoSincroniaDto;
+import com.aroque.minhasfinancas.exception.RegraNegocioExecption;
+import com.aroque.minhasfinancas.model.LancamentoRemocaoModel;
+import com.aroque.minhasfinancas.model.SincroniaUsuarioModel;
+import com.aroque.minhasfinancas.repositories.LancamentoRemocaoRepository;
+import com.aroque.minhasfinancas.repositories.LancamentoRepository;
+import com.aroque.minhasfinancas.repositories.SincroniaUsuarioRepository;
+import com.aroque.minhasfinancas.service.SincroniaLancamentoService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class SincroniaLancamentoServiceImpl implements SincroniaLancamentoService {
+
+    @Autowired
+    LancamentoRepository lancamentoRepository;
+
+    @Autowired
+    LancamentoRemocaoRepository remocaoRepository;
+
+    @Autowired
+    SincroniaUsuarioRepository sincroniaRepository;
+
+    // Quanto tempo um cliente pode ficar sem sincronizar antes de precisar baixar tudo de novo
+    @Value("${sincronia.remocoes.retencao-dias:30}")
+    int retencaoDias;
+
+    public SincroniaLancamentoServiceImpl(LancamentoRepository lancamentoRepository, LancamentoRemocaoRepository remocaoRepository,
+                                          SincroniaUsuarioRepository sincroniaRepository) {
+        this.lancamentoRepository = lancamentoRepository;
+        this.remocaoRepository = remocaoRepository;
+        this.sincroniaRepository = sincroniaRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AlteracoesLancamentoDto obterAlteracoes(Long idUsuario, Long desde, int limite) {
+        if(limite < 1 || limite > LancamentoServiceImpl.LIMITE_MAXIMO_PAGINA){
+            throw new RegraNegocioExecption("Informe um limite entre 1 e " + LancamentoServiceImpl.LIMITE_MAXIMO_PAGINA + ".");
+        }
+        long inicio = desde == null ? 0L : desde;
+        Optional<SincroniaUsuarioModel> sincronia = sincroniaRepository.findById(idUsuario);
+        long atual = sincronia.map(SincroniaUsuarioModel::getSequencia).orElse(0L);
+        long horizonte = sincronia.map(SincroniaUsuarioModel::getHorizonte).orElse(0L);
+
+        // Remoções depois de "desde" já foram compactadas, ou a sequência nem existe (outro banco, restauração)
+        if(inicio < horizonte || inicio > atual){
+            return AlteracoesLancamentoDto.builder().sequencia(atual).ressincronizar(true)
+                    .alterados(Collections.emptyList()).removidos(Collections.emptyList()).build();
+        }
+
+        // Um a mais só para saber se existe próxima página
+        List<LancamentoSincroniaDto> alterados = new ArrayList<>(
+                lancamentoRepository.alteradosDesde(idUsuario, inicio, PageRequest.of(0, limite + 1)));
+        boolean mais = alterados.size() > limite;
+        long ate = atual;
+        if(mais){
+            alterados = new ArrayList<>(alterados.subList(0, limite));
+            ate = alterados.get(limite - 1).getSequencia();
+            // Um UPDATE em lote dá a mesma sequência a vários lançamentos: a última vai inteira nesta página,
+            // senão o cliente continuaria depois dela sem ter recebido o resto do lote
+            final long ultima = ate;
+            alterados.removeIf(lancamento -> lancamento.getSequencia() == ultima);
+            alterados.addAll(lancamentoRepository.alteradosNaSequencia(idUsuario, ultima));
+        }
+
+        // As remoções do mesmo intervalo de sequências que os alterados desta página
+        List<LancamentoRemocaoModel> removidas = remocaoRepository.removidasEntre(idUsuario, inicio, ate);
+        if(!mais){
+            // Sem próxima página a resposta vai até a última alteração lida, nunca além do que foi entregue
+            long ultimaAlterada = alterados.isEmpty() ? inicio : alterados.get(alterados.size() - 1).getSequencia();
+            long ultimaRemovida = removidas.isEmpty() ? inicio : removidas.get(removidas.size() - 1).getSequencia();
+            ate = Math.max(inicio, Math.max(ultimaAlterada, ultimaRemovida));
+        }
+
+        return AlteracoesLancamentoDto.builder()
+                .sequencia(ate)
+                .mais(mais)
+                .alterados(alterados)
+                .removidos(removidas.stream().map(LancamentoRemocaoModel::getIdLancamento).collect(Collectors.toList()))
+                .build();
+    }
+
+    @Override
+    @Transactional
+    @Scheduled(cron = "${sincronia.compactacao.cron:0 0 4 * * *}")
+    public int compactarRemocoes() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(retencaoDias);
+        int usuarios = sincroniaRepository.avancarHorizontes(limite);
+        int apagadas = remocaoRepository.apagarAntesDe(limite);
+        if(apagadas > 0){
+            log.info("Compactação da sincronia: {} lápides apagadas de {} usuários", apagadas, usuarios);
+        }
+        return apagadas;
+    }
+}
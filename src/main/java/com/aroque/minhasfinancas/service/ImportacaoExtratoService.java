@@ -0,0 +1,13 @@
+package com.aroque.minhasfinancas.service;
+
+import com.aroque.minhasfinancas.dto.ImportacaoResultadoDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+public interface ImportacaoExtratoService {
+
+    // formato: csv ou ofx
+    ImportacaoResultadoDto importar(InputStream extrato, String formato, Charset charset, Long idUsuario) throws IOException;
+}
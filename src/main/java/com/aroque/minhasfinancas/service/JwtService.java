@@ -1,17 +1,30 @@
 package com.aroque.minhasfinancas.service;
 
+import com.aroque.minhasfinancas.dto.TokenVerificadoDto;
 import com.aroque.minhasfinancas.model.UsuarioModel;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 
+import java.util.Optional;
+
 public interface JwtService {
 
     // Gerar token
     String gerarToken(UsuarioModel usuario);
 
+    // Token de vida longa que só serve para obter um novo token de acesso
+    String gerarRefreshToken(UsuarioModel usuario);
+
     // Claims são todas as informações que tem no token
     Claims obterClaims(String token) throws ExpiredJwtException;
 
+    // Confere assinatura e expiração uma única vez por token e devolve o login e a expiração juntos
+    // Vazio quando o token é inválido ou já expirou
+    Optional<TokenVerificadoDto> verificar(String token);
+
+    // Mesma verificação, mas só aceita refresh tokens
+    Optional<TokenVerificadoDto> verificarRefresh(String token);
+
     // Verificar se o token esta valido
     boolean isTokenValido(String token);
 
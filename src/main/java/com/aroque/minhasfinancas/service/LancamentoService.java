@@ -1,5 +1,11 @@
 package com.aroque.minhasfinancas.service;
 
+import com.aroque.minhasfinancas.dto.LancamentoDto;
+import com.aroque.minhasfinancas.dto.LancamentoFiltroDto;
+import com.aroque.minhasfinancas.dto.LoteResultadoDto;
+import com.aroque.minhasfinancas.dto.PaginaDto;
+import com.aroque.minhasfinancas.dto.ResumoMensalDto;
+import com.aroque.minhasfinancas.dto.SelecaoLancamentosDto;
 import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
 import com.aroque.minhasfinancas.model.LancamentoModel;
 
@@ -11,17 +17,55 @@ public interface LancamentoService {
 
     LancamentoModel salvar(LancamentoModel lancamento);
 
+    // Valida todos de uma vez e insere os válidos em lote, devolvendo o erro de cada inválido pela posição na lista
+    LoteResultadoDto salvarLote(List<LancamentoModel> lancamentos);
+
     LancamentoModel atualizar(LancamentoModel lancamento);
 
     void deletar(LancamentoModel lancamento);
 
+    // Alteração vinda do usuário logado: um único UPDATE condicional quando o lançamento
+    // não mexe no saldo nem no índice de descrições, senão lê o atual e segue pelo atualizar
+    // Lança ErroNaoEncontrado quando o lançamento não existe ou é de outro usuário
+    // e ErroConcorrencia quando a versão informada não é mais a atual
+    LancamentoModel atualizar(Long idUsuario, LancamentoModel lancamento);
+
+    // Mesmo esquema do atualizar: um único DELETE, e leitura só quando ele não removeu nada
+    void deletar(Long idUsuario, Long id, Long versao);
+
     List<LancamentoModel> buscar(LancamentoModel lancamentoFiltro);
 
+    List<LancamentoModel> buscar(LancamentoFiltroDto filtro);
+
+    // Leitura para os endpoints: projeção em LancamentoDto, sem carregar o usuário de cada lançamento
+    List<LancamentoDto> listar(LancamentoFiltroDto filtro);
+
+    // cursor é o proximoCursor da página anterior, ou nulo para a primeira página
+    PaginaDto<LancamentoDto> buscarPagina(LancamentoFiltroDto filtro, String cursor, int limite, boolean decrescente, boolean contarTotal);
+
     void atualizarStatus(LancamentoModel lancamento, StatusLancamentoEnum status);
 
+    // Muda o status de vários lançamentos com um único UPDATE, devolvendo quantos foram alterados
+    int atualizarStatus(SelecaoLancamentosDto selecao, StatusLancamentoEnum status);
+
     void validar(LancamentoModel lancamento);
 
     Optional<LancamentoModel> obterPorId(Long id);
 
+    Optional<LancamentoDto> obterDtoPorId(Long id);
+
     BigDecimal obterSaldoPorUsuario(Long id);
+
+    // A mesma leitura sempre no primário, para quem precisa do saldo logo depois de um commit
+    // sem o usuário no SecurityContext (que é o que fixa as leituras dele no primário)
+    BigDecimal obterSaldoNoPrimario(Long id);
+
+    // Refaz o saldo materializado a partir dos lançamentos, para corrigir divergências
+    BigDecimal recalcularSaldo(Long idUsuario);
+
+    // Refaz o índice de trigramas das descrições do usuário, para lançamentos gravados antes do índice existir
+    void reindexarDescricoes(Long idUsuario);
+
+    // Totais por mês, tipo e status do ano, com zero onde não houver lançamento
+    List<ResumoMensalDto> obterResumoAnual(Long idUsuario, Integer ano);
 }
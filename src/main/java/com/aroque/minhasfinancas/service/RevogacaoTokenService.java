@@ -0,0 +1,21 @@
+package com.aroque.minhasfinancas.service;
+
+import com.aroque.minhasfinancas.dto.TokenVerificadoDto;
+
+public interface RevogacaoTokenService {
+
+    // Invalida todos os tokens do usuário emitidos até agora
+    void revogarTokensDoUsuario(Long idUsuario);
+
+    // Invalida só um token, pelo id (jti), até ele expirar
+    void revogarToken(TokenVerificadoDto token);
+
+    // Revoga o refresh token na troca por um novo par
+    // Falso quando ele já tinha sido usado, o que indica que o token vazou
+    boolean consumir(TokenVerificadoDto refreshToken);
+
+    boolean isRevogado(TokenVerificadoDto token);
+
+    // Só o corte do revogarTokensDoUsuario, sem olhar o id do token
+    boolean isRevogadoPeloUsuario(TokenVerificadoDto token);
+}
@@ -0,0 +1,15 @@
+package com.aroque.minhasfinancas.service;
+
+import com.aroque.minhasfinancas.dto.DivergenciaRollupDto;
+
+import java.util.List;
+
+public interface RollupLancamentoService {
+
+    // Dobra no rollup um lote de alterações pendentes e devolve quantas marcas foram consumidas
+    int compactar();
+
+    // Compara rollup e lançamentos de todos os usuários em paralelo
+    // Os usuários com divergência são marcados inteiros, e a próxima compactação corrige
+    List<DivergenciaRollupDto> reconciliar();
+}
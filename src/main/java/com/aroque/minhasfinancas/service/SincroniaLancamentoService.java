@@ -0,0 +1,12 @@
+package com.aroque.minhasfinancas.service;
+
+import com.aroque.minhasfinancas.dto.AlteracoesLancamentoDto;
+
+public interface SincroniaLancamentoService {
+
+    // Lançamentos alterados e removidos depois da sequência "desde", em páginas de até "limite" alterados
+    AlteracoesLancamentoDto obterAlteracoes(Long idUsuario, Long desde, int limite);
+
+    // Apaga as lápides mais antigas que a retenção, avançando o horizonte dos usuários, e devolve quantas saíram
+    int compactarRemocoes();
+}
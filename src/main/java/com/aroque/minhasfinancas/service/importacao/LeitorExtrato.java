@@ -0,0 +1,15 @@
+package com.aroque.minhasfinancas.service.importacao;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Lê o extrato aos poucos, uma transação por chamada, sem carregar o arquivo na memória
+public interface LeitorExtrato extends Closeable {
+
+    // Nulo quando o arquivo terminou
+    // Lança RegraNegocioExecption para uma linha inválida, e a leitura pode continuar na próxima
+    TransacaoExtrato proxima() throws IOException;
+
+    // Linha do CSV ou posição da transação no OFX, a mesma que vai em TransacaoExtrato.linha
+    long posicao();
+}
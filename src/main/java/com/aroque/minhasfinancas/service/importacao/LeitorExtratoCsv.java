@@ -0,0 +1,133 @@
+package com.aroque.minhasfinancas.service.importacao;
+
+import com.aroque.minhasfinancas.exception.RegraNegocioExecption;
+import com.aroque.minhasfinancas.util.Trigramas;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// CSV com cabeçalho contendo as colunas data, descricao e valor, separadas por ; ou ,
+// Datas em dd/MM/yyyy ou yyyy-MM-dd, valores em 1.234,56 ou 1234.56
+public class LeitorExtratoCsv implements LeitorExtrato {
+
+    private static final DateTimeFormatter DATA_BR = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final BufferedReader leitor;
+    private char separador;
+    private int colunaData = -1;
+    private int colunaDescricao = -1;
+    private int colunaValor = -1;
+    private long linha;
+
+    // Já lê o cabeçalho: sem as colunas obrigatórias não há o que importar
+    public LeitorExtratoCsv(BufferedReader leitor) throws IOException {
+        this.leitor = leitor;
+        lerCabecalho();
+    }
+
+    @Override
+    public TransacaoExtrato proxima() throws IOException {
+        String texto;
+        do {
+            texto = leitor.readLine();
+            linha++;
+            if(texto == null){
+                return null;
+            }
+        } while(texto.trim().isEmpty());
+
+        List<String> campos = separar(texto);
+        if(campos.size() <= Math.max(colunaData, Math.max(colunaDescricao, colunaValor))){
+            throw new RegraNegocioExecption("Linha " + linha + ": quantidade de colunas inválida.");
+        }
+        return new TransacaoExtrato(linha,
+                lerData(campos.get(colunaData).trim()),
+                campos.get(colunaDescricao).trim(),
+                lerValor(campos.get(colunaValor).trim()));
+    }
+
+    private void lerCabecalho() throws IOException {
+        String cabecalho = leitor.readLine();
+        linha++;
+        if(cabecalho == null){
+            throw new RegraNegocioExecption("Arquivo CSV vazio.");
+        }
+        separador = cabecalho.indexOf(';') >= 0 ? ';' : ',';
+        List<String> colunas = separar(cabecalho);
+        for(int i = 0; i < colunas.size(); i++){
+            String coluna = Trigramas.normalizar(colunas.get(i));
+            if(coluna.equals("data")){
+                colunaData = i;
+            } else if(coluna.equals("descricao") || coluna.equals("historico")){
+                colunaDescricao = i;
+            } else if(coluna.equals("valor")){
+                colunaValor = i;
+            }
+        }
+        if(colunaData < 0 || colunaDescricao < 0 || colunaValor < 0){
+            throw new RegraNegocioExecption("O cabeçalho do CSV precisa das colunas data, descricao e valor.");
+        }
+    }
+
+    // Separa os campos respeitando aspas, para descrições que têm o próprio separador
+    private List<String> separar(String texto) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreAspas = false;
+        for(int i = 0; i < texto.length(); i++){
+            char c = texto.charAt(i);
+            if(c == '"'){
+                if(entreAspas && i + 1 < texto.length() && texto.charAt(i + 1) == '"'){
+                    campo.append('"');
+                    i++;
+                } else {
+                    entreAspas = !entreAspas;
+                }
+            } else if(c == separador && !entreAspas){
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    private LocalDate lerData(String data) {
+        try{
+            return data.contains("/") ? LocalDate.parse(data, DATA_BR) : LocalDate.parse(data);
+        } catch (DateTimeParseException e){
+            throw new RegraNegocioExecption("Linha " + linha + ": data inválida.");
+        }
+    }
+
+    private BigDecimal lerValor(String valor) {
+        String numero = valor.replace("R$", "").replace(" ", "");
+        // Com vírgula o formato é o brasileiro: ponto separa milhar e vírgula separa decimal
+        if(numero.indexOf(',') >= 0){
+            numero = numero.replace(".", "").replace(',', '.');
+        }
+        try{
+            return new BigDecimal(numero);
+        } catch (NumberFormatException e){
+            throw new RegraNegocioExecption("Linha " + linha + ": valor inválido.");
+        }
+    }
+
+    @Override
+    public long posicao() {
+        return linha;
+    }
+
+    @Override
+    public void close() throws IOException {
+        leitor.close();
+    }
+}
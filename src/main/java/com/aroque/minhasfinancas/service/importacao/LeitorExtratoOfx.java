@@ -0,0 +1,124 @@
+package com.aroque.minhasfinancas.service.importacao;
+
+import com.aroque.minhasfinancas.exception.RegraNegocioExecption;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// Lê as tags do OFX uma a uma e devolve cada bloco <STMTTRN> como uma transação
+// Funciona tanto no OFX 1.x (SGML, sem fechar as tags de valor) quanto no 2.x (XML)
+public class LeitorExtratoOfx implements LeitorExtrato {
+
+    private static final DateTimeFormatter DATA_OFX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final Reader leitor;
+    private long transacao;
+
+    // Último caractere lido e ainda não consumido, -2 quando não há nenhum
+    private int pendente = -2;
+
+    public LeitorExtratoOfx(Reader leitor) {
+        this.leitor = leitor;
+    }
+
+    @Override
+    public TransacaoExtrato proxima() throws IOException {
+        String tag;
+        do {
+            tag = proximaTag();
+            if(tag == null){
+                return null;
+            }
+        } while(!tag.equalsIgnoreCase("STMTTRN"));
+
+        transacao++;
+        String data = null;
+        String valor = null;
+        String memo = null;
+        String nome = null;
+        while((tag = proximaTag()) != null && !tag.equalsIgnoreCase("/STMTTRN")){
+            if(tag.startsWith("/")){
+                continue;
+            }
+            String texto = lerValor();
+            switch(tag.toUpperCase()){
+                case "DTPOSTED": data = texto; break;
+                case "TRNAMT": valor = texto; break;
+                case "MEMO": memo = texto; break;
+                case "NAME": nome = texto; break;
+                default: break;
+            }
+        }
+
+        String descricao = memo != null && !memo.isEmpty() ? memo : nome;
+        return new TransacaoExtrato(transacao, converterData(data), descricao, converterValor(valor));
+    }
+
+    // Nome da próxima tag, sem os sinais de menor e maior
+    private String proximaTag() throws IOException {
+        int c;
+        while((c = ler()) != -1 && c != '<'){
+            // ignora o texto fora das tags
+        }
+        if(c == -1){
+            return null;
+        }
+        StringBuilder tag = new StringBuilder();
+        while((c = ler()) != -1 && c != '>'){
+            tag.append((char) c);
+        }
+        return tag.toString().trim();
+    }
+
+    // Texto até a próxima tag ou fim de linha
+    private String lerValor() throws IOException {
+        StringBuilder texto = new StringBuilder();
+        int c;
+        while((c = ler()) != -1 && c != '<' && c != '\n' && c != '\r'){
+            texto.append((char) c);
+        }
+        if(c == '<'){
+            pendente = c;
+        }
+        return texto.toString().trim();
+    }
+
+    private int ler() throws IOException {
+        if(pendente != -2){
+            int c = pendente;
+            pendente = -2;
+            return c;
+        }
+        return leitor.read();
+    }
+
+    private LocalDate converterData(String data) {
+        try{
+            return LocalDate.parse(data.substring(0, 8), DATA_OFX);
+        } catch (NullPointerException | IndexOutOfBoundsException | DateTimeParseException e){
+            throw new RegraNegocioExecption("Transação " + transacao + ": DTPOSTED inválido.");
+        }
+    }
+
+    private BigDecimal converterValor(String valor) {
+        try{
+            return new BigDecimal(valor.replace(',', '.'));
+        } catch (NullPointerException | NumberFormatException e){
+            throw new RegraNegocioExecption("Transação " + transacao + ": TRNAMT inválido.");
+        }
+    }
+
+    @Override
+    public long posicao() {
+        return transacao;
+    }
+
+    @Override
+    public void close() throws IOException {
+        leitor.close();
+    }
+}
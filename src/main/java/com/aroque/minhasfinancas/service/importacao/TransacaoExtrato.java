@@ -0,0 +1,19 @@
+package com.aroque.minhasfinancas.service.importacao;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Uma linha do extrato bancário: valor negativo é saída (DESPESA) e positivo é entrada (RECEITA)
+@Data
+@AllArgsConstructor
+public class TransacaoExtrato {
+
+    // Linha do arquivo (CSV) ou posição da transação (OFX), para apontar erros
+    private long linha;
+    private LocalDate data;
+    private String descricao;
+    private BigDecimal valor;
+}
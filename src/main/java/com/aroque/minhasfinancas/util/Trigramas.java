@@ -0,0 +1,40 @@
+package com.aroque.minhasfinancas.util;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Normalização e quebra em trigramas usadas pelo índice de descrição dos lançamentos
+public class Trigramas {
+
+    public static final int TAMANHO = 3;
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private Trigramas() {
+    }
+
+    // Minúsculo, sem acento e com espaços colapsados: "Salário  Março" vira "salario marco"
+    public static String normalizar(String texto) {
+        if(texto == null){
+            return null;
+        }
+        String semAcento = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACOS.matcher(semAcento.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    // Trigramas distintos do texto já normalizado, vazio quando o texto tem menos de 3 caracteres
+    public static Set<String> gerar(String normalizado) {
+        Set<String> trigramas = new LinkedHashSet<>();
+        if(normalizado == null){
+            return trigramas;
+        }
+        for(int i = 0; i + TAMANHO <= normalizado.length(); i++){
+            trigramas.add(normalizado.substring(i, i + TAMANHO));
+        }
+        return trigramas;
+    }
+}
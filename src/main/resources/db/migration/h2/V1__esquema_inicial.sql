@@ -0,0 +1,26 @@
+-- Mesmo esquema da migration do MySQL, usado pelos testes
+
+CREATE TABLE financas.usuario (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    data_cadastro DATE,
+    email         VARCHAR(255),
+    nome          VARCHAR(255),
+    senha         VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE financas.lancamento (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    ano           INT,
+    data_cadastro DATE,
+    descricao     VARCHAR(255),
+    mes           INT,
+    status        VARCHAR(255),
+    tipo          VARCHAR(255),
+    valor         DECIMAL(19, 2),
+    id_usuario    BIGINT,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE financas.lancamento
+    ADD CONSTRAINT financas.fk_lancamento_usuario FOREIGN KEY (id_usuario) REFERENCES financas.usuario (id);
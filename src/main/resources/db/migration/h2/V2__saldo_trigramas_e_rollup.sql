@@ -0,0 +1,46 @@
+-- Começa 50 acima do maior id pelo mesmo motivo da migration do MySQL (otimizador pooled)
+CREATE SEQUENCE financas.lancamento_seq START WITH 50 INCREMENT BY 50;
+
+ALTER SEQUENCE financas.lancamento_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM financas.lancamento);
+
+ALTER TABLE financas.lancamento ALTER COLUMN id BIGINT NOT NULL;
+
+ALTER TABLE financas.lancamento ADD COLUMN descricao_normalizada VARCHAR(255);
+
+ALTER TABLE financas.lancamento ADD COLUMN versao BIGINT DEFAULT 0 NOT NULL;
+
+CREATE INDEX financas.idx_lancamento_usuario_ano_mes_id ON financas.lancamento (id_usuario, ano, mes, id);
+
+CREATE TABLE financas.saldo_usuario (
+    id_usuario BIGINT PRIMARY KEY,
+    valor      DECIMAL(19, 2)
+);
+
+CREATE TABLE financas.lancamento_trigrama (
+    id_usuario    BIGINT     NOT NULL,
+    trigrama      VARCHAR(3) NOT NULL,
+    id_lancamento BIGINT     NOT NULL,
+    PRIMARY KEY (id_usuario, trigrama, id_lancamento)
+);
+
+CREATE INDEX financas.idx_lancamento_trigrama_lancamento ON financas.lancamento_trigrama (id_lancamento);
+
+CREATE TABLE financas.lancamento_alteracao (
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id_usuario BIGINT NOT NULL,
+    ano        INT,
+    mes        INT
+);
+
+CREATE INDEX financas.idx_lancamento_alteracao_usuario ON financas.lancamento_alteracao (id_usuario);
+
+CREATE TABLE financas.lancamento_rollup (
+    id_usuario BIGINT      NOT NULL,
+    ano        INT         NOT NULL,
+    mes        INT         NOT NULL,
+    tipo       VARCHAR(20) NOT NULL,
+    status     VARCHAR(20) NOT NULL,
+    total      DECIMAL(19, 2),
+    quantidade BIGINT,
+    PRIMARY KEY (id_usuario, ano, mes, tipo, status)
+);
@@ -0,0 +1,7 @@
+ALTER TABLE financas.lancamento ADD COLUMN periodo INT;
+
+UPDATE financas.lancamento SET periodo = ano * 100 + mes WHERE ano IS NOT NULL AND mes IS NOT NULL;
+
+CREATE INDEX financas.idx_lancamento_usuario_periodo ON financas.lancamento (id_usuario, periodo, tipo, status, valor);
+
+CREATE INDEX financas.idx_lancamento_usuario_status_tipo ON financas.lancamento (id_usuario, status, tipo, valor);
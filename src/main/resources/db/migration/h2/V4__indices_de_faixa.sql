@@ -0,0 +1,3 @@
+CREATE INDEX financas.idx_lancamento_usuario_cadastro ON financas.lancamento (id_usuario, data_cadastro, tipo, status, valor);
+
+CREATE INDEX financas.idx_lancamento_usuario_tipo_valor ON financas.lancamento (id_usuario, tipo, valor);
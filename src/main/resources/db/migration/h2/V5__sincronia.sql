@@ -0,0 +1,30 @@
+ALTER TABLE financas.lancamento ADD COLUMN sequencia BIGINT DEFAULT 0 NOT NULL;
+
+UPDATE financas.lancamento SET sequencia = id;
+
+CREATE INDEX financas.idx_lancamento_usuario_sequencia ON financas.lancamento (id_usuario, sequencia, id);
+
+CREATE TABLE financas.sincronia_usuario (
+    id_usuario BIGINT NOT NULL,
+    sequencia  BIGINT NOT NULL,
+    horizonte  BIGINT NOT NULL,
+    PRIMARY KEY (id_usuario)
+);
+
+INSERT INTO financas.sincronia_usuario (id_usuario, sequencia, horizonte)
+SELECT u.id, COALESCE(MAX(l.id), 0), 0
+  FROM financas.usuario u
+  LEFT JOIN financas.lancamento l ON l.id_usuario = u.id
+ GROUP BY u.id;
+
+CREATE TABLE financas.lancamento_remocao (
+    id_lancamento BIGINT    NOT NULL,
+    id_usuario    BIGINT    NOT NULL,
+    sequencia     BIGINT    NOT NULL,
+    removido_em   TIMESTAMP NOT NULL,
+    PRIMARY KEY (id_lancamento)
+);
+
+CREATE INDEX financas.idx_lancamento_remocao_usuario_sequencia ON financas.lancamento_remocao (id_usuario, sequencia);
+
+CREATE INDEX financas.idx_lancamento_remocao_removido_em ON financas.lancamento_remocao (removido_em);
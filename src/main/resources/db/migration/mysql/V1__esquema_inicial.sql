@@ -0,0 +1,29 @@
+-- Esquema que o ddl-auto=update gerava antes das migrations: só usuário e lançamento, ids por IDENTITY
+-- Bancos que já existem pulam esta versão (spring.flyway.baseline-on-migrate) e seguem a partir da V2,
+-- então esta versão não pode ter nada além do que eles já têm
+
+CREATE TABLE financas.usuario (
+    id            BIGINT NOT NULL AUTO_INCREMENT,
+    data_cadastro DATE,
+    email         VARCHAR(255),
+    nome          VARCHAR(255),
+    senha         VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE financas.lancamento (
+    id            BIGINT NOT NULL AUTO_INCREMENT,
+    ano           INT,
+    data_cadastro DATE,
+    descricao     VARCHAR(255),
+    mes           INT,
+    status        VARCHAR(255),
+    tipo          VARCHAR(255),
+    valor         DECIMAL(19, 2),
+    id_usuario    BIGINT,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- Nos bancos antigos a constraint tem o nome gerado pelo Hibernate; nenhuma migration depende do nome
+ALTER TABLE financas.lancamento
+    ADD CONSTRAINT fk_lancamento_usuario FOREIGN KEY (id_usuario) REFERENCES financas.usuario (id);
@@ -0,0 +1,61 @@
+-- Do esquema de base (V1) ao que o LancamentoService passou a usar: ids por sequence, versão otimista,
+-- saldo materializado, índice de trigramas da descrição e o rollup mensal
+
+-- O MySQL não tem sequence, o Hibernate usa uma tabela de uma linha no lugar
+-- Com o otimizador pooled (allocationSize 50) o valor lido é o topo do primeiro bloco de ids:
+-- começar 50 acima do maior id existente faz o primeiro id entregue ser MAX(id) + 1
+CREATE TABLE financas.lancamento_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO financas.lancamento_seq (next_val)
+SELECT COALESCE(MAX(id), 0) + 50 FROM financas.lancamento;
+
+-- Os ids agora vêm da sequence
+ALTER TABLE financas.lancamento MODIFY id BIGINT NOT NULL;
+
+-- Nula até o lançamento entrar no índice de trigramas: os que já existiam são indexados pelo
+-- LancamentoService na inicialização (indexarDescricoesPendentes), com a mesma normalização do Java
+ALTER TABLE financas.lancamento ADD COLUMN descricao_normalizada VARCHAR(255);
+
+ALTER TABLE financas.lancamento ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX idx_lancamento_usuario_ano_mes_id ON financas.lancamento (id_usuario, ano, mes, id);
+
+-- Vazio: o LancamentoService materializa o saldo de cada usuário a partir dos lançamentos
+CREATE TABLE financas.saldo_usuario (
+    id_usuario BIGINT NOT NULL,
+    valor      DECIMAL(19, 2),
+    PRIMARY KEY (id_usuario)
+) ENGINE = InnoDB;
+
+CREATE TABLE financas.lancamento_trigrama (
+    id_usuario    BIGINT     NOT NULL,
+    trigrama      VARCHAR(3) NOT NULL,
+    id_lancamento BIGINT     NOT NULL,
+    PRIMARY KEY (id_usuario, trigrama, id_lancamento)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_lancamento_trigrama_lancamento ON financas.lancamento_trigrama (id_lancamento);
+
+CREATE TABLE financas.lancamento_alteracao (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    id_usuario BIGINT NOT NULL,
+    ano        INT,
+    mes        INT,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_lancamento_alteracao_usuario ON financas.lancamento_alteracao (id_usuario);
+
+-- Vazio: com o rollup e as marcas vazios, todos os usuários são marcados na inicialização (prepararRollup)
+CREATE TABLE financas.lancamento_rollup (
+    id_usuario BIGINT      NOT NULL,
+    ano        INT         NOT NULL,
+    mes        INT         NOT NULL,
+    tipo       VARCHAR(20) NOT NULL,
+    status     VARCHAR(20) NOT NULL,
+    total      DECIMAL(19, 2),
+    quantidade BIGINT,
+    PRIMARY KEY (id_usuario, ano, mes, tipo, status)
+) ENGINE = InnoDB;
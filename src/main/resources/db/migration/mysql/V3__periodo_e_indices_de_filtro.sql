@@ -0,0 +1,9 @@
+-- Período yyyymm calculado uma vez, para os filtros por intervalo de meses usarem um índice só
+ALTER TABLE financas.lancamento ADD COLUMN periodo INT;
+
+UPDATE financas.lancamento SET periodo = ano * 100 + mes WHERE ano IS NOT NULL AND mes IS NOT NULL;
+
+-- O MySQL não tem INCLUDE: o valor vai no fim da chave para os totais saírem só do índice
+CREATE INDEX idx_lancamento_usuario_periodo ON financas.lancamento (id_usuario, periodo, tipo, status, valor);
+
+CREATE INDEX idx_lancamento_usuario_status_tipo ON financas.lancamento (id_usuario, status, tipo, valor);
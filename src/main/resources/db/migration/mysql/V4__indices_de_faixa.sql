@@ -0,0 +1,5 @@
+-- Filtros por faixa de data de cadastro, com tipo, status e valor no índice para não ler a tabela
+CREATE INDEX idx_lancamento_usuario_cadastro ON financas.lancamento (id_usuario, data_cadastro, tipo, status, valor);
+
+-- "Despesas acima de X": igualdade no tipo e a faixa no valor, na mesma ordem do índice
+CREATE INDEX idx_lancamento_usuario_tipo_valor ON financas.lancamento (id_usuario, tipo, valor);
@@ -0,0 +1,32 @@
+-- Sincronização incremental: sequência por usuário em cada lançamento, contador do usuário e lápides das remoções
+ALTER TABLE financas.lancamento ADD COLUMN sequencia BIGINT NOT NULL DEFAULT 0;
+
+-- Os ids crescem com o tempo: servem de sequência inicial, e o contador do usuário começa no maior deles
+UPDATE financas.lancamento SET sequencia = id;
+
+CREATE INDEX idx_lancamento_usuario_sequencia ON financas.lancamento (id_usuario, sequencia, id);
+
+CREATE TABLE financas.sincronia_usuario (
+    id_usuario BIGINT NOT NULL,
+    sequencia  BIGINT NOT NULL,
+    horizonte  BIGINT NOT NULL,
+    PRIMARY KEY (id_usuario)
+) ENGINE = InnoDB;
+
+INSERT INTO financas.sincronia_usuario (id_usuario, sequencia, horizonte)
+SELECT u.id, COALESCE(MAX(l.id), 0), 0
+  FROM financas.usuario u
+  LEFT JOIN financas.lancamento l ON l.id_usuario = u.id
+ GROUP BY u.id;
+
+CREATE TABLE financas.lancamento_remocao (
+    id_lancamento BIGINT   NOT NULL,
+    id_usuario    BIGINT   NOT NULL,
+    sequencia     BIGINT   NOT NULL,
+    removido_em   DATETIME NOT NULL,
+    PRIMARY KEY (id_lancamento)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_lancamento_remocao_usuario_sequencia ON financas.lancamento_remocao (id_usuario, sequencia);
+
+CREATE INDEX idx_lancamento_remocao_removido_em ON financas.lancamento_remocao (removido_em);
@@ -0,0 +1,273 @@
+package com.aroque.minhasfinancas.carga;
+
+import com.aroque.minhasfinancas.dto.LoteResultadoDto;
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.service.LancamentoService;
+import com.aroque.minhasfinancas.service.UsuarioService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.assertj.core.api.Assertions;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Teste de carga de ponta a ponta: sobe a aplicação com o perfil test (H2), cria os usuários e lançamentos
+// e dispara requisições HTTP de vários clientes ao mesmo tempo, medindo a latência de cada endpoint
+// Não roda no build normal: mvn test -Dtest=CargaTest -Dcarga=true
+// Parâmetros (-D): carga.usuarios=20, carga.lancamentos=20000 (total), carga.clientes=32,
+// carga.aquecimento=10 e carga.duracao=30 (segundos),
+// carga.mix=autenticar:5,criar:25,buscar:40,saldo:20,status:10 (pesos de cada operação)
+// Os histogramas completos ficam em target/carga/<operacao>.hgrm (formato do HdrHistogram)
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class CargaTest {
+
+    private static final String SENHA = "senha-da-carga";
+
+    // Latências de 1 microssegundo até 1 minuto com 3 dígitos de precisão
+    private static final long MAIOR_LATENCIA_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    @LocalServerPort
+    int porta;
+
+    @Autowired
+    UsuarioService usuarioService;
+
+    @Autowired
+    LancamentoService lancamentoService;
+
+    private final RestTemplate rest = new RestTemplate();
+
+    private final Map<String, Histogram> latencias = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> erros = new ConcurrentHashMap<>();
+
+    private List<UsuarioModel> usuarios;
+    private Map<Long, List<Long>> lancamentosPorUsuario;
+    private Map<Long, String> tokens;
+
+    @Test
+    public void deveMedirLatenciaEVazaoPorEndpoint() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("carga"));
+        int quantidadeUsuarios = Integer.getInteger("carga.usuarios", 20);
+        int quantidadeLancamentos = Integer.getInteger("carga.lancamentos", 20_000);
+        int clientes = Integer.getInteger("carga.clientes", 32);
+        int aquecimento = Integer.getInteger("carga.aquecimento", 10);
+        int duracao = Integer.getInteger("carga.duracao", 30);
+        Map<String, Integer> mix = lerMix(System.getProperty("carga.mix", "autenticar:5,criar:25,buscar:40,saldo:20,status:10"));
+
+        popular(quantidadeUsuarios, quantidadeLancamentos);
+
+        // Aquecimento: mesma carga, resultados descartados
+        executar(clientes, aquecimento, mix);
+        latencias.clear();
+        erros.clear();
+
+        long inicio = System.nanoTime();
+        executar(clientes, duracao, mix);
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+
+        relatar(segundos, clientes);
+        Assertions.assertThat(latencias).isNotEmpty();
+    }
+
+    private void popular(int quantidadeUsuarios, int quantidadeLancamentos) {
+        usuarios = new ArrayList<>();
+        lancamentosPorUsuario = new HashMap<>();
+        tokens = new ConcurrentHashMap<>();
+        for(int i = 0; i < quantidadeUsuarios; i++){
+            UsuarioModel usuario = usuarioService.salvarUsuario(UsuarioModel.builder().nome("Carga " + i)
+                    .email("carga" + i + "@gmail.com").senha(SENHA).dataCadastro(LocalDate.now()).build());
+            usuarios.add(usuario);
+            lancamentosPorUsuario.put(usuario.getId(), new ArrayList<>());
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int lote = 1_000;
+        for(int inicio = 0; inicio < quantidadeLancamentos; inicio += lote){
+            List<LancamentoModel> lancamentos = new ArrayList<>();
+            for(int i = inicio; i < Math.min(inicio + lote, quantidadeLancamentos); i++){
+                lancamentos.add(novoLancamento(usuarios.get(i % usuarios.size()), random));
+            }
+            LoteResultadoDto resultado = lancamentoService.salvarLote(lancamentos);
+            Assertions.assertThat(resultado.getErros()).isEmpty();
+            for(LancamentoModel lancamento : lancamentos){
+                lancamentosPorUsuario.get(lancamento.getUsuario().getId()).add(lancamento.getId());
+            }
+        }
+    }
+
+    private LancamentoModel novoLancamento(UsuarioModel usuario, ThreadLocalRandom random) {
+        return LancamentoModel.builder().descricao("Lançamento de carga " + random.nextInt(10_000))
+                .ano(2015 + random.nextInt(8)).mes(1 + random.nextInt(12))
+                .valor(BigDecimal.valueOf(1 + random.nextInt(1000)))
+                .tipo(random.nextBoolean() ? TipoLancamentoEnum.RECEITA : TipoLancamentoEnum.DESPESA)
+                .dataCadastro(LocalDate.now()).usuario(usuario)
+                .build();
+    }
+
+    private void executar(int clientes, int segundos, Map<String, Integer> mix) throws InterruptedException {
+        long fim = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        int pesoTotal = mix.values().stream().mapToInt(Integer::intValue).sum();
+        ExecutorService executor = Executors.newFixedThreadPool(clientes);
+        CountDownLatch terminaram = new CountDownLatch(clientes);
+        for(int c = 0; c < clientes; c++){
+            executor.execute(() -> {
+                try{
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while(System.nanoTime() < fim){
+                        executarUma(sortear(mix, pesoTotal, random), usuarios.get(random.nextInt(usuarios.size())), random);
+                    }
+                } finally {
+                    terminaram.countDown();
+                }
+            });
+        }
+        terminaram.await();
+        executor.shutdown();
+    }
+
+    private String sortear(Map<String, Integer> mix, int pesoTotal, ThreadLocalRandom random) {
+        int sorteado = random.nextInt(pesoTotal);
+        for(Map.Entry<String, Integer> operacao : mix.entrySet()){
+            sorteado -= operacao.getValue();
+            if(sorteado < 0){
+                return operacao.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private void executarUma(String operacao, UsuarioModel usuario, ThreadLocalRandom random) {
+        // O token do usuário é obtido fora da medição na primeira vez que ele aparece
+        String token = "autenticar".equals(operacao) ? null : tokens.computeIfAbsent(usuario.getId(), id -> autenticar(usuario));
+        long inicio = System.nanoTime();
+        try{
+            switch(operacao){
+                case "autenticar":
+                    autenticar(usuario);
+                    break;
+                case "criar":
+                    Map<String, Object> lancamento = new HashMap<>();
+                    lancamento.put("descricao", "Criado na carga " + random.nextInt(10_000));
+                    lancamento.put("ano", 2022);
+                    lancamento.put("mes", 1 + random.nextInt(12));
+                    lancamento.put("valor", 1 + random.nextInt(1000));
+                    lancamento.put("tipo", random.nextBoolean() ? "RECEITA" : "DESPESA");
+                    lancamento.put("usuario", usuario.getId());
+                    chamar(HttpMethod.POST, "/api/lancamentos", lancamento, token);
+                    break;
+                case "buscar":
+                    chamar(HttpMethod.GET, "/api/lancamentos?usuario=" + usuario.getId() + "&ano=" + (2015 + random.nextInt(8))
+                            + "&limite=50", null, token);
+                    break;
+                case "saldo":
+                    chamar(HttpMethod.GET, "/api/usuarios/" + usuario.getId() + "/saldo", null, token);
+                    break;
+                case "status":
+                    List<Long> ids = lancamentosPorUsuario.get(usuario.getId());
+                    Long id = ids.get(random.nextInt(ids.size()));
+                    StatusLancamentoEnum status = StatusLancamentoEnum.values()[random.nextInt(StatusLancamentoEnum.values().length)];
+                    chamar(HttpMethod.PUT, "/api/lancamentos/" + id + "/atualiza-status",
+                            Collections.singletonMap("status", status.name()), token);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Operação desconhecida: " + operacao);
+            }
+        } catch (HttpStatusCodeException e){
+            erros.computeIfAbsent(operacao, chave -> new AtomicLong()).incrementAndGet();
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio);
+        latencias.computeIfAbsent(operacao, chave -> new ConcurrentHistogram(MAIOR_LATENCIA_MICROS, 3))
+                 .recordValue(Math.min(Math.max(micros, 1), MAIOR_LATENCIA_MICROS));
+    }
+
+    private String autenticar(UsuarioModel usuario) {
+        Map<String, String> credenciais = new HashMap<>();
+        credenciais.put("email", usuario.getEmail());
+        credenciais.put("senha", SENHA);
+        ResponseEntity<Map> resposta = rest.postForEntity(url("/api/usuarios/autenticar"), credenciais, Map.class);
+        return (String) resposta.getBody().get("token");
+    }
+
+    private void chamar(HttpMethod metodo, String caminho, Object corpo, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(token);
+        rest.exchange(url(caminho), metodo, new HttpEntity<>(corpo, headers), String.class);
+    }
+
+    private String url(String caminho) {
+        return "http://localhost:" + porta + caminho;
+    }
+
+    private Map<String, Integer> lerMix(String mix) {
+        Map<String, Integer> pesos = new LinkedHashMap<>();
+        for(String item : mix.split(",")){
+            String[] partes = item.trim().split(":");
+            pesos.put(partes[0], Integer.valueOf(partes[1]));
+        }
+        return pesos;
+    }
+
+    private void relatar(double segundos, int clientes) throws IOException {
+        File pasta = new File("target/carga");
+        pasta.mkdirs();
+
+        long totalRequisicoes = 0;
+        System.out.printf("%nclientes=%d duracao=%.1fs%n", clientes, segundos);
+        System.out.printf("%-11s %9s %9s %9s %9s %9s %9s %9s %7s%n",
+                "operacao", "req/s", "p50(ms)", "p95(ms)", "p99(ms)", "p999(ms)", "max(ms)", "total", "erros");
+        for(Map.Entry<String, Histogram> entrada : latencias.entrySet()){
+            Histogram histograma = entrada.getValue();
+            long erro = erros.getOrDefault(entrada.getKey(), new AtomicLong()).get();
+            totalRequisicoes += histograma.getTotalCount();
+            System.out.printf("%-11s %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9d %7d%n",
+                    entrada.getKey(), histograma.getTotalCount() / segundos,
+                    histograma.getValueAtPercentile(50) / 1000.0, histograma.getValueAtPercentile(95) / 1000.0,
+                    histograma.getValueAtPercentile(99) / 1000.0, histograma.getValueAtPercentile(99.9) / 1000.0,
+                    histograma.getMaxValue() / 1000.0, histograma.getTotalCount(), erro);
+
+            try(PrintStream saida = new PrintStream(new FileOutputStream(new File(pasta, entrada.getKey() + ".hgrm")))){
+                // Em milissegundos, pronto para o HdrHistogram plotter
+                histograma.outputPercentileDistribution(saida, 1000.0);
+            }
+        }
+        System.out.printf("total=%.1f req/s%n", totalRequisicoes / segundos);
+    }
+}
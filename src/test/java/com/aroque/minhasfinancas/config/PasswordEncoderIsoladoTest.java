@@ -0,0 +1,68 @@
+package com.aroque.minhasfinancas.config;
+
+import com.aroque.minhasfinancas.exception.ErroSobrecarga;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+
+public class PasswordEncoderIsoladoTest {
+
+    @Test
+    public void deveCriptografarNoPoolProprio(){
+        // Cénario
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordEncoderIsolado encoder = new PasswordEncoderIsolado(new BCryptPasswordEncoder(4), 1, 1, registry);
+
+        // Ação
+        String senhaCriptografada = encoder.encode("123");
+
+        // Verificação
+        Assertions.assertThat(encoder.matches("123", senhaCriptografada)).isTrue();
+        Assertions.assertThat(registry.get("financas.senha.espera").timer().count()).isEqualTo(2);
+        encoder.destroy();
+    }
+
+    @Test
+    public void deveRecusarNaHoraQuandoAFilaEstiverCheia() throws Exception {
+        // Cénario: a única thread fica presa e a fila de um lugar é ocupada
+        CountDownLatch ocupado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        PasswordEncoder lento = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence senha) {
+                ocupado.countDown();
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return senha.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence senha, String senhaCriptografada) {
+                return senha.toString().equals(senhaCriptografada);
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordEncoderIsolado encoder = new PasswordEncoderIsolado(lento, 1, 1, registry);
+
+        new Thread(() -> encoder.encode("a")).start();
+        ocupado.await();
+        new Thread(() -> encoder.encode("b")).start();
+        while (registry.get("financas.senha.fila").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+
+        // Ação e verificação
+        Assertions.assertThatThrownBy(() -> encoder.encode("c")).isInstanceOf(ErroSobrecarga.class);
+        Assertions.assertThat(registry.get("financas.senha.rejeitadas").counter().count()).isEqualTo(1);
+
+        liberar.countDown();
+        encoder.destroy();
+    }
+}
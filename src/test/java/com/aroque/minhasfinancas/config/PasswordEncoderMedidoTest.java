@@ -0,0 +1,27 @@
+package com.aroque.minhasfinancas.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+public class PasswordEncoderMedidoTest {
+
+    @Test
+    public void deveMedirEncodeEMatchesSemMudarOResultado(){
+        // Cénario
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordEncoderMedido encoder = new PasswordEncoderMedido(new BCryptPasswordEncoder(4), registry);
+
+        // Ação
+        String senhaCriptografada = encoder.encode("123");
+        boolean certa = encoder.matches("123", senhaCriptografada);
+        boolean errada = encoder.matches("456", senhaCriptografada);
+
+        // Verificação
+        Assertions.assertThat(certa).isTrue();
+        Assertions.assertThat(errada).isFalse();
+        Assertions.assertThat(registry.get("financas.senha").tag("operacao", "encode").timer().count()).isEqualTo(1);
+        Assertions.assertThat(registry.get("financas.senha").tag("operacao", "matches").timer().count()).isEqualTo(2);
+    }
+}
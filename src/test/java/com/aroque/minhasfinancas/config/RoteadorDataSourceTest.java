@@ -0,0 +1,159 @@
+package com.aroque.minhasfinancas.config;
+
+import com.aroque.minhasfinancas.dto.UsuarioAutenticadoDto;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+
+// Dois H2 em memória fazendo o papel de primário e réplica, cada um com o próprio nome numa tabela
+public class RoteadorDataSourceTest {
+
+    RoteadorDataSource roteador;
+    JdbcTemplate jdbc;
+    TransactionTemplate escrita;
+    TransactionTemplate leitura;
+
+    private DataSource criarBanco(String nome){
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + nome + ";DB_CLOSE_DELAY=-1", "sa", "sa");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS origem (nome VARCHAR(20))");
+        template.execute("DELETE FROM origem");
+        template.update("INSERT INTO origem VALUES (?)", nome);
+        return dataSource;
+    }
+
+    private void montar(DataSource replica, long janelaLeituraPropriaMs){
+        roteador = new RoteadorDataSource(criarBanco("primario"), Collections.singletonList(replica), janelaLeituraPropriaMs, 0);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(roteador);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        escrita = new TransactionTemplate(transactionManager);
+        leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+    }
+
+    private String origem(TransactionTemplate transacao){
+        return transacao.execute(status -> jdbc.queryForObject("SELECT nome FROM origem", String.class));
+    }
+
+    private void autenticar(Long idUsuario){
+        UsuarioAutenticadoDto usuario = new UsuarioAutenticadoDto(idUsuario, "teste@gmail.com", "", AuthorityUtils.createAuthorityList("ROLE_USER"));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities()));
+    }
+
+    @Before
+    public void setUp(){
+        montar(criarBanco("replica"), 0);
+    }
+
+    @After
+    public void tearDown(){
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void deveLerDaReplicaEGravarNoPrimario(){
+        // Verificação
+        Assertions.assertThat(origem(leitura)).isEqualTo("replica");
+        Assertions.assertThat(origem(escrita)).isEqualTo("primario");
+        // Fora de transação vai para o primário
+        Assertions.assertThat(jdbc.queryForObject("SELECT nome FROM origem", String.class)).isEqualTo("primario");
+    }
+
+    @Test
+    public void deveLerDoPrimarioLogoDepoisDeOUsuarioGravar(){
+        // Cénario
+        montar(criarBanco("replica"), 60_000);
+        autenticar(1L);
+        Assertions.assertThat(origem(leitura)).isEqualTo("replica");
+
+        // Ação
+        origem(escrita);
+
+        // Verificação
+        Assertions.assertThat(origem(leitura)).isEqualTo("primario");
+    }
+
+    @Test
+    public void deveFixarNoPrimarioSoDepoisDoCommit(){
+        // Cénario
+        montar(criarBanco("replica"), 60_000);
+        autenticar(1L);
+        TransactionTemplate leituraSeparada = new TransactionTemplate(leitura.getTransactionManager());
+        leituraSeparada.setReadOnly(true);
+        leituraSeparada.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        // Ação: enquanto a escrita não terminou, o que ela gravou ainda não existe para ninguém
+        String duranteAEscrita = escrita.execute(status -> {
+            jdbc.queryForObject("SELECT nome FROM origem", String.class);
+            return origem(leituraSeparada);
+        });
+
+        // Verificação
+        Assertions.assertThat(duranteAEscrita).isEqualTo("replica");
+        Assertions.assertThat(origem(leitura)).isEqualTo("primario");
+    }
+
+    @Test
+    public void naoDeveFixarNoPrimarioQuandoAEscritaForDesfeita(){
+        // Cénario
+        montar(criarBanco("replica"), 60_000);
+        autenticar(1L);
+
+        // Ação
+        escrita.execute(status -> {
+            jdbc.queryForObject("SELECT nome FROM origem", String.class);
+            status.setRollbackOnly();
+            return null;
+        });
+
+        // Verificação
+        Assertions.assertThat(origem(leitura)).isEqualTo("replica");
+    }
+
+    @Test
+    public void deveTirarDoRodizioAReplicaQueFalhar(){
+        // Cénario
+        DataSource fora = new DriverManagerDataSource("jdbc:h2:mem:replica", "sa", "sa") {
+            @Override
+            public java.sql.Connection getConnection() throws SQLException {
+                throw new SQLException("fora do ar");
+            }
+        };
+        montar(fora, 0);
+
+        // Verificação: a leitura cai no primário e a verificação periódica mantém a réplica fora
+        Assertions.assertThat(origem(leitura)).isEqualTo("primario");
+        roteador.verificarReplicas();
+        Assertions.assertThat(origem(leitura)).isEqualTo("primario");
+    }
+
+    @Test
+    public void deveAlternarEntreAsReplicas(){
+        // Cénario
+        roteador = new RoteadorDataSource(criarBanco("primario"), Arrays.asList(criarBanco("replica1"), criarBanco("replica2")), 0, 0);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(roteador);
+        jdbc = new JdbcTemplate(dataSource);
+        leitura = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        leitura.setReadOnly(true);
+
+        // Verificação
+        Assertions.assertThat(Arrays.asList(origem(leitura), origem(leitura), origem(leitura)))
+                .containsExactly("replica1", "replica2", "replica1");
+    }
+}
@@ -0,0 +1,146 @@
+package com.aroque.minhasfinancas.controller;
+
+import com.aroque.minhasfinancas.dto.ImportacaoResultadoDto;
+import com.aroque.minhasfinancas.dto.LancamentoDto;
+import com.aroque.minhasfinancas.dto.LoteResultadoDto;
+import com.aroque.minhasfinancas.dto.TokenVerificadoDto;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.service.ExportacaoLancamentoService;
+import com.aroque.minhasfinancas.service.ImportacaoExtratoService;
+import com.aroque.minhasfinancas.service.Impl.SecurityUserDetailsService;
+import com.aroque.minhasfinancas.service.JwtService;
+import com.aroque.minhasfinancas.service.LancamentoService;
+import com.aroque.minhasfinancas.service.RevogacaoTokenService;
+import com.aroque.minhasfinancas.service.SincroniaLancamentoService;
+import com.aroque.minhasfinancas.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+// O usuário logado (token do usuário 1) só mexe nos próprios lançamentos
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = LancamentoController.class)
+@AutoConfigureMockMvc
+public class LancamentoControllerTest {
+
+    static final String API = "/api/lancamentos";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    LancamentoService service;
+
+    @MockBean
+    UsuarioService usuarioService;
+
+    @MockBean
+    ImportacaoExtratoService importacaoService;
+
+    @MockBean
+    ExportacaoLancamentoService exportacaoService;
+
+    @MockBean
+    SincroniaLancamentoService sincroniaService;
+
+    @MockBean
+    JwtService jwtService;
+
+    @MockBean
+    RevogacaoTokenService revogacaoTokenService;
+
+    // Usado pela SecurityConfiguration, que o @WebMvcTest também carrega
+    @MockBean
+    SecurityUserDetailsService userDetailsService;
+
+    @Before
+    public void setUp(){
+        TokenVerificadoDto token = new TokenVerificadoDto("teste@gmail.com", 1L, "Teste",
+                Instant.now().plus(1, ChronoUnit.HOURS), Instant.now(), "id-token", false);
+        Mockito.when(jwtService.verificar("token")).thenReturn(Optional.of(token));
+        Mockito.when(usuarioService.obterPorId(1L)).thenReturn(Optional.of(UsuarioModel.builder().id(1L).build()));
+    }
+
+    private MockHttpServletRequestBuilder autenticado(MockHttpServletRequestBuilder request){
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer token");
+    }
+
+    @Test
+    public void naoDeveExportarLancamentosDeOutroUsuario() throws Exception {
+        // Execução e verificação
+        mvc.perform(autenticado(MockMvcRequestBuilders.get(API.concat("/export")).param("usuario", "2")))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+        Mockito.verify(exportacaoService, Mockito.never()).exportar(Mockito.anyLong(), Mockito.anyString(), Mockito.any());
+    }
+
+    @Test
+    public void naoDeveImportarLancamentosParaOutroUsuario() throws Exception {
+        // Execução e verificação
+        mvc.perform(autenticado(MockMvcRequestBuilders.post(API.concat("/importar")).param("usuario", "2")
+                        .contentType("text/csv").content("descricao;valor\nMercado;10")))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+        Mockito.verify(importacaoService, Mockito.never()).importar(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.anyLong());
+    }
+
+    @Test
+    public void deveImportarParaOUsuarioLogado() throws Exception {
+        // Cénario
+        Mockito.when(importacaoService.importar(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.eq(1L)))
+               .thenReturn(new ImportacaoResultadoDto(1, 1, 0, Collections.emptyList(), 1, 1));
+
+        // Execução e verificação: sem "usuario", vale o do token
+        mvc.perform(autenticado(MockMvcRequestBuilders.post(API.concat("/importar"))
+                        .contentType("text/csv").content("descricao;valor\nMercado;10")))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+    }
+
+    @Test
+    public void naoDeveSalvarLoteComLancamentoDeOutroUsuario() throws Exception {
+        // Cénario
+        String json = new ObjectMapper().writeValueAsString(Arrays.asList(
+                LancamentoDto.builder().descricao("Meu").usuario(1L).build(),
+                LancamentoDto.builder().descricao("De outro").usuario(2L).build()));
+
+        // Execução e verificação
+        mvc.perform(autenticado(MockMvcRequestBuilders.post(API.concat("/lote"))
+                        .contentType(MediaType.APPLICATION_JSON).content(json)))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+        Mockito.verify(service, Mockito.never()).salvarLote(Mockito.anyList());
+    }
+
+    @Test
+    public void deveSalvarOLoteNoUsuarioLogado() throws Exception {
+        // Cénario
+        Mockito.when(service.salvarLote(Mockito.anyList())).thenReturn(new LoteResultadoDto(1, 1, Collections.emptyList()));
+        String json = new ObjectMapper().writeValueAsString(Collections.singletonList(
+                LancamentoDto.builder().descricao("Sem usuário").tipo("DESPESA").build()));
+
+        // Execução e verificação
+        mvc.perform(autenticado(MockMvcRequestBuilders.post(API.concat("/lote"))
+                        .contentType(MediaType.APPLICATION_JSON).content(json)))
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+        Mockito.verify(service).salvarLote(Mockito.argThat(lancamentos -> lancamentos.size() == 1
+                && lancamentos.get(0).getUsuario().getId().equals(1L)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.aroque.minhasfinancas.controller;
+
+import com.aroque.minhasfinancas.dto.TokenDto;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.service.EventosUsuarioService;
+import com.aroque.minhasfinancas.service.Impl.JwtServiceImpl;
+import com.aroque.minhasfinancas.service.Impl.RevogacaoTokenServiceImpl;
+import com.aroque.minhasfinancas.service.Impl.SecurityUserDetailsService;
+import com.aroque.minhasfinancas.service.JwtService;
+import com.aroque.minhasfinancas.service.LancamentoService;
+import com.aroque.minhasfinancas.service.RevogacaoTokenService;
+import com.aroque.minhasfinancas.service.UsuarioService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+// A troca do refresh token com o JwtService e a revogação de verdade, sem mock no meio
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = UsuarioController.class)
+@AutoConfigureMockMvc
+@Import({JwtServiceImpl.class, RevogacaoTokenServiceImpl.class})
+public class UsuarioControllerRefreshTokenTest {
+
+    static final String API = "/api/usuarios";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    JwtService jwtService;
+
+    @Autowired
+    RevogacaoTokenService revogacaoTokenService;
+
+    @MockBean
+    UsuarioService service;
+
+    @MockBean
+    LancamentoService lancamentoService;
+
+    @MockBean
+    EventosUsuarioService eventosService;
+
+    @MockBean
+    SecurityUserDetailsService userDetailsService;
+
+    private ResultActions trocar(String refreshToken) throws Exception {
+        String json = new ObjectMapper().writeValueAsString(new TokenDto(null, null, refreshToken));
+        return mvc.perform(MockMvcRequestBuilders
+                .post(API.concat("/token/refresh"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json));
+    }
+
+    @Test
+    public void deveTrocarUmRefreshTokenNovoUmaVezSo() throws Exception {
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().id(1L).nome("Teste").email("teste@gmail.com").build();
+        String refreshToken = jwtService.gerarRefreshToken(usuario);
+
+        // Execução e verificação
+        trocar(refreshToken)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("refreshToken").isNotEmpty());
+        trocar(refreshToken)
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+    }
+
+    @Test
+    public void naoDeveTrocarRefreshTokenDeSessaoRevogada() throws Exception {
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().id(2L).nome("Teste").email("outro@gmail.com").build();
+        String refreshToken = jwtService.gerarRefreshToken(usuario);
+        Thread.sleep(2);
+        revogacaoTokenService.revogarTokensDoUsuario(2L);
+
+        // Execução e verificação
+        trocar(refreshToken)
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+    }
+}
@@ -1,10 +1,17 @@
 package com.aroque.minhasfinancas.controller;
 
+import com.aroque.minhasfinancas.dto.TokenDto;
+import com.aroque.minhasfinancas.dto.TokenVerificadoDto;
 import com.aroque.minhasfinancas.dto.UsuarioDto;
 import com.aroque.minhasfinancas.exception.ErroAutentificacao;
+import com.aroque.minhasfinancas.exception.ErroSobrecarga;
 import com.aroque.minhasfinancas.exception.RegraNegocioExecption;
 import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.service.EventosUsuarioService;
+import com.aroque.minhasfinancas.service.Impl.SecurityUserDetailsService;
+import com.aroque.minhasfinancas.service.JwtService;
 import com.aroque.minhasfinancas.service.LancamentoService;
+import com.aroque.minhasfinancas.service.RevogacaoTokenService;
 import com.aroque.minhasfinancas.service.UsuarioService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
@@ -14,6 +21,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -21,6 +29,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
 
 @RunWith(SpringRunner.class)
 @ActiveProfiles("test")
@@ -39,6 +52,19 @@ public class UsuarioControllerTest {
     @MockBean
     LancamentoService lancamentoService;
 
+    @MockBean
+    JwtService jwtService;
+
+    @MockBean
+    RevogacaoTokenService revogacaoTokenService;
+
+    @MockBean
+    EventosUsuarioService eventosService;
+
+    // Usado pela SecurityConfiguration, que o @WebMvcTest também carrega
+    @MockBean
+    SecurityUserDetailsService userDetailsService;
+
 
     @Test
     public void deveAutenticarUmUsuario() throws Exception {
@@ -94,6 +120,29 @@ public class UsuarioControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isBadRequest());
     }
 
+    @Test
+    public void deveRetornarServiceUnavailableQuandoOHashDeSenhaEstiverSobrecarregado() throws Exception {
+        // Cénario
+        String email = "teste@gmail.com";
+        String senha = "123";
+
+        UsuarioDto dto = UsuarioDto.builder().email(email).senha(senha).build();
+
+        Mockito.when(service.autenticar(email, senha)).thenThrow(new ErroSobrecarga("sobrecarga"));
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        // Execução e verificação
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(API.concat("/autenticar"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
 
     @Test
     public void deveCriarUmNovoUsuario() throws Exception {
@@ -148,4 +197,88 @@ public class UsuarioControllerTest {
 
     }
 
+    @Test
+    public void deveTrocarORefreshTokenPorUmNovoPar() throws Exception {
+        // Cénario
+        TokenVerificadoDto refresh = new TokenVerificadoDto("teste@gmail.com", 1L, "Teste",
+                Instant.now().plus(1, ChronoUnit.DAYS), Instant.now(), "id-refresh", true);
+        Mockito.when(jwtService.verificarRefresh("refresh")).thenReturn(Optional.of(refresh));
+        Mockito.when(revogacaoTokenService.consumir(refresh)).thenReturn(true);
+        Mockito.when(jwtService.gerarToken(Mockito.any(UsuarioModel.class))).thenReturn("novo-token");
+        Mockito.when(jwtService.gerarRefreshToken(Mockito.any(UsuarioModel.class))).thenReturn("novo-refresh");
+        String json = new ObjectMapper().writeValueAsString(new TokenDto(null, null, "refresh"));
+
+        // Execução e verificação
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(API.concat("/token/refresh"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("token").value("novo-token"))
+                .andExpect(MockMvcResultMatchers.jsonPath("refreshToken").value("novo-refresh"));
+        Mockito.verify(service, Mockito.never()).autenticar(Mockito.anyString(), Mockito.anyString());
+    }
+
+    @Test
+    public void deveRevogarAsSessoesQuandoORefreshTokenForReutilizado() throws Exception {
+        // Cénario
+        TokenVerificadoDto refresh = new TokenVerificadoDto("teste@gmail.com", 1L, "Teste",
+                Instant.now().plus(1, ChronoUnit.DAYS), Instant.now(), "id-refresh", true);
+        Mockito.when(jwtService.verificarRefresh("refresh")).thenReturn(Optional.of(refresh));
+        Mockito.when(revogacaoTokenService.consumir(refresh)).thenReturn(false);
+        String json = new ObjectMapper().writeValueAsString(new TokenDto(null, null, "refresh"));
+
+        // Execução e verificação
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(API.concat("/token/refresh"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+        Mockito.verify(revogacaoTokenService).revogarTokensDoUsuario(1L);
+    }
+
+    @Test
+    public void naoDeveInscreverNosEventosDeOutroUsuario() throws Exception {
+        // Cénario
+        TokenVerificadoDto token = new TokenVerificadoDto("teste@gmail.com", 1L, "Teste",
+                Instant.now().plus(1, ChronoUnit.HOURS), Instant.now(), "id-token", false);
+        Mockito.when(jwtService.verificar("token")).thenReturn(Optional.of(token));
+
+        // Execução e verificação
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(API.concat("/2/eventos"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer token")
+                .accept(MediaType.TEXT_EVENT_STREAM);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+        Mockito.verify(eventosService, Mockito.never()).inscrever(Mockito.anyLong());
+    }
+
+    @Test
+    public void deveInscreverNosEventosDoUsuarioLogado() throws Exception {
+        // Cénario
+        TokenVerificadoDto token = new TokenVerificadoDto("teste@gmail.com", 1L, "Teste",
+                Instant.now().plus(1, ChronoUnit.HOURS), Instant.now(), "id-token", false);
+        Mockito.when(jwtService.verificar("token")).thenReturn(Optional.of(token));
+        Mockito.when(service.obterPorId(1L)).thenReturn(Optional.of(UsuarioModel.builder().id(1L).build()));
+        Mockito.when(eventosService.inscrever(1L)).thenReturn(new SseEmitter());
+
+        // Execução e verificação
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(API.concat("/1/eventos"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer token")
+                .accept(MediaType.TEXT_EVENT_STREAM);
+
+        mvc.perform(request)
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        Mockito.verify(eventosService).inscrever(1L);
+    }
+
 }
@@ -0,0 +1,119 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.dto.LancamentoFiltroDto;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.util.Trigramas;
+import org.assertj.core.api.Assertions;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+// Compara a busca antiga por Example (lower(descricao) like '%x%') com o índice de trigramas
+// Não roda no build normal: mvn test -Dtest=BuscaDescricaoBenchmarkTest -Dbenchmark=true
+// Quantidade de lançamentos em -Dbenchmark.linhas (padrão 1.000.000), precisa de heap grande (-Xmx4g) por ser H2 em memória
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class BuscaDescricaoBenchmarkTest {
+
+    private static final String[] PALAVRAS = {"Supermercado", "Aluguel", "Salário", "Conta de luz", "Farmácia",
+            "Padaria", "Combustível", "Restaurante", "Internet", "Academia", "Condomínio", "Presente"};
+
+    private static final String INSERT_LANCAMENTO = "INSERT INTO financas.lancamento "
+            + "(id, descricao, descricao_normalizada, mes, ano, id_usuario, valor, data_cadastro, tipo, status) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_TRIGRAMA = "INSERT INTO financas.lancamento_trigrama "
+            + "(id_usuario, trigrama, id_lancamento) VALUES (?, ?, ?)";
+
+    @Autowired
+    LancamentoRepository repository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void deveCompararExampleComIndiceDeTrigramas(){
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+        int linhas = Integer.getInteger("benchmark.linhas", 1_000_000);
+
+        UsuarioModel usuario = UsuarioModel.builder().nome("Benchmark").email("benchmark@gmail.com").build();
+        entityManager.persist(usuario);
+        entityManager.flush();
+        popular(usuario.getId(), linhas);
+
+        for(String termo : new String[]{"farmácia 123", "luz 7", "internet"}){
+            LancamentoModel probe = new LancamentoModel();
+            probe.setDescricao(termo);
+            probe.setUsuario(UsuarioModel.builder().id(usuario.getId()).build());
+            Example<LancamentoModel> example = Example.of(probe, ExampleMatcher.matching()
+                    .withIgnoreCase()
+                    .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
+            LancamentoFiltroDto filtro = LancamentoFiltroDto.builder().usuario(usuario.getId()).descricao(termo).build();
+
+            double tempoExample = medir(() -> repository.findAll(example));
+            double tempoTrigrama = medir(() -> repository.findAll(LancamentoSpecifications.doFiltro(filtro)));
+
+            // As duas formas precisam encontrar exatamente os mesmos lançamentos
+            Assertions.assertThat(repository.findAll(LancamentoSpecifications.doFiltro(filtro)))
+                      .hasSameSizeAs(repository.findAll(example));
+
+            System.out.printf("linhas=%d termo='%s' example=%.2fms trigrama=%.2fms%n", linhas, termo, tempoExample, tempoTrigrama);
+        }
+    }
+
+    private double medir(Supplier<List<LancamentoModel>> busca) {
+        for(int i = 0; i < 3; i++){
+            busca.get();
+            entityManager.clear();
+        }
+        int repeticoes = 10;
+        long inicio = System.nanoTime();
+        for(int i = 0; i < repeticoes; i++){
+            busca.get();
+            entityManager.clear();
+        }
+        return (System.nanoTime() - inicio) / 1_000_000.0 / repeticoes;
+    }
+
+    private void popular(Long idUsuario, int linhas) {
+        Random random = new Random(42);
+        int lote = 5_000;
+        for(int inicio = 0; inicio < linhas; inicio += lote){
+            List<Object[]> lancamentos = new ArrayList<>();
+            List<Object[]> trigramas = new ArrayList<>();
+            for(long id = inicio + 1; id <= Math.min(inicio + lote, linhas); id++){
+                String descricao = PALAVRAS[random.nextInt(PALAVRAS.length)] + " " + random.nextInt(1000);
+                String normalizada = Trigramas.normalizar(descricao);
+                lancamentos.add(new Object[]{id, descricao, normalizada, 1 + random.nextInt(12), 2015 + random.nextInt(8),
+                        idUsuario, 10 + random.nextInt(1000), Date.valueOf(LocalDate.now()), "DESPESA", "EFETIVADO"});
+                for(String trigrama : Trigramas.gerar(normalizada)){
+                    trigramas.add(new Object[]{idUsuario, trigrama, id});
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_LANCAMENTO, lancamentos);
+            jdbcTemplate.batchUpdate(INSERT_TRIGRAMA, trigramas);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.dto.LancamentoDto;
+import com.aroque.minhasfinancas.dto.LancamentoFiltroDto;
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import org.assertj.core.api.Assertions;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+// "Despesas acima de 500 no terceiro trimestre" com a tabela crescendo de 10 mil até -Dbenchmark.linhas (padrão 1.000.000)
+// Cada usuário tem sempre LINHAS_POR_USUARIO lançamentos: com os índices o tempo acompanha o usuário, não a tabela
+// Não roda no build normal: mvn test -Dtest=BuscaPorFaixaBenchmarkTest -Dbenchmark=true (com -Xmx4g, H2 em memória)
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class BuscaPorFaixaBenchmarkTest {
+
+    private static final int LINHAS_POR_USUARIO = 1_000;
+
+    // Bem longe dos ids gerados pela identity, que o H2 não avança com id explícito
+    private static final long PRIMEIRO_USUARIO = 1_000_000L;
+
+    private static final String INSERT_USUARIO = "INSERT INTO financas.usuario (id, nome, email) VALUES (?, ?, ?)";
+
+    private static final String INSERT_LANCAMENTO = "INSERT INTO financas.lancamento "
+            + "(id, descricao, descricao_normalizada, mes, ano, periodo, id_usuario, valor, data_cadastro, tipo, status) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    LancamentoRepository repository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void deveManterOTempoDaBuscaPorFaixaQuandoATabelaCresce(){
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+        int linhas = Integer.getInteger("benchmark.linhas", 1_000_000);
+
+        Specification<LancamentoModel> filtro = LancamentoSpecifications.doFiltro(
+                LancamentoFiltroDto.builder()
+                        .usuario(PRIMEIRO_USUARIO)
+                        .tipos(EnumSet.of(TipoLancamentoEnum.DESPESA))
+                        .status(EnumSet.of(StatusLancamentoEnum.PENDENTE, StatusLancamentoEnum.EFETIVADO))
+                        .valorMinimo(BigDecimal.valueOf(500))
+                        .cadastroDe(LocalDate.of(2022, 7, 1)).cadastroAte(LocalDate.of(2022, 9, 30))
+                        .build());
+
+        int populadas = 0;
+        double primeiroTempo = 0;
+        int primeiroTamanho = 0;
+        double ultimoTempo = 0;
+        for(int tamanho = 10_000; tamanho <= linhas; tamanho *= 10){
+            popular(populadas, tamanho);
+            populadas = tamanho;
+
+            int encontrados = repository.listar(filtro).size();
+            double tempo = medir(filtro);
+            if(primeiroTamanho == 0){
+                primeiroTamanho = tamanho;
+                primeiroTempo = tempo;
+            }
+            ultimoTempo = tempo;
+            System.out.printf("linhas=%d encontrados=%d faixa=%.3fms%n", tamanho, encontrados, tempo);
+        }
+
+        // Crescimento linear multiplicaria o tempo pelo mesmo fator da tabela; com índice fica muito abaixo disso
+        double crescimento = (double) populadas / primeiroTamanho;
+        Assertions.assertThat(ultimoTempo).isLessThan(primeiroTempo * Math.max(crescimento / 4, 2));
+    }
+
+    private double medir(Specification<LancamentoModel> filtro) {
+        for(int i = 0; i < 5; i++){
+            repository.listar(filtro);
+        }
+        int repeticoes = 20;
+        long inicio = System.nanoTime();
+        for(int i = 0; i < repeticoes; i++){
+            List<LancamentoDto> lancamentos = repository.listar(filtro);
+            Assertions.assertThat(lancamentos).isNotNull();
+        }
+        return (System.nanoTime() - inicio) / 1_000_000.0 / repeticoes;
+    }
+
+    // Acrescenta usuários inteiros até a tabela chegar em "ate" linhas, um ano de lançamentos para cada
+    private void popular(int de, int ate) {
+        Random random = new Random(42 + de);
+        TipoLancamentoEnum[] tipos = TipoLancamentoEnum.values();
+        StatusLancamentoEnum[] status = StatusLancamentoEnum.values();
+        LocalDate inicioDoAno = LocalDate.of(2022, 1, 1);
+
+        for(int inicio = de; inicio < ate; inicio += LINHAS_POR_USUARIO){
+            long idUsuario = PRIMEIRO_USUARIO + inicio / LINHAS_POR_USUARIO;
+            jdbcTemplate.update(INSERT_USUARIO, idUsuario, "Usuário " + idUsuario, idUsuario + "@gmail.com");
+
+            List<Object[]> lancamentos = new ArrayList<>();
+            for(long id = inicio + 1; id <= inicio + LINHAS_POR_USUARIO; id++){
+                LocalDate cadastro = inicioDoAno.plusDays(random.nextInt(365));
+                lancamentos.add(new Object[]{id, "Lançamento " + id, "lancamento " + id,
+                        cadastro.getMonthValue(), cadastro.getYear(), cadastro.getYear() * 100 + cadastro.getMonthValue(),
+                        idUsuario, 10 + random.nextInt(1000), Date.valueOf(cadastro),
+                        tipos[random.nextInt(tipos.length)].name(), status[random.nextInt(status.length)].name()});
+            }
+            jdbcTemplate.batchUpdate(INSERT_LANCAMENTO, lancamentos);
+        }
+        entityManager.clear();
+    }
+}
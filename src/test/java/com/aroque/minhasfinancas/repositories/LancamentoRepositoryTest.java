@@ -1,24 +1,49 @@
 package com.aroque.minhasfinancas.repositories;
 
+import com.aroque.minhasfinancas.dto.LancamentoDto;
+import com.aroque.minhasfinancas.dto.LancamentoFiltroDto;
+import com.aroque.minhasfinancas.dto.ResumoMensalDto;
+import com.aroque.minhasfinancas.dto.SelecaoLancamentosDto;
 import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
 import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
 import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.UsuarioModel;
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.sql.DataSource;
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RunWith(SpringRunner.class)
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.aroque.minhasfinancas.repositories.LancamentoRepositoryTest$UltimoSelect")
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @ActiveProfiles("test")
 public class LancamentoRepositoryTest {
@@ -29,6 +54,26 @@ public class LancamentoRepositoryTest {
     @Autowired
     TestEntityManager entityManager;
 
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    DataSource dataSource;
+
+    // Registrado no Hibernate pelo @DataJpaTest acima: guarda o último SELECT mandado ao banco
+    public static class UltimoSelect implements StatementInspector {
+
+        static volatile String sql;
+
+        @Override
+        public String inspect(String comando) {
+            if(comando.startsWith("select")){
+                sql = comando;
+            }
+            return comando;
+        }
+    }
+
 
     // Para não ter que ficar criando um lançamento na mão toda hora
     private LancamentoModel criarLancamento(){
@@ -106,4 +151,399 @@ public class LancamentoRepositoryTest {
         // Verificação
         Assertions.assertThat(lancamentoEncontrado.isPresent()).isTrue();
     }
+
+
+    @Test
+    public void deveAgruparOsTotaisDoAnoPorMesTipoEStatus(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+
+        LancamentoModel janeiro1 = criarLancamento();
+        janeiro1.setUsuario(usuario);
+        entityManager.persist(janeiro1);
+
+        LancamentoModel janeiro2 = criarLancamento();
+        janeiro2.setUsuario(usuario);
+        entityManager.persist(janeiro2);
+
+        LancamentoModel fevereiro = criarLancamento();
+        fevereiro.setUsuario(usuario);
+        fevereiro.setMes(2);
+        fevereiro.setTipo(TipoLancamentoEnum.DESPESA);
+        entityManager.persist(fevereiro);
+
+        // Ação
+        List<ResumoMensalDto> resumo = repository.obterResumoPorAnoEUsuario(usuario.getId(), 2022);
+
+        // Verificação
+        Assertions.assertThat(resumo).hasSize(2);
+        Assertions.assertThat(resumo).anySatisfy(linha -> {
+            Assertions.assertThat(linha.getMes()).isEqualTo(1);
+            Assertions.assertThat(linha.getTipo()).isEqualTo(TipoLancamentoEnum.RECEITA);
+            Assertions.assertThat(linha.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(20));
+        });
+    }
+
+
+    @Test
+    public void deveContinuarAPaginaAPartirDoCursor(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+        for(int mes = 1; mes <= 3; mes++){
+            LancamentoModel lancamento = criarLancamento();
+            lancamento.setUsuario(usuario);
+            lancamento.setMes(mes);
+            entityManager.persist(lancamento);
+        }
+        Specification<LancamentoModel> filtro = LancamentoSpecifications.doFiltro(
+                LancamentoFiltroDto.builder().usuario(usuario.getId()).build());
+
+        // Ação
+        List<LancamentoDto> primeiraPagina = repository.listarPagina(filtro, null, 2, false);
+        LancamentoCursor cursor = LancamentoCursor.depoisDe(primeiraPagina.get(1));
+        List<LancamentoDto> segundaPagina = repository.listarPagina(filtro, cursor, 2, false);
+
+        // Verificação
+        Assertions.assertThat(primeiraPagina).extracting(LancamentoDto::getMes).containsExactly(1, 2);
+        Assertions.assertThat(segundaPagina).extracting(LancamentoDto::getMes).containsExactly(3);
+    }
+
+
+    @Test
+    public void devePercorrerOsLancamentosDoUsuarioEmOrdem(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+        UsuarioModel outro = UsuarioModel.builder().nome("Outro").email("outro@gmail.com").build();
+        entityManager.persist(outro);
+        for(int mes = 3; mes >= 1; mes--){
+            LancamentoModel lancamento = criarLancamento();
+            lancamento.setUsuario(usuario);
+            lancamento.setMes(mes);
+            entityManager.persist(lancamento);
+        }
+        LancamentoModel doOutro = criarLancamento();
+        doOutro.setUsuario(outro);
+        entityManager.persist(doOutro);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Ação
+        List<Integer> meses;
+        try(Stream<LancamentoModel> lancamentos = repository.percorrerPorUsuario(usuario.getId())){
+            meses = lancamentos.map(LancamentoModel::getMes).collect(Collectors.toList());
+        }
+
+        // Verificação
+        Assertions.assertThat(meses).containsExactly(1, 2, 3);
+    }
+
+
+    @Test
+    public void deveListarOsLancamentosComUmUnicoComandoSemCarregarOsUsuarios(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+        for(int mes = 1; mes <= 5; mes++){
+            LancamentoModel lancamento = criarLancamento();
+            lancamento.setUsuario(usuario);
+            lancamento.setMes(mes);
+            entityManager.persist(lancamento);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Specification<LancamentoModel> filtro = LancamentoSpecifications.doFiltro(
+                LancamentoFiltroDto.builder().usuario(usuario.getId()).build());
+        Statistics estatisticas = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+
+        // Ação
+        List<LancamentoDto> lancamentos = repository.listar(filtro);
+        List<LancamentoDto> pagina = repository.listarPagina(filtro, null, 3, false);
+        Optional<LancamentoDto> umLancamento = repository.obterDtoPorId(lancamentos.get(0).getId());
+
+        // Verificação
+        // Um comando por consulta, nenhum para buscar usuário e nenhuma entidade carregada
+        Assertions.assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(3);
+        Assertions.assertThat(estatisticas.getEntityLoadCount()).isZero();
+        Assertions.assertThat(lancamentos).hasSize(5).allSatisfy(dto -> {
+            Assertions.assertThat(dto.getUsuario()).isEqualTo(usuario.getId());
+            Assertions.assertThat(dto.getTipo()).isEqualTo("RECEITA");
+        });
+        Assertions.assertThat(pagina).extracting(LancamentoDto::getMes).containsExactly(1, 2, 3);
+        Assertions.assertThat(umLancamento.isPresent()).isTrue();
+    }
+
+    @Test
+    public void naoDeveCarregarOUsuarioAoBuscarOLancamento(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+        LancamentoModel lancamento = criarLancamento();
+        lancamento.setUsuario(usuario);
+        entityManager.persist(lancamento);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics estatisticas = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+
+        // Ação
+        LancamentoModel encontrado = repository.findById(lancamento.getId()).get();
+        Long idUsuario = encontrado.getUsuario().getId();
+
+        // Verificação
+        Assertions.assertThat(idUsuario).isEqualTo(usuario.getId());
+        Assertions.assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+
+    @Test
+    public void deveAtualizarOStatusSoDosLancamentosDoUsuarioSelecionado(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+        UsuarioModel outro = UsuarioModel.builder().nome("Outro").email("outro@gmail.com").build();
+        entityManager.persist(outro);
+
+        LancamentoModel receita = criarLancamento();
+        receita.setUsuario(usuario);
+        entityManager.persist(receita);
+        LancamentoModel despesa = criarLancamento();
+        despesa.setUsuario(usuario);
+        despesa.setTipo(TipoLancamentoEnum.DESPESA);
+        despesa.setValor(BigDecimal.valueOf(4));
+        entityManager.persist(despesa);
+        LancamentoModel doOutro = criarLancamento();
+        doOutro.setUsuario(outro);
+        entityManager.persist(doOutro);
+
+        // Os ids do outro usuário vão junto, mas a seleção pelo usuário barra
+        SelecaoLancamentosDto selecao = SelecaoLancamentosDto.builder().usuario(usuario.getId())
+                .ids(Arrays.asList(receita.getId(), despesa.getId(), doOutro.getId())).build();
+
+        // Ação
+        BigDecimal diferenca = repository.somarComSinal(selecao, false);
+        int atualizados = repository.atualizarStatus(selecao, StatusLancamentoEnum.EFETIVADO, 1L);
+
+        // Verificação
+        Assertions.assertThat(diferenca).isEqualByComparingTo(BigDecimal.valueOf(6));
+        Assertions.assertThat(atualizados).isEqualTo(2);
+        Assertions.assertThat(entityManager.find(LancamentoModel.class, receita.getId()).getStatus()).isEqualTo(StatusLancamentoEnum.EFETIVADO);
+        Assertions.assertThat(entityManager.find(LancamentoModel.class, doOutro.getId()).getStatus()).isEqualTo(StatusLancamentoEnum.PENDENTE);
+        // Quem já está no novo status não conta de novo
+        Assertions.assertThat(repository.atualizarStatus(selecao, StatusLancamentoEnum.EFETIVADO, 1L)).isZero();
+    }
+
+
+    @Test
+    public void deveAtualizarSemLeituraSoNaVersaoAtual(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+        LancamentoModel lancamento = criarLancamento();
+        lancamento.setUsuario(usuario);
+        entityManager.persist(lancamento);
+        entityManager.flush();
+        entityManager.clear();
+
+        LancamentoModel alteracao = criarLancamento();
+        alteracao.setId(lancamento.getId());
+        alteracao.setUsuario(usuario);
+        alteracao.setValor(BigDecimal.valueOf(99));
+        alteracao.setVersao(lancamento.getVersao());
+        // O serviço reserva a sequência do usuário antes do UPDATE
+        alteracao.setSequencia(1L);
+
+        // Ação
+        int primeira = repository.atualizarSemLeitura(alteracao);
+        // A mesma versão de novo: outra pessoa já gravou em cima dela
+        int segunda = repository.atualizarSemLeitura(alteracao);
+
+        // Verificação
+        Assertions.assertThat(primeira).isEqualTo(1);
+        Assertions.assertThat(segunda).isZero();
+        LancamentoModel gravado = entityManager.find(LancamentoModel.class, lancamento.getId());
+        Assertions.assertThat(gravado.getValor()).isEqualByComparingTo(BigDecimal.valueOf(99));
+        Assertions.assertThat(gravado.getVersao()).isEqualTo(lancamento.getVersao() + 1);
+    }
+
+    @Test
+    public void naoDeveDeletarSemLeituraLancamentoDeOutroUsuario(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+        LancamentoModel lancamento = criarLancamento();
+        lancamento.setUsuario(usuario);
+        entityManager.persist(lancamento);
+        entityManager.flush();
+
+        // Ação
+        int deOutro = repository.deletarSemLeitura(lancamento.getId(), usuario.getId() + 1, null);
+        int doDono = repository.deletarSemLeitura(lancamento.getId(), usuario.getId(), lancamento.getVersao());
+
+        // Verificação
+        Assertions.assertThat(deOutro).isZero();
+        Assertions.assertThat(doDono).isEqualTo(1);
+    }
+
+    @Test
+    public void deveProcurarPorcentagemESublinhadoComoTextoNaDescricao(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+        for(String descricao : new String[]{"Desconto 10%", "Desconto 100 reais", "conta_luz", "conta luz"}){
+            LancamentoModel lancamento = criarLancamento();
+            lancamento.setDescricao(descricao);
+            lancamento.setUsuario(usuario);
+            entityManager.persist(lancamento);
+        }
+        entityManager.flush();
+
+        // Ação
+        // Sem usuário o filtro não passa pelos trigramas, e só o LIKE decide
+        List<LancamentoModel> porcentagem = repository.findAll(LancamentoSpecifications.doFiltro(
+                LancamentoFiltroDto.builder().descricao("10%").build()));
+        List<LancamentoModel> sublinhado = repository.findAll(LancamentoSpecifications.doFiltro(
+                LancamentoFiltroDto.builder().descricao("a_l").ignorarAcentos(true).build()));
+
+        // Verificação
+        Assertions.assertThat(porcentagem).extracting(LancamentoModel::getDescricao).containsExactly("Desconto 10%");
+        Assertions.assertThat(sublinhado).extracting(LancamentoModel::getDescricao).containsExactly("conta_luz");
+    }
+
+    @Test
+    public void deveFiltrarPorIntervaloDeMesesPassandoDeUmAnoParaOutro(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+        int[][] periodos = {{2021, 10}, {2021, 11}, {2021, 12}, {2022, 1}, {2022, 2}, {2022, 3}};
+        for(int[] periodo : periodos){
+            LancamentoModel lancamento = criarLancamento();
+            lancamento.setUsuario(usuario);
+            lancamento.setAno(periodo[0]);
+            lancamento.setMes(periodo[1]);
+            entityManager.persist(lancamento);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Ação
+        List<LancamentoDto> lancamentos = repository.listar(LancamentoSpecifications.doFiltro(
+                LancamentoFiltroDto.builder().usuario(usuario.getId()).de(202111).ate(202202).build()));
+
+        // Verificação
+        Assertions.assertThat(lancamentos)
+                .extracting(lancamento -> lancamento.getAno() * 100 + lancamento.getMes())
+                .containsExactlyInAnyOrder(202111, 202112, 202201, 202202);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void deveUsarOsIndicesDeFiltroNasConsultasGeradasPelaSpecification() throws SQLException {
+        // Cénario
+        // Lançamentos gravados e com estatísticas, como num banco em uso: com a tabela vazia o H2 não diferencia
+        // os índices que começam por id_usuario. O ANALYZE faz commit, então este teste fica fora da transação
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.execute(status -> {
+            entityManager.persist(usuario);
+            for(int i = 0; i < 36; i++){
+                LancamentoModel lancamento = criarLancamento();
+                lancamento.setUsuario(usuario);
+                lancamento.setAno(2020 + i / 12);
+                lancamento.setMes(1 + i % 12);
+                lancamento.setTipo(TipoLancamentoEnum.values()[i % 2]);
+                lancamento.setStatus(StatusLancamentoEnum.values()[i % 3]);
+                entityManager.persist(lancamento);
+            }
+            return null;
+        });
+
+        try {
+            executar("ANALYZE");
+
+            // Ação
+            String planoDoPeriodo = planoDaConsulta(LancamentoFiltroDto.builder()
+                    .usuario(usuario.getId()).de(202111).ate(202202).build());
+            String planoDoStatusETipo = planoDaConsulta(LancamentoFiltroDto.builder()
+                    .usuario(usuario.getId()).tipo(TipoLancamentoEnum.DESPESA)
+                    .status(EnumSet.of(StatusLancamentoEnum.EFETIVADO)).build());
+
+            // Verificação
+            Assertions.assertThat(planoDoPeriodo).containsIgnoringCase("idx_lancamento_usuario_periodo");
+            Assertions.assertThat(planoDoStatusETipo).containsIgnoringCase("idx_lancamento_usuario_status_tipo");
+        } finally {
+            transacao.execute(status -> entityManager.getEntityManager()
+                    .createQuery(" DELETE FROM LancamentoModel l WHERE l.usuario.id = :idUsuario ")
+                    .setParameter("idUsuario", usuario.getId())
+                    .executeUpdate());
+            transacao.execute(status -> entityManager.getEntityManager()
+                    .createQuery(" DELETE FROM UsuarioModel u WHERE u.id = :id ")
+                    .setParameter("id", usuario.getId())
+                    .executeUpdate());
+        }
+    }
+
+    // EXPLAIN do SELECT que o Hibernate gerou para o filtro, e não de um SQL escrito à mão
+    // O H2 monta o plano sem os valores dos parâmetros, então os ? ficam como vieram
+    private String planoDaConsulta(LancamentoFiltroDto filtro) throws SQLException {
+        repository.listar(LancamentoSpecifications.doFiltro(filtro));
+        try(Connection conexao = dataSource.getConnection();
+            PreparedStatement explain = conexao.prepareStatement("EXPLAIN " + UltimoSelect.sql);
+            ResultSet plano = explain.executeQuery()){
+            plano.next();
+            return plano.getString(1);
+        }
+    }
+
+    private void executar(String comando) throws SQLException {
+        try(Connection conexao = dataSource.getConnection(); Statement statement = conexao.createStatement()){
+            statement.execute(comando);
+        }
+    }
+
+    @Test
+    public void deveFiltrarPorFaixaDeValorDataDeCadastroEConjuntosDeStatus(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+        Object[][] dados = {
+                // valor, data de cadastro, tipo, status
+                {600, LocalDate.of(2022, 7, 10), TipoLancamentoEnum.DESPESA, StatusLancamentoEnum.EFETIVADO},
+                {900, LocalDate.of(2022, 9, 30), TipoLancamentoEnum.DESPESA, StatusLancamentoEnum.PENDENTE},
+                {100, LocalDate.of(2022, 8, 1), TipoLancamentoEnum.DESPESA, StatusLancamentoEnum.EFETIVADO},
+                {700, LocalDate.of(2022, 10, 1), TipoLancamentoEnum.DESPESA, StatusLancamentoEnum.EFETIVADO},
+                {800, LocalDate.of(2022, 8, 15), TipoLancamentoEnum.RECEITA, StatusLancamentoEnum.EFETIVADO},
+                {650, LocalDate.of(2022, 8, 20), TipoLancamentoEnum.DESPESA, StatusLancamentoEnum.CANCELADO}};
+        for(Object[] linha : dados){
+            LancamentoModel lancamento = criarLancamento();
+            lancamento.setUsuario(usuario);
+            lancamento.setValor(BigDecimal.valueOf((Integer) linha[0]));
+            lancamento.setDataCadastro((LocalDate) linha[1]);
+            lancamento.setTipo((TipoLancamentoEnum) linha[2]);
+            lancamento.setStatus((StatusLancamentoEnum) linha[3]);
+            entityManager.persist(lancamento);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Ação
+        // Despesas acima de 500 no terceiro trimestre, pendentes ou efetivadas
+        List<LancamentoDto> lancamentos = repository.listar(LancamentoSpecifications.doFiltro(LancamentoFiltroDto.builder()
+                .usuario(usuario.getId())
+                .tipos(EnumSet.of(TipoLancamentoEnum.DESPESA))
+                .status(EnumSet.of(StatusLancamentoEnum.PENDENTE, StatusLancamentoEnum.EFETIVADO))
+                .valorMinimo(BigDecimal.valueOf(500))
+                .cadastroDe(LocalDate.of(2022, 7, 1)).cadastroAte(LocalDate.of(2022, 9, 30))
+                .build()));
+
+        // Verificação
+        Assertions.assertThat(lancamentos).extracting(LancamentoDto::getValor)
+                  .usingElementComparator(BigDecimal::compareTo)
+                  .containsExactlyInAnyOrder(BigDecimal.valueOf(600), BigDecimal.valueOf(900));
+    }
 }
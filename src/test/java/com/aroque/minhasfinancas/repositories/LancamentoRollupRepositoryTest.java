@@ -0,0 +1,135 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.dto.ResumoMensalDto;
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.model.LancamentoAlteracaoModel;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.LancamentoRollupId;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.service.Impl.RollupLancamentoServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(RollupLancamentoServiceImpl.class)
+public class LancamentoRollupRepositoryTest {
+
+    @Autowired
+    LancamentoRollupRepository repository;
+
+    @Autowired
+    LancamentoAlteracaoRepository alteracaoRepository;
+
+    @Autowired
+    RollupLancamentoServiceImpl rollupService;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    UsuarioModel usuario;
+
+    @Before
+    public void setUp(){
+        usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+    }
+
+    private LancamentoModel criarLancamento(int mes, TipoLancamentoEnum tipo, StatusLancamentoEnum status, int valor){
+        LancamentoModel lancamento = LancamentoModel.builder().ano(2022).mes(mes).descricao("Lançamento qualquer")
+                .valor(BigDecimal.valueOf(valor)).tipo(tipo).status(status).dataCadastro(LocalDate.now())
+                .usuario(usuario).build();
+        entityManager.persist(lancamento);
+        return lancamento;
+    }
+
+    private void marcar(Integer ano, Integer mes){
+        alteracaoRepository.save(LancamentoAlteracaoModel.builder().idUsuario(usuario.getId()).ano(ano).mes(mes).build());
+    }
+
+    @Test
+    public void deveCompactarAsAlteracoesNoRollup(){
+        // Cénario
+        criarLancamento(1, TipoLancamentoEnum.RECEITA, StatusLancamentoEnum.EFETIVADO, 100);
+        criarLancamento(1, TipoLancamentoEnum.RECEITA, StatusLancamentoEnum.EFETIVADO, 50);
+        criarLancamento(2, TipoLancamentoEnum.DESPESA, StatusLancamentoEnum.EFETIVADO, 30);
+        marcar(null, null);
+        entityManager.flush();
+
+        // Ação
+        int consumidas = rollupService.compactar();
+
+        // Verificação
+        Assertions.assertThat(consumidas).isEqualTo(1);
+        Assertions.assertThat(alteracaoRepository.count()).isZero();
+        entityManager.clear();
+        Assertions.assertThat(repository.findById(new LancamentoRollupId(usuario.getId(), 2022, 1,
+                TipoLancamentoEnum.RECEITA, StatusLancamentoEnum.EFETIVADO)).get().getQuantidade()).isEqualTo(2);
+        Assertions.assertThat(repository.somarEfetivados(usuario.getId())).isEqualByComparingTo(BigDecimal.valueOf(120));
+        Assertions.assertThat(repository.conferir(usuario.getId())).isEmpty();
+    }
+
+    @Test
+    public void deveSomarOsLancamentosDoPeriodoAindaNaoCompactado(){
+        // Cénario: janeiro compactado, depois um lançamento novo em janeiro marcado e ainda pendente
+        criarLancamento(1, TipoLancamentoEnum.RECEITA, StatusLancamentoEnum.EFETIVADO, 100);
+        criarLancamento(3, TipoLancamentoEnum.RECEITA, StatusLancamentoEnum.EFETIVADO, 10);
+        marcar(null, null);
+        entityManager.flush();
+        rollupService.compactar();
+
+        criarLancamento(1, TipoLancamentoEnum.DESPESA, StatusLancamentoEnum.EFETIVADO, 40);
+        marcar(2022, 1);
+        entityManager.flush();
+
+        // Ação
+        BigDecimal saldo = repository.somarEfetivados(usuario.getId());
+        List<ResumoMensalDto> resumo = repository.obterResumoAnual(usuario.getId(), 2022);
+
+        // Verificação
+        Assertions.assertThat(saldo).isEqualByComparingTo(BigDecimal.valueOf(70));
+        Assertions.assertThat(resumo).hasSize(3);
+        Assertions.assertThat(resumo).anySatisfy(linha -> {
+            Assertions.assertThat(linha.getMes()).isEqualTo(1);
+            Assertions.assertThat(linha.getTipo()).isEqualTo(TipoLancamentoEnum.DESPESA);
+            Assertions.assertThat(linha.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(40));
+        });
+    }
+
+    @Test
+    public void deveEncontrarDivergenciaEMarcarOUsuarioParaCorrecao(){
+        // Cénario: um lançamento gravado sem marca deixa o rollup desatualizado
+        criarLancamento(1, TipoLancamentoEnum.RECEITA, StatusLancamentoEnum.PENDENTE, 100);
+        marcar(null, null);
+        entityManager.flush();
+        rollupService.compactar();
+        criarLancamento(1, TipoLancamentoEnum.RECEITA, StatusLancamentoEnum.PENDENTE, 5);
+        entityManager.flush();
+
+        // Ação
+        List<?> divergencias = repository.conferir(usuario.getId());
+
+        // Verificação: a reconciliação marca o usuário inteiro e a compactação seguinte corrige
+        Assertions.assertThat(divergencias).hasSize(1);
+        marcar(null, null);
+        entityManager.flush();
+        rollupService.compactar();
+        Assertions.assertThat(repository.conferir(usuario.getId())).isEmpty();
+    }
+}
@@ -0,0 +1,99 @@
+package com.aroque.minhasfinancas.repositories;
+
+import org.assertj.core.api.Assertions;
+import org.flywaydb.core.Flyway;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+// Um banco criado pelo ddl-auto=update antes das migrations entra como versão 1 (baseline-on-migrate)
+// e recebe só da V2 em diante, com os dados que já tinha
+// Os scripts do MySQL rodam no H2 em modo MySQL, o mais perto do banco de produção que dá para chegar aqui
+public class MigracaoBaselineTest {
+
+    // O que o Hibernate gerava no H2 para UsuarioModel e LancamentoModel com IDENTITY
+    private static final String[] ESQUEMA_BASE_H2 = {
+            "CREATE SCHEMA IF NOT EXISTS financas",
+            "create table financas.usuario (id bigint generated by default as identity, data_cadastro date, "
+                    + "email varchar(255), nome varchar(255), senha varchar(255), primary key (id))",
+            "create table financas.lancamento (id bigint generated by default as identity, ano integer, data_cadastro date, "
+                    + "descricao varchar(255), mes integer, status varchar(255), tipo varchar(255), valor decimal(19,2), "
+                    + "id_usuario bigint, primary key (id))",
+            "alter table financas.lancamento add constraint FKnv8g8yhc5t2xql7xyw0njfq5b foreign key (id_usuario) references financas.usuario"
+    };
+
+    // O mesmo no MySQL, com o nome de constraint gerado pelo Hibernate
+    private static final String[] ESQUEMA_BASE_MYSQL = {
+            "CREATE SCHEMA IF NOT EXISTS financas",
+            "create table financas.usuario (id bigint not null auto_increment, data_cadastro date, email varchar(255), "
+                    + "nome varchar(255), senha varchar(255), primary key (id)) engine=InnoDB",
+            "create table financas.lancamento (id bigint not null auto_increment, ano integer, data_cadastro date, "
+                    + "descricao varchar(255), mes integer, status varchar(255), tipo varchar(255), valor decimal(19,2), "
+                    + "id_usuario bigint, primary key (id)) engine=InnoDB",
+            "alter table financas.lancamento add constraint FKnv8g8yhc5t2xql7xyw0njfq5b foreign key (id_usuario) references financas.usuario (id)"
+    };
+
+    @Test
+    public void deveMigrarUmBancoCriadoPeloDdlAutoNoH2(){
+        JdbcTemplate jdbc = migrarBancoAntigo("jdbc:h2:mem:baseline_h2;DB_CLOSE_DELAY=-1", ESQUEMA_BASE_H2, "h2");
+
+        // A sequence continua depois dos ids que vieram da IDENTITY
+        Long proximo = jdbc.queryForObject("SELECT NEXT VALUE FOR financas.lancamento_seq", Long.class);
+        Assertions.assertThat(proximo).isEqualTo(3L + 50);
+    }
+
+    @Test
+    public void deveMigrarUmBancoCriadoPeloDdlAutoNoMysql(){
+        JdbcTemplate jdbc = migrarBancoAntigo("jdbc:h2:mem:baseline_mysql;DB_CLOSE_DELAY=-1;MODE=MySQL", ESQUEMA_BASE_MYSQL, "mysql");
+
+        Long proximo = jdbc.queryForObject("SELECT next_val FROM financas.lancamento_seq", Long.class);
+        Assertions.assertThat(proximo).isEqualTo(3L + 50);
+    }
+
+    private JdbcTemplate migrarBancoAntigo(String url, String[] esquemaBase, String vendor) {
+        // Cénario: o banco como estava em produção, com dados
+        DataSource dataSource = new DriverManagerDataSource(url, "sa", "sa");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for(String comando : esquemaBase){
+            jdbc.execute(comando);
+        }
+        jdbc.update("INSERT INTO financas.usuario (nome, email) VALUES ('Teste', 'teste@gmail.com')");
+        jdbc.update("INSERT INTO financas.usuario (nome, email) VALUES ('Sem lançamentos', 'vazio@gmail.com')");
+        jdbc.update("INSERT INTO financas.lancamento (descricao, mes, ano, id_usuario, valor, tipo, status) "
+                + "VALUES ('Salário', 1, 2022, 1, 1000, 'RECEITA', 'EFETIVADO')");
+        jdbc.update("INSERT INTO financas.lancamento (descricao, mes, ano, id_usuario, valor, tipo, status) "
+                + "VALUES ('Aluguel', 2, 2022, 1, 400, 'DESPESA', 'PENDENTE')");
+        jdbc.update("INSERT INTO financas.lancamento (descricao, mes, ano, id_usuario, valor, tipo, status) "
+                + "VALUES ('Mercado', 12, 2021, 1, 250, 'DESPESA', 'EFETIVADO')");
+
+        // Ação: a mesma configuração do application.properties
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/" + vendor)
+                .schemas("FINANCAS")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+        flyway.migrate();
+
+        // Verificação
+        Assertions.assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("5");
+        Assertions.assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM financas.lancamento", Long.class)).isEqualTo(3L);
+        Assertions.assertThat(jdbc.queryForList("SELECT periodo FROM financas.lancamento ORDER BY id", Integer.class))
+                  .containsExactly(202201, 202202, 202112);
+        Assertions.assertThat(jdbc.queryForList("SELECT versao FROM financas.lancamento", Long.class)).containsOnly(0L);
+        // Sem trigramas ainda: ficam para o LancamentoService indexar na inicialização
+        Assertions.assertThat(jdbc.queryForObject(
+                "SELECT COUNT(*) FROM financas.lancamento WHERE descricao_normalizada IS NULL", Long.class)).isEqualTo(3L);
+        Assertions.assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM financas.lancamento_trigrama", Long.class)).isZero();
+        Assertions.assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM financas.saldo_usuario", Long.class)).isZero();
+        Assertions.assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM financas.lancamento_rollup", Long.class)).isZero();
+        // A sincronia começa no maior id de cada usuário, inclusive para quem não tem lançamentos
+        Assertions.assertThat(jdbc.queryForList("SELECT sequencia FROM financas.sincronia_usuario ORDER BY id_usuario", Long.class))
+                  .containsExactly(3L, 0L);
+
+        return jdbc;
+    }
+}
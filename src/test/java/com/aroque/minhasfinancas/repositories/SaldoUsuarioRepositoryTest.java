@@ -0,0 +1,56 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.model.SaldoUsuarioModel;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class SaldoUsuarioRepositoryTest {
+
+    @Autowired
+    SaldoUsuarioRepository repository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    public void deveInserirOSaldoSoQuandoAindaNaoExiste(){
+        // Ação
+        boolean primeiro = repository.inserirSeAusente(1L, BigDecimal.valueOf(100));
+        // Como a segunda de duas primeiras leituras ao mesmo tempo
+        boolean segundo = repository.inserirSeAusente(1L, BigDecimal.valueOf(70));
+
+        // Verificação
+        Assertions.assertThat(primeiro).isTrue();
+        Assertions.assertThat(segundo).isFalse();
+        // A chave duplicada desfez só o INSERT: a transação continua e a linha é a da primeira
+        Assertions.assertThat(repository.somarAoSaldo(1L, BigDecimal.TEN)).isEqualTo(1);
+        entityManager.clear();
+        Assertions.assertThat(repository.findById(1L)).map(SaldoUsuarioModel::getValor).hasValueSatisfying(
+                valor -> Assertions.assertThat(valor).isEqualByComparingTo(BigDecimal.valueOf(110)));
+    }
+
+    @Test
+    public void deveDefinirOSaldoSoDeQuemJaTemLinha(){
+        // Cénario
+        repository.inserirSeAusente(1L, BigDecimal.valueOf(100));
+
+        // Ação / Verificação
+        Assertions.assertThat(repository.definirSaldo(1L, BigDecimal.valueOf(40))).isEqualTo(1);
+        Assertions.assertThat(repository.definirSaldo(2L, BigDecimal.valueOf(40))).isZero();
+        entityManager.clear();
+        Assertions.assertThat(repository.findById(1L).get().getValor()).isEqualByComparingTo(BigDecimal.valueOf(40));
+    }
+}
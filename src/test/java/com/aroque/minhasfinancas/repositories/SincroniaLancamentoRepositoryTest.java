@@ -0,0 +1,141 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.dto.AlteracoesLancamentoDto;
+import com.aroque.minhasfinancas.dto.LancamentoSincroniaDto;
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.LancamentoRemocaoModel;
+import com.aroque.minhasfinancas.model.SincroniaUsuarioModel;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.service.Impl.SincroniaLancamentoServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(SincroniaLancamentoServiceImpl.class)
+public class SincroniaLancamentoRepositoryTest {
+
+    @Autowired
+    SincroniaUsuarioRepository repository;
+
+    @Autowired
+    SincroniaLancamentoServiceImpl sincroniaService;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    UsuarioModel usuario;
+
+    @Before
+    public void criarUsuario(){
+        usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+        entityManager.persist(SincroniaUsuarioModel.builder().idUsuario(usuario.getId()).sequencia(10L).horizonte(0L).build());
+    }
+
+    private LancamentoModel criarLancamento(long sequencia){
+        LancamentoModel lancamento = LancamentoModel.builder().ano(2022).mes(1).descricao("Lançamento qualquer")
+                .valor(BigDecimal.valueOf(10)).tipo(TipoLancamentoEnum.RECEITA)
+                .status(StatusLancamentoEnum.PENDENTE).dataCadastro(LocalDate.now())
+                .usuario(usuario).sequencia(sequencia)
+                .build();
+        entityManager.persist(lancamento);
+        return lancamento;
+    }
+
+    private void criarRemocao(long idLancamento, long sequencia, LocalDateTime removidoEm){
+        entityManager.persist(LancamentoRemocaoModel.builder().idLancamento(idLancamento).idUsuario(usuario.getId())
+                .sequencia(sequencia).removidoEm(removidoEm).build());
+    }
+
+    @Test
+    public void deveReservarSequenciasEmOrdem(){
+        // Ação
+        int atualizados = repository.avancar(usuario.getId(), 3L);
+
+        // Verificação
+        Assertions.assertThat(atualizados).isEqualTo(1);
+        Assertions.assertThat(repository.obterSequencia(usuario.getId())).isEqualTo(13L);
+        Assertions.assertThat(repository.avancar(usuario.getId() + 1, 1L)).isZero();
+    }
+
+    @Test
+    public void deveEntregarSoOQueMudouDepoisDaSequencia(){
+        // Cénario
+        criarLancamento(3);
+        LancamentoModel seis = criarLancamento(6);
+        LancamentoModel oito = criarLancamento(8);
+        criarRemocao(99L, 7, LocalDateTime.now());
+        criarRemocao(98L, 2, LocalDateTime.now());
+        entityManager.flush();
+        entityManager.clear();
+
+        // Ação
+        AlteracoesLancamentoDto alteracoes = sincroniaService.obterAlteracoes(usuario.getId(), 5L, 100);
+
+        // Verificação
+        Assertions.assertThat(alteracoes.isRessincronizar()).isFalse();
+        Assertions.assertThat(alteracoes.isMais()).isFalse();
+        Assertions.assertThat(alteracoes.getAlterados()).extracting(LancamentoSincroniaDto::getId)
+                  .containsExactly(seis.getId(), oito.getId());
+        Assertions.assertThat(alteracoes.getRemovidos()).containsExactly(99L);
+        Assertions.assertThat(alteracoes.getSequencia()).isEqualTo(8L);
+    }
+
+    @Test
+    public void deveEntregarInteiroOLoteDaUltimaSequenciaDaPagina(){
+        // Cénario: uma alteração em lote deu a sequência 2 para três lançamentos
+        criarLancamento(1);
+        criarLancamento(2);
+        criarLancamento(2);
+        criarLancamento(2);
+        criarLancamento(4);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Ação
+        AlteracoesLancamentoDto alteracoes = sincroniaService.obterAlteracoes(usuario.getId(), 0L, 2);
+
+        // Verificação
+        Assertions.assertThat(alteracoes.isMais()).isTrue();
+        Assertions.assertThat(alteracoes.getSequencia()).isEqualTo(2L);
+        Assertions.assertThat(alteracoes.getAlterados()).extracting(LancamentoSincroniaDto::getSequencia)
+                  .containsExactly(1L, 2L, 2L, 2L);
+    }
+
+    @Test
+    public void devePedirRessincronizacaoQuandoAsRemocoesJaForamCompactadas(){
+        // Cénario
+        criarRemocao(99L, 4, LocalDateTime.now().minusDays(60));
+        criarRemocao(98L, 6, LocalDateTime.now());
+        entityManager.flush();
+
+        // Ação
+        int apagadas = sincroniaService.compactarRemocoes();
+        entityManager.clear();
+
+        // Verificação
+        Assertions.assertThat(apagadas).isEqualTo(1);
+        Assertions.assertThat(sincroniaService.obterAlteracoes(usuario.getId(), 2L, 100).isRessincronizar()).isTrue();
+        AlteracoesLancamentoDto depoisDoHorizonte = sincroniaService.obterAlteracoes(usuario.getId(), 4L, 100);
+        Assertions.assertThat(depoisDoHorizonte.isRessincronizar()).isFalse();
+        Assertions.assertThat(depoisDoHorizonte.getRemovidos()).containsExactly(98L);
+    }
+}
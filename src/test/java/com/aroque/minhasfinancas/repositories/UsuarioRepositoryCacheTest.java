@@ -0,0 +1,164 @@
+package com.aroque.minhasfinancas.repositories;
+
+import com.aroque.minhasfinancas.config.CacheConfiguration;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// O @DataJpaTest desliga o cache por padrão
+@AutoConfigureCache(cacheProvider = CacheType.CAFFEINE)
+@Import(CacheConfiguration.class)
+public class UsuarioRepositoryCacheTest {
+
+    @Autowired
+    UsuarioRepository repository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    Statistics estatisticas;
+
+    @Before
+    public void setUp(){
+        cacheManager.getCacheNames().forEach(nome -> cacheManager.getCache(nome).clear());
+        estatisticas = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private UsuarioModel criarUsuario(){
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").senha("123").build();
+        entityManager.persist(usuario);
+        entityManager.flush();
+        entityManager.clear();
+        return usuario;
+    }
+
+    @Test
+    public void deveBuscarOUsuarioNoBancoUmaVezSo(){
+        // Cénario
+        UsuarioModel usuario = criarUsuario();
+        estatisticas.clear();
+
+        // Ação
+        repository.findById(usuario.getId());
+        entityManager.clear();
+        repository.findById(usuario.getId());
+        repository.findByEmail("teste@gmail.com");
+        entityManager.clear();
+        repository.findByEmail("teste@gmail.com");
+
+        // Verificação: uma consulta por id e outra por email
+        Assertions.assertThat(estatisticas.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void deveTirarOUsuarioDoCacheAoSalvar(){
+        // Cénario
+        UsuarioModel usuario = criarUsuario();
+        UsuarioModel emCache = repository.findById(usuario.getId()).get();
+        repository.findByEmail("teste@gmail.com");
+
+        // Ação
+        emCache.setNome("Outro nome");
+        repository.save(emCache);
+
+        // Verificação
+        Assertions.assertThat(cacheManager.getCache(CacheConfiguration.USUARIOS).get(usuario.getId())).isNull();
+        Assertions.assertThat(cacheManager.getCache(CacheConfiguration.USUARIOS_POR_EMAIL).get("teste@gmail.com")).isNull();
+    }
+
+    @Test
+    public void deveTirarDoCacheOEmailAntigoAoTrocarOEmail(){
+        // Cénario
+        UsuarioModel usuario = criarUsuario();
+        UsuarioModel emCache = repository.findByEmail("teste@gmail.com").get();
+
+        // Ação
+        emCache.setEmail("novo@gmail.com");
+        repository.save(emCache);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Verificação: o email antigo não acha mais o usuário
+        Assertions.assertThat(repository.findByEmail("teste@gmail.com")).isEmpty();
+        Assertions.assertThat(repository.findByEmail("novo@gmail.com").get().getId()).isEqualTo(usuario.getId());
+    }
+
+    @Test
+    public void deveTirarOUsuarioDoCacheAoDeletarPeloId(){
+        // Cénario
+        UsuarioModel usuario = criarUsuario();
+        repository.findById(usuario.getId());
+        repository.findByEmail("teste@gmail.com");
+
+        // Ação
+        repository.deleteById(usuario.getId());
+        entityManager.flush();
+
+        // Verificação
+        Assertions.assertThat(repository.findById(usuario.getId())).isEmpty();
+        Assertions.assertThat(repository.findByEmail("teste@gmail.com")).isEmpty();
+    }
+
+    @Test
+    public void deveTirarOsUsuariosDoCacheAoSalvarVariosDeUmaVez(){
+        // Cénario
+        UsuarioModel usuario = criarUsuario();
+        UsuarioModel emCache = repository.findById(usuario.getId()).get();
+
+        // Ação
+        emCache.setNome("Outro nome");
+        repository.saveAll(Collections.singletonList(emCache));
+
+        // Verificação
+        Assertions.assertThat(cacheManager.getCache(CacheConfiguration.USUARIOS).get(usuario.getId())).isNull();
+    }
+
+    @Test
+    public void naoDeveCompartilharAInstanciaGuardadaNoCache(){
+        // Cénario
+        UsuarioModel usuario = criarUsuario();
+        UsuarioModel primeiraLeitura = repository.findById(usuario.getId()).get();
+        entityManager.clear();
+
+        // Ação: alteração local, sem salvar
+        primeiraLeitura.setNome("Alterado sem salvar");
+        UsuarioModel segundaLeitura = repository.findById(usuario.getId()).get();
+
+        // Verificação
+        Assertions.assertThat(segundaLeitura).isNotSameAs(primeiraLeitura);
+        Assertions.assertThat(segundaLeitura.getNome()).isEqualTo("Teste");
+    }
+
+    @Test
+    public void naoDeveGuardarUsuarioInexistente(){
+        // Ação
+        repository.findByEmail("naoexiste@gmail.com");
+
+        // Verificação
+        Assertions.assertThat(cacheManager.getCache(CacheConfiguration.USUARIOS_POR_EMAIL).get("naoexiste@gmail.com")).isNull();
+    }
+}
@@ -0,0 +1,103 @@
+package com.aroque.minhasfinancas.service;
+
+import com.aroque.minhasfinancas.dto.SelecaoLancamentosDto;
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.SaldoUsuarioModel;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.service.Impl.LancamentoServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compara o fechamento do mês um lançamento por vez (obterPorId + atualizarStatus, como no PUT /{id}/atualiza-status)
+// com o UPDATE único do PUT /atualiza-status
+// Não roda no build normal: mvn test -Dtest=AtualizaStatusBenchmarkTest -Dbenchmark=true [-Dbenchmark.linhas=500]
+@Slf4j
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(LancamentoServiceImpl.class)
+public class AtualizaStatusBenchmarkTest {
+
+    @Autowired
+    LancamentoService service;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    public void deveCompararOLoopComOUpdateEmLote(){
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+        int linhas = Integer.getInteger("benchmark.linhas", 500);
+
+        UsuarioModel usuario = UsuarioModel.builder().nome("Benchmark").email("benchmark@gmail.com").build();
+        entityManager.persist(usuario);
+        // Saldo já materializado: cada efetivação tem que chegar nele pela diferença, e não por um recálculo
+        entityManager.persist(SaldoUsuarioModel.builder().idUsuario(usuario.getId()).valor(BigDecimal.ZERO).build());
+        // Receitas e despesas com valores diferentes, para o saldo final não dar zero por coincidência
+        List<Long> ids = new ArrayList<>();
+        BigDecimal saldoEsperado = BigDecimal.ZERO;
+        for(int i = 0; i < linhas; i++){
+            boolean receita = i % 2 == 0;
+            BigDecimal valor = BigDecimal.valueOf(receita ? 30 : 10);
+            LancamentoModel lancamento = LancamentoModel.builder().ano(2022).mes(1).descricao("Lançamento " + i)
+                    .valor(valor).tipo(receita ? TipoLancamentoEnum.RECEITA : TipoLancamentoEnum.DESPESA)
+                    .status(StatusLancamentoEnum.PENDENTE).dataCadastro(LocalDate.now()).usuario(usuario)
+                    .build();
+            entityManager.persist(lancamento);
+            ids.add(lancamento.getId());
+            saldoEsperado = receita ? saldoEsperado.add(valor) : saldoEsperado.subtract(valor);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics estatisticas = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        // Um por vez: efetiva todos
+        estatisticas.clear();
+        long inicio = System.nanoTime();
+        for(Long id : ids){
+            LancamentoModel lancamento = service.obterPorId(id).get();
+            service.atualizarStatus(lancamento, StatusLancamentoEnum.EFETIVADO);
+            entityManager.flush();
+        }
+        double tempoLoop = (System.nanoTime() - inicio) / 1_000_000.0;
+        long comandosLoop = estatisticas.getPrepareStatementCount();
+        entityManager.clear();
+        Assertions.assertThat(service.obterSaldoPorUsuario(usuario.getId())).isEqualByComparingTo(saldoEsperado);
+        entityManager.clear();
+
+        // Em lote: volta todos para PENDENTE
+        estatisticas.clear();
+        inicio = System.nanoTime();
+        int atualizados = service.atualizarStatus(SelecaoLancamentosDto.builder().usuario(usuario.getId()).ids(ids).build(),
+                StatusLancamentoEnum.PENDENTE);
+        double tempoLote = (System.nanoTime() - inicio) / 1_000_000.0;
+        long comandosLote = estatisticas.getPrepareStatementCount();
+
+        Assertions.assertThat(atualizados).isEqualTo(linhas);
+        Assertions.assertThat(service.obterSaldoPorUsuario(usuario.getId())).isEqualByComparingTo(BigDecimal.ZERO);
+
+        log.info(String.format("linhas=%d loop=%.2fms (%d comandos) lote=%.2fms (%d comandos)",
+                linhas, tempoLoop, comandosLoop, tempoLote, comandosLote));
+    }
+}
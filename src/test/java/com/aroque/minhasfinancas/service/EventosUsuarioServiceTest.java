@@ -0,0 +1,135 @@
+package com.aroque.minhasfinancas.service;
+
+import com.aroque.minhasfinancas.dto.EventoLancamentoDto;
+import com.aroque.minhasfinancas.enums.TipoEventoLancamentoEnum;
+import com.aroque.minhasfinancas.service.Impl.EventosUsuarioServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class EventosUsuarioServiceTest {
+
+    LancamentoService lancamentoService = Mockito.mock(LancamentoService.class);
+
+    CountDownLatch liberar = new CountDownLatch(1);
+    CountDownLatch encerrado = new CountDownLatch(1);
+
+    // O cliente lento: o primeiro envio fica preso até o teste liberar
+    EventosUsuarioServiceImpl service = new EventosUsuarioServiceImpl(lancamentoService) {
+        @Override
+        protected SseEmitter criarEmitter() {
+            return new SseEmitter() {
+                @Override
+                public void send(SseEventBuilder evento) throws IOException {
+                    try {
+                        liberar.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public synchronized void complete() {
+                    encerrado.countDown();
+                }
+            };
+        }
+    };
+
+    private void iniciar(int tamanhoBuffer) {
+        ReflectionTestUtils.setField(service, "tamanhoBuffer", tamanhoBuffer);
+        ReflectionTestUtils.setField(service, "timeout", 60_000L);
+        ReflectionTestUtils.setField(service, "threads", 2);
+        ReflectionTestUtils.setField(service, "heartbeatSegundos", 60L);
+        service.iniciar();
+    }
+
+    @After
+    public void encerrar() {
+        liberar.countDown();
+        service.destroy();
+    }
+
+    private EventoLancamentoDto evento(Long idUsuario) {
+        return evento(idUsuario, 1L);
+    }
+
+    private EventoLancamentoDto evento(Long idUsuario, Long idLancamento) {
+        return new EventoLancamentoDto(TipoEventoLancamentoEnum.ATUALIZADO, idUsuario, Collections.singletonList(idLancamento), null);
+    }
+
+    @Test
+    public void deveDesconectarOClienteQueNaoAcompanhaOsEventos() throws Exception {
+        // Cénario
+        iniciar(2);
+        Mockito.when(lancamentoService.obterSaldoNoPrimario(1L)).thenReturn(BigDecimal.TEN);
+        service.inscrever(1L);
+
+        // Ação: o saldo inicial mais dois eventos com saldo passam de uma mensagem em envio e duas na fila
+        for(int i = 0; i < 3; i++){
+            service.aoAlterarLancamento(evento(1L));
+        }
+
+        // Verificação
+        Assertions.assertThat(encerrado.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void naoDeveLerOSaldoQuandoNinguemEstaInscrito() {
+        // Cénario
+        iniciar(2);
+
+        // Ação
+        service.aoAlterarLancamento(evento(2L));
+
+        // Verificação
+        Mockito.verify(lancamentoService, Mockito.never()).obterSaldoNoPrimario(Mockito.anyLong());
+    }
+    @Test
+    public void deveEntregarOsEventosDeUmUsuarioNaOrdemEmQueForamConfirmados() throws Exception {
+        // Cénario: um cliente que só anota os lançamentos recebidos
+        int eventos = 200;
+        List<Long> recebidos = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch todos = new CountDownLatch(eventos);
+        service = new EventosUsuarioServiceImpl(lancamentoService) {
+            @Override
+            protected SseEmitter criarEmitter() {
+                return new SseEmitter() {
+                    @Override
+                    public void send(SseEventBuilder evento) {
+                        for(ResponseBodyEmitter.DataWithMediaType parte : evento.build()){
+                            if(parte.getData() instanceof EventoLancamentoDto){
+                                recebidos.add(((EventoLancamentoDto) parte.getData()).getIds().get(0));
+                                todos.countDown();
+                            }
+                        }
+                    }
+                };
+            }
+        };
+        iniciar(2 * eventos + 1);
+        Mockito.when(lancamentoService.obterSaldoNoPrimario(1L)).thenReturn(BigDecimal.TEN);
+        service.inscrever(1L);
+
+        // Ação
+        for(long id = 1; id <= eventos; id++){
+            service.aoAlterarLancamento(evento(1L, id));
+        }
+
+        // Verificação
+        Assertions.assertThat(todos.await(5, TimeUnit.SECONDS)).isTrue();
+        Assertions.assertThat(recebidos).isSorted().hasSize(eventos);
+    }
+}
@@ -0,0 +1,117 @@
+package com.aroque.minhasfinancas.service;
+
+import com.aroque.minhasfinancas.dto.TokenVerificadoDto;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.service.Impl.JwtServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+public class JwtServiceTest {
+
+    JwtServiceImpl service;
+
+    @Before
+    public void setUp(){
+        service = new JwtServiceImpl();
+        ReflectionTestUtils.setField(service, "expiracao", "30");
+        ReflectionTestUtils.setField(service, "expiracaoRefresh", 20160L);
+        ReflectionTestUtils.setField(service, "chaveAssinatura", "c2UgbGV1IHRhIG1lIGRldmVuZG8gMjAgcmVhaXM=");
+        ReflectionTestUtils.setField(service, "tamanhoMaximoCache", 100L);
+        ReflectionTestUtils.invokeMethod(service, "iniciar");
+    }
+
+    @Test
+    public void deveVerificarOTokenEDevolverLoginEUsuario(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().id(1L).nome("Teste").email("teste@gmail.com").build();
+        String token = service.gerarToken(usuario);
+
+        // Ação
+        Optional<TokenVerificadoDto> verificado = service.verificar(token);
+        Optional<TokenVerificadoDto> doCache = service.verificar(token);
+
+        // Verificação
+        Assertions.assertThat(verificado.isPresent()).isTrue();
+        Assertions.assertThat(verificado.get().getEmail()).isEqualTo("teste@gmail.com");
+        Assertions.assertThat(verificado.get().getIdUsuario()).isEqualTo(1L);
+        Assertions.assertThat(doCache.get()).isSameAs(verificado.get());
+    }
+
+    @Test
+    public void deveDevolverOInstanteDeEmissaoEmMilissegundos(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().id(1L).nome("Teste").email("teste@gmail.com").build();
+        Instant antes = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        // Ação
+        TokenVerificadoDto verificado = service.verificar(service.gerarToken(usuario)).get();
+        TokenVerificadoDto refresh = service.verificarRefresh(service.gerarRefreshToken(usuario)).get();
+
+        // Verificação: o iat sozinho viria truncado no segundo, antes de "antes"
+        Assertions.assertThat(verificado.getEmitidoEm()).isAfterOrEqualTo(antes);
+        Assertions.assertThat(refresh.getEmitidoEm()).isAfterOrEqualTo(antes);
+    }
+
+    @Test
+    public void naoDeveAceitarTokenAlterado(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().id(1L).nome("Teste").email("teste@gmail.com").build();
+        String token = service.gerarToken(usuario);
+        String alterado = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        // Verificação
+        Assertions.assertThat(service.verificar(alterado).isPresent()).isFalse();
+        Assertions.assertThat(service.isTokenValido(alterado)).isFalse();
+    }
+
+    @Test
+    public void naoDeveAceitarRefreshTokenNoLugarDoTokenDeAcesso(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().id(1L).nome("Teste").email("teste@gmail.com").build();
+        String token = service.gerarToken(usuario);
+        String refreshToken = service.gerarRefreshToken(usuario);
+
+        // Ação
+        Optional<TokenVerificadoDto> refresh = service.verificarRefresh(refreshToken);
+
+        // Verificação
+        Assertions.assertThat(refresh.isPresent()).isTrue();
+        Assertions.assertThat(refresh.get().getId()).isNotNull();
+        Assertions.assertThat(refresh.get().getIdUsuario()).isEqualTo(1L);
+        Assertions.assertThat(service.verificar(refreshToken).isPresent()).isFalse();
+        Assertions.assertThat(service.verificarRefresh(token).isPresent()).isFalse();
+    }
+
+    @Test
+    public void deveConferirTokensDaChaveAnteriorDepoisDaRotacao(){
+        // Cénario: o token é emitido com a chave k1
+        UsuarioModel usuario = UsuarioModel.builder().id(1L).nome("Teste").email("teste@gmail.com").build();
+        ReflectionTestUtils.setField(service, "chaves", "k1:c2UgbGV1IHRhIG1lIGRldmVuZG8gMjAgcmVhaXM=");
+        ReflectionTestUtils.setField(service, "chaveAtual", "k1");
+        ReflectionTestUtils.invokeMethod(service, "iniciar");
+        String tokenAntigo = service.gerarToken(usuario);
+
+        // Ação: a k2 passa a assinar e a k1 continua só conferindo
+        ReflectionTestUtils.setField(service, "chaves", "k1:c2UgbGV1IHRhIG1lIGRldmVuZG8gMjAgcmVhaXM=,k2:b3V0cmEgY2hhdmUgZGUgYXNzaW5hdHVyYQ==");
+        ReflectionTestUtils.setField(service, "chaveAtual", "k2");
+        ReflectionTestUtils.invokeMethod(service, "iniciar");
+        String tokenNovo = service.gerarToken(usuario);
+
+        // Verificação
+        Assertions.assertThat(service.obterClaims(tokenAntigo).getSubject()).isEqualTo("teste@gmail.com");
+        Assertions.assertThat(service.isTokenValido(tokenAntigo)).isTrue();
+        Assertions.assertThat(service.isTokenValido(tokenNovo)).isTrue();
+
+        // Depois que a k1 sai da lista os tokens dela deixam de valer
+        ReflectionTestUtils.setField(service, "chaves", "k2:b3V0cmEgY2hhdmUgZGUgYXNzaW5hdHVyYQ==");
+        ReflectionTestUtils.invokeMethod(service, "iniciar");
+        Assertions.assertThat(service.isTokenValido(tokenAntigo)).isFalse();
+        Assertions.assertThat(service.isTokenValido(tokenNovo)).isTrue();
+    }
+}
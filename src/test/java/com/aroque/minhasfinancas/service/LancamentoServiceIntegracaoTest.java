@@ -0,0 +1,142 @@
+package com.aroque.minhasfinancas.service;
+
+import com.aroque.minhasfinancas.dto.LancamentoFiltroDto;
+import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
+import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.SaldoUsuarioModel;
+import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.service.Impl.LancamentoServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+// O LancamentoService com os repositories de verdade
+// Como no PUT /{id}/atualiza-status com o open-session-in-view: a entidade de obterPorId continua gerenciada
+// e chega ao service já alterada, na mesma sessão
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(LancamentoServiceImpl.class)
+public class LancamentoServiceIntegracaoTest {
+
+    @Autowired
+    LancamentoService service;
+
+    // A mesma instância, para chamar a indexação que roda na inicialização
+    @Autowired
+    LancamentoServiceImpl serviceImpl;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    private UsuarioModel criarUsuarioComSaldo(BigDecimal saldo){
+        UsuarioModel usuario = UsuarioModel.builder().nome("Teste").email("teste@gmail.com").build();
+        entityManager.persist(usuario);
+        // Saldo já materializado: a alteração tem que chegar nele pela diferença
+        entityManager.persist(SaldoUsuarioModel.builder().idUsuario(usuario.getId()).valor(saldo).build());
+        return usuario;
+    }
+
+    private LancamentoModel salvar(UsuarioModel usuario, String descricao){
+        LancamentoModel lancamento = service.salvar(LancamentoModel.builder().ano(2022).mes(1).descricao(descricao)
+                .valor(BigDecimal.valueOf(100)).tipo(TipoLancamentoEnum.RECEITA)
+                .dataCadastro(LocalDate.now()).usuario(usuario).build());
+        entityManager.flush();
+        entityManager.clear();
+        return lancamento;
+    }
+
+    @Test
+    public void deveSomarNoSaldoAoEfetivarAEntidadeCarregada(){
+        // Cénario
+        UsuarioModel usuario = criarUsuarioComSaldo(BigDecimal.valueOf(50));
+        LancamentoModel salvo = salvar(usuario, "Salário");
+
+        // Ação
+        LancamentoModel lancamento = service.obterPorId(salvo.getId()).get();
+        lancamento.setStatus(StatusLancamentoEnum.EFETIVADO);
+        service.atualizar(lancamento);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Verificação
+        Assertions.assertThat(service.obterSaldoPorUsuario(usuario.getId())).isEqualByComparingTo(BigDecimal.valueOf(150));
+    }
+
+    @Test
+    public void deveReindexarADescricaoAlteradaNaEntidadeCarregada(){
+        // Cénario
+        UsuarioModel usuario = criarUsuarioComSaldo(BigDecimal.ZERO);
+        LancamentoModel salvo = salvar(usuario, "Mercado");
+
+        // Ação
+        LancamentoModel lancamento = service.obterPorId(salvo.getId()).get();
+        lancamento.setDescricao("Farmácia");
+        service.atualizar(lancamento);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Verificação
+        List<LancamentoModel> encontrados = service.buscar(LancamentoFiltroDto.builder().usuario(usuario.getId()).descricao("farmácia").build());
+        Assertions.assertThat(encontrados).extracting(LancamentoModel::getId).containsExactly(salvo.getId());
+        Assertions.assertThat(service.buscar(LancamentoFiltroDto.builder().usuario(usuario.getId()).descricao("mercado").build())).isEmpty();
+    }
+
+    // Como um lançamento que já existia antes da V2: sem descrição normalizada e sem trigramas
+    private void apagarIndice(LancamentoModel lancamento){
+        entityManager.getEntityManager().createNativeQuery("UPDATE financas.lancamento SET descricao_normalizada = NULL WHERE id = ?")
+                     .setParameter(1, lancamento.getId()).executeUpdate();
+        entityManager.getEntityManager().createNativeQuery("DELETE FROM financas.lancamento_trigrama WHERE id_lancamento = ?")
+                     .setParameter(1, lancamento.getId()).executeUpdate();
+    }
+
+    @Test
+    public void deveIndexarNaInicializacaoOsLancamentosGravadosAntesDoIndice(){
+        // Cénario
+        UsuarioModel usuario = criarUsuarioComSaldo(BigDecimal.ZERO);
+        LancamentoModel salvo = salvar(usuario, "Farmácia");
+        apagarIndice(salvo);
+        Assertions.assertThat(service.buscar(LancamentoFiltroDto.builder().usuario(usuario.getId()).descricao("farmácia").build())).isEmpty();
+
+        // Ação
+        serviceImpl.indexarDescricoesPendentes();
+        entityManager.clear();
+
+        // Verificação
+        List<LancamentoModel> encontrados = service.buscar(LancamentoFiltroDto.builder().usuario(usuario.getId()).descricao("farmácia").build());
+        Assertions.assertThat(encontrados).extracting(LancamentoModel::getId).containsExactly(salvo.getId());
+        Assertions.assertThat(encontrados.get(0).getDescricaoNormalizada()).isEqualTo("farmacia");
+        // Indexar não é uma alteração do lançamento: a versão que o cliente tem continua valendo
+        Assertions.assertThat(encontrados.get(0).getVersao()).isEqualTo(salvo.getVersao());
+    }
+
+    @Test
+    public void deveReindexarAsDescricoesDoUsuarioSemAlterarAVersao(){
+        // Cénario
+        UsuarioModel usuario = criarUsuarioComSaldo(BigDecimal.ZERO);
+        LancamentoModel salvo = salvar(usuario, "Farmácia");
+        apagarIndice(salvo);
+
+        // Ação
+        service.reindexarDescricoes(usuario.getId());
+        entityManager.clear();
+
+        // Verificação
+        List<LancamentoModel> encontrados = service.buscar(LancamentoFiltroDto.builder().usuario(usuario.getId()).descricao("farmácia").build());
+        Assertions.assertThat(encontrados).extracting(LancamentoModel::getId).containsExactly(salvo.getId());
+        Assertions.assertThat(encontrados.get(0).getVersao()).isEqualTo(salvo.getVersao());
+    }
+}
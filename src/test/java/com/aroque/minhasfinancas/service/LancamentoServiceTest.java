@@ -1,21 +1,38 @@
 package com.aroque.minhasfinancas.service;
 
+import com.aroque.minhasfinancas.dto.LancamentoDto;
+import com.aroque.minhasfinancas.dto.LancamentoFiltroDto;
+import com.aroque.minhasfinancas.dto.LoteResultadoDto;
+import com.aroque.minhasfinancas.dto.PaginaDto;
+import com.aroque.minhasfinancas.dto.SelecaoLancamentosDto;
 import com.aroque.minhasfinancas.enums.StatusLancamentoEnum;
 import com.aroque.minhasfinancas.enums.TipoLancamentoEnum;
+import com.aroque.minhasfinancas.exception.ErroConcorrencia;
+import com.aroque.minhasfinancas.exception.ErroNaoEncontrado;
 import com.aroque.minhasfinancas.exception.RegraNegocioExecption;
 import com.aroque.minhasfinancas.model.LancamentoModel;
+import com.aroque.minhasfinancas.model.LancamentoRemocaoModel;
+import com.aroque.minhasfinancas.model.SaldoUsuarioModel;
 import com.aroque.minhasfinancas.model.UsuarioModel;
+import com.aroque.minhasfinancas.repositories.LancamentoAlteracaoRepository;
+import com.aroque.minhasfinancas.repositories.LancamentoRemocaoRepository;
 import com.aroque.minhasfinancas.repositories.LancamentoRepository;
+import com.aroque.minhasfinancas.repositories.LancamentoRollupRepository;
+import com.aroque.minhasfinancas.repositories.LancamentoTrigramaRepository;
+import com.aroque.minhasfinancas.repositories.SaldoUsuarioRepository;
+import com.aroque.minhasfinancas.repositories.SincroniaUsuarioRepository;
 import com.aroque.minhasfinancas.repositories.LancamentoRepositoryTest;
 import com.aroque.minhasfinancas.service.Impl.LancamentoServiceImpl;
 import org.assertj.core.api.Assertions;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
-import org.springframework.data.domain.Example;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -38,6 +55,24 @@ public class LancamentoServiceTest {
     @MockBean
     LancamentoRepository repository;
 
+    @MockBean
+    SaldoUsuarioRepository saldoRepository;
+
+    @MockBean
+    LancamentoTrigramaRepository trigramaRepository;
+
+    @MockBean
+    LancamentoAlteracaoRepository alteracaoRepository;
+
+    @MockBean
+    LancamentoRollupRepository rollupRepository;
+
+    @MockBean
+    SincroniaUsuarioRepository sincroniaRepository;
+
+    @MockBean
+    LancamentoRemocaoRepository remocaoRepository;
+
     private LancamentoModel criarLancamento(){
         return LancamentoModel.builder().ano(2022).mes(1).descricao("Lançamento qualquer")
                 .valor(BigDecimal.valueOf(10)).tipo(TipoLancamentoEnum.RECEITA)
@@ -82,6 +117,28 @@ public class LancamentoServiceTest {
     }
 
 
+    @Test
+    public void deveInserirOsValidosEApontarOsInvalidosDoLote(){
+        // Cénario
+        LancamentoModel valido = criarLancamento();
+        valido.setUsuario(UsuarioModel.builder().id(1L).build());
+        LancamentoModel semDescricao = criarLancamento();
+        semDescricao.setUsuario(UsuarioModel.builder().id(1L).build());
+        semDescricao.setDescricao(null);
+
+        // Ação
+        LoteResultadoDto resultado = service.salvarLote(Arrays.asList(semDescricao, valido));
+
+        // Verificação
+        Assertions.assertThat(resultado.getRecebidos()).isEqualTo(2);
+        Assertions.assertThat(resultado.getInseridos()).isEqualTo(1);
+        Assertions.assertThat(resultado.getErros()).hasSize(1);
+        Assertions.assertThat(resultado.getErros().get(0).getIndice()).isEqualTo(0);
+        Assertions.assertThat(resultado.getErros().get(0).getMensagem()).isEqualTo("Informe uma Descrição válida.");
+        Mockito.verify(repository).inserirLote(Arrays.asList(valido));
+    }
+
+
     @Test
     public void deveAtualizarUmLancamento(){
         // Cénario
@@ -125,6 +182,82 @@ public class LancamentoServiceTest {
 
         // Verficação
         Mockito.verify(repository).delete(lancamentoSalvo);
+        Mockito.verify(trigramaRepository).removerDoLancamento(1L);
+    }
+
+
+    @Test
+    public void deveAtualizarComUmUnicoUpdateQuandoNaoMexeNoSaldo(){
+        // Cénario
+        LancamentoModel lancamento = criarLancamento();
+        lancamento.setId(1L);
+        lancamento.setVersao(3L);
+        lancamento.setUsuario(UsuarioModel.builder().id(1L).build());
+        Mockito.doNothing().when(service).validar(lancamento);
+        Mockito.when(repository.atualizarSemLeitura(lancamento)).thenReturn(1);
+
+        // Ação
+        LancamentoModel atualizado = service.atualizar(1L, lancamento);
+
+        // Verificação
+        Assertions.assertThat(atualizado.getVersao()).isEqualTo(4L);
+        Mockito.verify(repository, Mockito.never()).findById(Mockito.anyLong());
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(LancamentoModel.class));
+    }
+
+    @Test
+    public void deveRecusarAtualizacaoComVersaoAntiga(){
+        // Cénario
+        LancamentoModel lancamento = criarLancamento();
+        lancamento.setId(1L);
+        lancamento.setVersao(3L);
+        lancamento.setUsuario(UsuarioModel.builder().id(1L).build());
+        Mockito.doNothing().when(service).validar(lancamento);
+        Mockito.when(repository.atualizarSemLeitura(lancamento)).thenReturn(0);
+
+        LancamentoModel atual = criarLancamento();
+        atual.setId(1L);
+        atual.setVersao(5L);
+        atual.setUsuario(UsuarioModel.builder().id(1L).build());
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(atual));
+
+        // Ação / Verificação
+        Assertions.assertThatThrownBy(() -> service.atualizar(1L, lancamento)).isInstanceOf(ErroConcorrencia.class);
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(LancamentoModel.class));
+    }
+
+    @Test
+    public void deveDeletarComUmUnicoDeleteOuAvisarQueNaoEncontrou(){
+        // Cénario
+        Mockito.when(repository.deletarSemLeitura(1L, 1L, null)).thenReturn(1);
+        Mockito.when(repository.deletarSemLeitura(2L, 1L, null)).thenReturn(0);
+        Mockito.when(repository.findById(2L)).thenReturn(Optional.empty());
+
+        // Ação
+        service.deletar(1L, 1L, null);
+
+        // Verificação
+        Mockito.verify(trigramaRepository).removerDoLancamento(1L);
+        Mockito.verify(repository, Mockito.never()).findById(1L);
+        Assertions.assertThatThrownBy(() -> service.deletar(1L, 2L, null)).isInstanceOf(ErroNaoEncontrado.class);
+    }
+
+    @Test
+    public void deveRegistrarALapideComANovaSequenciaAoDeletar(){
+        // Cénario
+        Mockito.when(sincroniaRepository.avancar(1L, 1L)).thenReturn(1);
+        Mockito.when(sincroniaRepository.obterSequencia(1L)).thenReturn(42L);
+        Mockito.when(repository.deletarSemLeitura(7L, 1L, null)).thenReturn(1);
+
+        // Ação
+        service.deletar(1L, 7L, null);
+
+        // Verificação
+        ArgumentCaptor<LancamentoRemocaoModel> lapide = ArgumentCaptor.forClass(LancamentoRemocaoModel.class);
+        Mockito.verify(remocaoRepository).save(lapide.capture());
+        Assertions.assertThat(lapide.getValue().getIdLancamento()).isEqualTo(7L);
+        Assertions.assertThat(lapide.getValue().getIdUsuario()).isEqualTo(1L);
+        Assertions.assertThat(lapide.getValue().getSequencia()).isEqualTo(42L);
     }
 
 
@@ -150,8 +283,8 @@ public class LancamentoServiceTest {
         lancamento.setId(1L);
 
         List<LancamentoModel> lista = Arrays.asList(lancamento);
-        // Chamando o repository findAll passando qualquer filtro (MOCKITO.ANY(EXAMPLE.CLASS))
-        Mockito.when(repository.findAll(Mockito.any(Example.class))).thenReturn(lista);
+        // Chamando o repository findAll passando qualquer filtro (MOCKITO.ANY(SPECIFICATION.CLASS))
+        Mockito.when(repository.findAll(Mockito.any(Specification.class))).thenReturn(lista);
 
         //Ação
         List<LancamentoModel> resultado = service.buscar(lancamento);
@@ -161,6 +294,88 @@ public class LancamentoServiceTest {
     }
 
 
+    @Test
+    public void deveDevolverOCursorDaProximaPaginaSemContarOsRegistros(){
+        // Cénario
+        List<LancamentoDto> lista = Arrays.asList(
+                new LancamentoDto(1L, "A", 1, 2022, BigDecimal.TEN, 1L, TipoLancamentoEnum.RECEITA, StatusLancamentoEnum.PENDENTE, null, 0L),
+                new LancamentoDto(2L, "B", 1, 2022, BigDecimal.TEN, 1L, TipoLancamentoEnum.RECEITA, StatusLancamentoEnum.PENDENTE, null, 0L),
+                new LancamentoDto(3L, "C", 1, 2022, BigDecimal.TEN, 1L, TipoLancamentoEnum.RECEITA, StatusLancamentoEnum.PENDENTE, null, 0L));
+        Mockito.when(repository.listarPagina(Mockito.any(Specification.class), Mockito.isNull(), Mockito.eq(3), Mockito.eq(false)))
+               .thenReturn(lista);
+
+        // Ação
+        PaginaDto<LancamentoDto> pagina = service.buscarPagina(new LancamentoFiltroDto(), null, 2, false, false);
+
+        // Verificação
+        Assertions.assertThat(pagina.getItens()).hasSize(2);
+        Assertions.assertThat(pagina.getProximoCursor()).isNotNull();
+        Assertions.assertThat(pagina.getTotal()).isNull();
+        Mockito.verify(repository, Mockito.never()).count(Mockito.any(Specification.class));
+    }
+
+    @Test
+    public void naoDeveBuscarComFaixaDeValorInvertida(){
+        // Cénario
+        LancamentoFiltroDto filtro = LancamentoFiltroDto.builder().usuario(1L)
+                .valorMinimo(BigDecimal.valueOf(500)).valorMaximo(BigDecimal.TEN).build();
+
+        // Ação
+        Throwable erro = Assertions.catchThrowable(() -> service.listar(filtro));
+
+        // Verificação
+        Assertions.assertThat(erro).isInstanceOf(RegraNegocioExecption.class)
+                  .hasMessage("O valor mínimo não pode ser maior que o máximo.");
+        Mockito.verify(repository, Mockito.never()).listar(Mockito.any(Specification.class));
+    }
+
+
+    @Test
+    public void deveEfetivarVariosLancamentosComUmUpdateEAjustarOSaldo(){
+        // Cénario
+        SelecaoLancamentosDto selecao = SelecaoLancamentosDto.builder().usuario(1L).ano(2022).mes(1).build();
+        Mockito.when(repository.somarComSinal(selecao, false)).thenReturn(BigDecimal.valueOf(150));
+        Mockito.when(repository.atualizarStatus(Mockito.eq(selecao), Mockito.eq(StatusLancamentoEnum.EFETIVADO), Mockito.anyLong())).thenReturn(3);
+        Mockito.when(saldoRepository.somarAoSaldo(Mockito.anyLong(), Mockito.any(BigDecimal.class))).thenReturn(1);
+
+        // Ação
+        int atualizados = service.atualizarStatus(selecao, StatusLancamentoEnum.EFETIVADO);
+
+        // Verificação
+        Assertions.assertThat(atualizados).isEqualTo(3);
+        Mockito.verify(saldoRepository).somarAoSaldo(1L, BigDecimal.valueOf(150));
+        Mockito.verify(repository, Mockito.never()).save(Mockito.any(LancamentoModel.class));
+    }
+
+    @Test
+    public void deveTravarASincroniaDoUsuarioAntesDeSomarOLote(){
+        // Cénario
+        SelecaoLancamentosDto selecao = SelecaoLancamentosDto.builder().usuario(1L).ids(Arrays.asList(2L, 3L)).build();
+        Mockito.when(sincroniaRepository.avancar(1L, 1)).thenReturn(1);
+        Mockito.when(sincroniaRepository.obterSequencia(1L)).thenReturn(7L);
+        Mockito.when(repository.somarComSinal(selecao, false)).thenReturn(BigDecimal.valueOf(150));
+        Mockito.when(repository.atualizarStatus(selecao, StatusLancamentoEnum.EFETIVADO, 7L)).thenReturn(1);
+        Mockito.when(saldoRepository.somarAoSaldo(Mockito.anyLong(), Mockito.any(BigDecimal.class))).thenReturn(1);
+
+        // Ação
+        service.atualizarStatus(selecao, StatusLancamentoEnum.EFETIVADO);
+
+        // Verificação: outro lote do mesmo usuário esperando o commit não soma os mesmos lançamentos
+        InOrder ordem = Mockito.inOrder(sincroniaRepository, repository);
+        ordem.verify(sincroniaRepository).avancar(1L, 1);
+        ordem.verify(repository).somarComSinal(selecao, false);
+        ordem.verify(repository).atualizarStatus(selecao, StatusLancamentoEnum.EFETIVADO, 7L);
+    }
+
+    @Test
+    public void naoDeveAtualizarStatusEmLoteSemUsuario(){
+        // Ação / Verificação
+        Assertions.assertThatThrownBy(() -> service.atualizarStatus(new SelecaoLancamentosDto(), StatusLancamentoEnum.CANCELADO))
+                  .isInstanceOf(RegraNegocioExecption.class);
+        Mockito.verify(repository, Mockito.never()).atualizarStatus(Mockito.any(SelecaoLancamentosDto.class), Mockito.any(), Mockito.any());
+    }
+
+
     @Test
     public void deveAtualizarOStatusDeUmLancamento(){
         // Cénario
@@ -215,6 +430,87 @@ public class LancamentoServiceTest {
         Assertions.assertThat(resultado.isPresent()).isFalse();
     }
 
+    @Test
+    public void deveSomarNoSaldoAoEfetivarUmLancamento(){
+        // Cénario
+        UsuarioModel usuario = UsuarioModel.builder().id(1L).build();
+
+        // O estado gravado vem da projeção, não da entidade que quem chamou pode ter alterado
+        LancamentoModel lancamentoNaBase = criarLancamento();
+        lancamentoNaBase.setId(1L);
+        lancamentoNaBase.setUsuario(usuario);
+        Mockito.when(repository.obterGravadoPorId(1L)).thenReturn(Optional.of(new LancamentoDto(1L, lancamentoNaBase.getDescricao(),
+                lancamentoNaBase.getMes(), lancamentoNaBase.getAno(), lancamentoNaBase.getValor(), 1L, lancamentoNaBase.getTipo(),
+                lancamentoNaBase.getStatus(), lancamentoNaBase.getDataCadastro(), 0L)));
+
+        LancamentoModel lancamento = criarLancamento();
+        lancamento.setId(1L);
+        lancamento.setUsuario(usuario);
+        lancamento.setStatus(StatusLancamentoEnum.EFETIVADO);
+        Mockito.doNothing().when(service).validar(lancamento);
+        Mockito.when(repository.save(lancamento)).thenReturn(lancamento);
+        Mockito.when(saldoRepository.somarAoSaldo(Mockito.anyLong(), Mockito.any(BigDecimal.class))).thenReturn(1);
+
+        // Ação
+        service.atualizar(lancamento);
+
+        // Verificação
+        // O lançamento era PENDENTE, então a receita inteira entra no saldo
+        Mockito.verify(saldoRepository).somarAoSaldo(1L, BigDecimal.valueOf(10));
+    }
+
+
+    @Test
+    public void deveSomarADiferencaQuandoOutraTransacaoMaterializouOSaldoAntes(){
+        // Cénario
+        SelecaoLancamentosDto selecao = SelecaoLancamentosDto.builder().usuario(1L).ano(2022).mes(1).build();
+        Mockito.when(repository.somarComSinal(selecao, false)).thenReturn(BigDecimal.valueOf(150));
+        Mockito.when(repository.atualizarStatus(Mockito.eq(selecao), Mockito.eq(StatusLancamentoEnum.EFETIVADO), Mockito.anyLong())).thenReturn(3);
+        // Sem linha de saldo no primeiro UPDATE, e outra transação cria a linha antes do INSERT
+        Mockito.when(saldoRepository.somarAoSaldo(1L, BigDecimal.valueOf(150))).thenReturn(0, 1);
+        Mockito.when(rollupRepository.somarEfetivados(1L)).thenReturn(BigDecimal.valueOf(400));
+        Mockito.when(saldoRepository.inserirSeAusente(1L, BigDecimal.valueOf(400))).thenReturn(false);
+
+        // Ação
+        service.atualizarStatus(selecao, StatusLancamentoEnum.EFETIVADO);
+
+        // Verificação
+        Mockito.verify(saldoRepository, Mockito.times(2)).somarAoSaldo(1L, BigDecimal.valueOf(150));
+        Mockito.verify(saldoRepository, Mockito.never()).save(Mockito.any(SaldoUsuarioModel.class));
+    }
+
+
+    @Test
+    public void deveObterOSaldoMaterializadoSemSomarOsLancamentos(){
+        // Cénario
+        SaldoUsuarioModel saldo = SaldoUsuarioModel.builder().idUsuario(1L).valor(BigDecimal.valueOf(50)).build();
+        Mockito.when(saldoRepository.findById(1L)).thenReturn(Optional.of(saldo));
+
+        // Ação
+        BigDecimal resultado = service.obterSaldoPorUsuario(1L);
+
+        // Verificação
+        Assertions.assertThat(resultado).isEqualTo(BigDecimal.valueOf(50));
+        Mockito.verify(repository, Mockito.never()).obterSaldoPorTipoLancamentoEUsuarioEStatus(
+                Mockito.anyLong(), Mockito.any(TipoLancamentoEnum.class), Mockito.any(StatusLancamentoEnum.class));
+        Mockito.verify(rollupRepository, Mockito.never()).somarEfetivados(Mockito.anyLong());
+    }
+
+    @Test
+    public void deveSomarOsLancamentosSemGravarQuandoOSaldoNaoFoiMaterializado(){
+        // Cénario
+        Mockito.when(saldoRepository.findById(1L)).thenReturn(Optional.empty());
+        Mockito.when(rollupRepository.somarEfetivados(1L)).thenReturn(BigDecimal.valueOf(400));
+
+        // Ação
+        BigDecimal resultado = service.obterSaldoPorUsuario(1L);
+
+        // Verificação
+        Assertions.assertThat(resultado).isEqualTo(BigDecimal.valueOf(400));
+        Mockito.verify(saldoRepository, Mockito.never()).inserirSeAusente(Mockito.anyLong(), Mockito.any(BigDecimal.class));
+        Mockito.verify(saldoRepository, Mockito.never()).save(Mockito.any(SaldoUsuarioModel.class));
+    }
+
     @Test
     public void deveLancarErrosAoValidarUmLancamento(){
         LancamentoModel lancamento = new LancamentoModel();
@@ -0,0 +1,117 @@
+package com.aroque.minhasfinancas.service;
+
+import com.aroque.minhasfinancas.dto.TokenVerificadoDto;
+import com.aroque.minhasfinancas.service.Impl.RevogacaoTokenServiceImpl;
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+public class RevogacaoTokenServiceTest {
+
+    RevogacaoTokenService service;
+
+    @Before
+    public void setUp(){
+        service = new RevogacaoTokenServiceImpl();
+        ReflectionTestUtils.setField(service, "expiracao", "30");
+        ReflectionTestUtils.setField(service, "expiracaoRefresh", 20160L);
+        ReflectionTestUtils.setField(service, "capacidade", 4);
+        ReflectionTestUtils.invokeMethod(service, "criarFiltro");
+    }
+
+    private TokenVerificadoDto token(Long idUsuario, Instant emitidoEm){
+        return new TokenVerificadoDto("teste@gmail.com", idUsuario, "Teste", emitidoEm.plus(30, ChronoUnit.MINUTES), emitidoEm, null, false);
+    }
+
+    private TokenVerificadoDto refresh(String id, Instant expiracao){
+        return new TokenVerificadoDto("teste@gmail.com", 1L, "Teste", expiracao, Instant.now(), id, true);
+    }
+
+    @Test
+    public void deveRevogarOsTokensEmitidosAntesDaRevogacao(){
+        // Cénario
+        TokenVerificadoDto antigo = token(1L, Instant.now().minus(5, ChronoUnit.MINUTES));
+        TokenVerificadoDto deOutroUsuario = token(2L, Instant.now().minus(5, ChronoUnit.MINUTES));
+
+        // Ação
+        service.revogarTokensDoUsuario(1L);
+
+        // Verificação
+        Assertions.assertThat(service.isRevogado(antigo)).isTrue();
+        Assertions.assertThat(service.isRevogado(deOutroUsuario)).isFalse();
+    }
+
+    @Test
+    public void naoDeveRevogarTokenEmitidoDepoisDaRevogacao(){
+        // Cénario
+        service.revogarTokensDoUsuario(1L);
+        TokenVerificadoDto novo = token(1L, Instant.now().plus(2, ChronoUnit.SECONDS));
+
+        // Verificação
+        Assertions.assertThat(service.isRevogado(novo)).isFalse();
+    }
+
+    @Test
+    public void naoDeveRevogarTokenEmitidoNoMesmoSegundoDepoisDaRevogacao(){
+        // Cénario
+        Instant antes = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        TokenVerificadoDto antigo = token(1L, antes.minusMillis(1));
+        // Token de antes do claim em milissegundos: só o iat, truncado no segundo
+        TokenVerificadoDto semMilissegundos = token(1L, antes.truncatedTo(ChronoUnit.SECONDS));
+        service.revogarTokensDoUsuario(1L);
+        TokenVerificadoDto novo = token(1L, Instant.now().truncatedTo(ChronoUnit.MILLIS).plusMillis(1));
+
+        // Verificação
+        Assertions.assertThat(service.isRevogado(novo)).isFalse();
+        Assertions.assertThat(service.isRevogado(antigo)).isTrue();
+        Assertions.assertThat(service.isRevogado(semMilissegundos)).isTrue();
+    }
+
+    @Test
+    public void deveRevogarSoOTokenComOId(){
+        // Cénario
+        TokenVerificadoDto revogado = refresh("a", Instant.now().plus(1, ChronoUnit.DAYS));
+        TokenVerificadoDto outro = refresh("b", Instant.now().plus(1, ChronoUnit.DAYS));
+
+        // Ação
+        service.revogarToken(revogado);
+
+        // Verificação
+        Assertions.assertThat(service.isRevogado(revogado)).isTrue();
+        Assertions.assertThat(service.isRevogado(outro)).isFalse();
+    }
+
+    @Test
+    public void deveConsumirORefreshTokenUmaVezSo(){
+        // Cénario
+        TokenVerificadoDto refreshToken = refresh("a", Instant.now().plus(1, ChronoUnit.DAYS));
+
+        // Ação
+        boolean primeiraTroca = service.consumir(refreshToken);
+        boolean segundaTroca = service.consumir(refreshToken);
+
+        // Verificação
+        Assertions.assertThat(primeiraTroca).isTrue();
+        Assertions.assertThat(segundaTroca).isFalse();
+    }
+
+    @Test
+    public void deveDescartarIdsExpiradosSemPerderOsQueAindaValem(){
+        // Cénario: a capacidade é 4, então a quinta revogação limpa os expirados e recria o filtro
+        for (int i = 0; i < 4; i++) {
+            service.revogarToken(refresh("expirado-" + i, Instant.now().minusSeconds(1)));
+        }
+        TokenVerificadoDto valido = refresh("valido", Instant.now().plus(1, ChronoUnit.DAYS));
+
+        // Ação
+        service.revogarToken(valido);
+
+        // Verificação
+        Assertions.assertThat(service.isRevogado(valido)).isTrue();
+        Assertions.assertThat(service.isRevogado(refresh("expirado-0", Instant.now().minusSeconds(1)))).isFalse();
+    }
+}
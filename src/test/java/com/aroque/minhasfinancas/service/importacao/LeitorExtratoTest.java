@@ -0,0 +1,81 @@
+package com.aroque.minhasfinancas.service.importacao;
+
+import com.aroque.minhasfinancas.exception.RegraNegocioExecption;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class LeitorExtratoTest {
+
+    @Test
+    public void deveLerCsvComSeparadorPontoEVirgulaEValoresBrasileiros() throws IOException {
+        // Cénario
+        String csv = "Data;Histórico;Valor\n"
+                + "05/03/2020;\"Mercado; feira\";-1.234,56\n"
+                + "\n"
+                + "2020-03-06;Salário;3000,00\n";
+        LeitorExtrato leitor = new LeitorExtratoCsv(new BufferedReader(new StringReader(csv)));
+
+        // Ação
+        TransacaoExtrato primeira = leitor.proxima();
+        TransacaoExtrato segunda = leitor.proxima();
+        TransacaoExtrato fim = leitor.proxima();
+
+        // Verificação
+        Assertions.assertThat(primeira.getLinha()).isEqualTo(2);
+        Assertions.assertThat(primeira.getData()).isEqualTo(LocalDate.of(2020, 3, 5));
+        Assertions.assertThat(primeira.getDescricao()).isEqualTo("Mercado; feira");
+        Assertions.assertThat(primeira.getValor()).isEqualByComparingTo(new BigDecimal("-1234.56"));
+        Assertions.assertThat(segunda.getLinha()).isEqualTo(4);
+        Assertions.assertThat(segunda.getValor()).isEqualByComparingTo(new BigDecimal("3000"));
+        Assertions.assertThat(fim).isNull();
+    }
+
+    @Test
+    public void deveRejeitarLinhaInvalidaEContinuarLendoOCsv() throws IOException {
+        // Cénario
+        String csv = "data,descricao,valor\n"
+                + "45/13/2020,Conta,10\n"
+                + "01/03/2020,Luz,10.50\n";
+        LeitorExtrato leitor = new LeitorExtratoCsv(new BufferedReader(new StringReader(csv)));
+
+        // Ação / Verificação
+        Assertions.assertThatThrownBy(leitor::proxima)
+                .isInstanceOf(RegraNegocioExecption.class)
+                .hasMessageContaining("Linha 2");
+        Assertions.assertThat(leitor.proxima().getValor()).isEqualByComparingTo(new BigDecimal("10.50"));
+    }
+
+    @Test
+    public void deveRecusarCsvSemAsColunasObrigatorias(){
+        Assertions.assertThatThrownBy(() -> new LeitorExtratoCsv(new BufferedReader(new StringReader("data;valor\n"))))
+                .isInstanceOf(RegraNegocioExecption.class);
+    }
+
+    @Test
+    public void deveLerAsTransacoesDeUmOfx() throws IOException {
+        // Cénario
+        String ofx = "OFXHEADER:100\nDATA:OFXSGML\n\n<OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>\n"
+                + "<STMTTRN>\n<TRNTYPE>DEBIT\n<DTPOSTED>20200305120000[-3:BRT]\n<TRNAMT>-45.90\n<MEMO>Padaria\n</STMTTRN>\n"
+                + "<STMTTRN><TRNTYPE>CREDIT</TRNTYPE><DTPOSTED>20200310</DTPOSTED><TRNAMT>1500.00</TRNAMT><NAME>Salario</NAME></STMTTRN>\n"
+                + "</BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>\n";
+        LeitorExtrato leitor = new LeitorExtratoOfx(new StringReader(ofx));
+
+        // Ação
+        TransacaoExtrato primeira = leitor.proxima();
+        TransacaoExtrato segunda = leitor.proxima();
+
+        // Verificação
+        Assertions.assertThat(primeira.getData()).isEqualTo(LocalDate.of(2020, 3, 5));
+        Assertions.assertThat(primeira.getValor()).isEqualByComparingTo(new BigDecimal("-45.90"));
+        Assertions.assertThat(primeira.getDescricao()).isEqualTo("Padaria");
+        Assertions.assertThat(segunda.getLinha()).isEqualTo(2);
+        Assertions.assertThat(segunda.getDescricao()).isEqualTo("Salario");
+        Assertions.assertThat(leitor.proxima()).isNull();
+    }
+}
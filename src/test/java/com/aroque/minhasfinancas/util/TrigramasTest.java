@@ -0,0 +1,33 @@
+package com.aroque.minhasfinancas.util;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.Set;
+
+public class TrigramasTest {
+
+    @Test
+    public void deveNormalizarRemovendoAcentosMaiusculasEEspacos(){
+        // Ação
+        String normalizado = Trigramas.normalizar("  Salário   de MARÇO ");
+
+        // Verificação
+        Assertions.assertThat(normalizado).isEqualTo("salario de marco");
+    }
+
+    @Test
+    public void deveGerarOsTrigramasDistintosDoTexto(){
+        // Ação
+        Set<String> trigramas = Trigramas.gerar("aaaa luz");
+
+        // Verificação
+        Assertions.assertThat(trigramas).containsExactly("aaa", "aa ", "a l", " lu", "luz");
+    }
+
+    @Test
+    public void naoDeveGerarTrigramasParaTextoCurto(){
+        Assertions.assertThat(Trigramas.gerar("lu")).isEmpty();
+        Assertions.assertThat(Trigramas.gerar(null)).isEmpty();
+    }
+}